@@ -27,6 +27,9 @@ package io.github.penguthepenguin.event;
 import io.github.penguthepenguin.event.data.Acceptor;
 import io.github.penguthepenguin.event.data.PostOrder;
 import io.github.penguthepenguin.event.data.Subscribe;
+import io.github.penguthepenguin.event.gen.EventFilter;
+import io.github.penguthepenguin.event.generic.FilteredSubscription;
+import io.github.penguthepenguin.event.generic.ShardedEventBus;
 import io.github.penguthepenguin.event.generic.SimpleEventBus;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -59,6 +62,27 @@ public interface EventBus<E> extends AutoCloseable {
         return new SimpleEventBus<>(eventType, acceptor);
     }
 
+    /**
+     * Creates a bus that partitions its event types across independent shards.
+     *
+     * @param eventType the type of event that this bus will handle.
+     * @param shards the amount of shards.
+     * @return the event bus created.
+     */
+    static <E> @NonNull EventBus<E> sharded(@NonNull Class<E> eventType, int shards) {
+        return new ShardedEventBus<>(eventType, shards);
+    }
+
+    /**
+     * Creates a builder for a bus by its event type, to configure it further.
+     *
+     * @param eventType the type of event that the bus will handle.
+     * @return the builder created.
+     */
+    static <E> SimpleEventBus.@NonNull Builder<E> builder(@NonNull Class<E> eventType) {
+        return SimpleEventBus.builder(eventType);
+    }
+
     /**
      * Gets the type of event accepted by this bus.
      *
@@ -98,6 +122,22 @@ public interface EventBus<E> extends AutoCloseable {
         return this.register(eventType, handler, false);
     }
 
+    /**
+     * Registers an event handler for the events of the given type that match a filter.
+     *
+     * @param eventType the type of event to subscribe to.
+     * @param filter an expression over the @{@link io.github.penguthepenguin.event.data.Index} properties of the event.
+     * @param handler the event handler to register.
+     * @return the subscription that was generated.
+     * @see EventFilter
+     */
+    default @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull String filter, @NonNull EventHandler<? super E> handler) {
+        Subscription<E> subscription = new FilteredSubscription<>(PostOrder.NORMAL, this, eventType, EventFilter.compile(eventType, filter), handler, true, null);
+        this.register(eventType, subscription);
+
+        return subscription;
+    }
+
     /**
      * Registers an event handler for the given event type and if it accepts cancelled.
      *
@@ -133,6 +173,26 @@ public interface EventBus<E> extends AutoCloseable {
      */
     @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled);
 
+    /**
+     * Registers an event handler that is bound to an execution context.
+     *
+     * @param eventType the type of event to subscribe to.
+     * @param handler the handler to be registered.
+     * @param order the order in which the handler should be called.
+     * @param ignoreCancelled weather this handler should ignore cancelled events.
+     * @param context the execution context the handler must run in, or {@code null} to run on the posting thread.
+     * @return the subscription that was generated.
+     * @throws UnsupportedOperationException if a context is given and this bus has no execution contexts.
+     * @see #drain(String, int)
+     */
+    default @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        if (context != null) {
+            throw new UnsupportedOperationException("This bus has no execution contexts, given " + context);
+        }
+
+        return this.register(eventType, handler, order, ignoreCancelled);
+    }
+
     /**
      * Register a subscription for a specific event type.
      *
@@ -149,6 +209,31 @@ public interface EventBus<E> extends AutoCloseable {
      */
     @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event);
 
+    /**
+     * Binds the calling thread to an execution context, so subscriptions bound to it run inline when posted from this thread.
+     *
+     * @param context the name of the execution context.
+     * @throws IllegalStateException if another thread is already bound to the context.
+     * @throws UnsupportedOperationException if this bus has no execution contexts.
+     */
+    default void bindContext(@NonNull String context) {
+        throw new UnsupportedOperationException("This bus has no execution contexts, given " + context);
+    }
+
+    /**
+     * Runs subscriptions that were queued for an execution context by posts from other threads,
+     * in the order they were posted. The calling thread is bound to the context if none is yet.
+     *
+     * @param context the name of the execution context.
+     * @param budget the most subscriptions to run.
+     * @return the amount of subscriptions that were run.
+     * @throws IllegalStateException if another thread is bound to the context.
+     * @throws UnsupportedOperationException if this bus has no execution contexts.
+     */
+    default int drain(@NonNull String context, int budget) {
+        throw new UnsupportedOperationException("This bus has no execution contexts, given " + context);
+    }
+
     /**
      * Unregister a subscription from the event bus.
      *
@@ -27,6 +27,7 @@ package io.github.penguthepenguin.event;
 import io.github.penguthepenguin.event.data.PostOrder;
 import io.github.penguthepenguin.event.generic.SimpleSubscription;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.lang.reflect.Method;
 import java.util.Comparator;
@@ -87,4 +88,14 @@ public interface Subscription<E> {
         return true;
     }
 
+    /**
+     * The name of the execution context this must run in, posts from other threads are queued until the context is drained.
+     *
+     * @return the context's name, or {@code null} to run on the posting thread.
+     * @see EventBus#drain(String, int)
+     */
+    default @Nullable String getContext() {
+        return null;
+    }
+
 }
@@ -0,0 +1,219 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.bridge;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Follows an {@link EventRing}, and re-posts the events written to it by a writer in another process into a bus.
+ * <p>
+ * A reader starts at the latest event of the ring, and skips events of types it wasn't given. It is polled by a single thread,
+ * either by calling {@link #poll(int)} from a loop of its own, or by {@link #run() running} it on a dedicated thread,
+ * which spins while events keep coming for the lowest latency, and backs off once they stop.
+ */
+public final class EventBridgeReader implements Runnable, AutoCloseable {
+
+    private static final int SPINS = 100_000;
+    private static final int YIELDS = 1_000;
+    private static final long PARK_NANOS = 50_000;
+
+    private final EventRing ring;
+    private final EventBus<?> bus;
+    private final Object instance;
+    private final Map<Integer, EventCodec<?, ?>> codecs = new HashMap<>();
+    private final Consumer<? super RuntimeException> errorHandler;
+
+    private final ByteBuffer view;
+    private long position;
+    private long overruns;
+    private long failures;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a reader that prints the records it fails to decode.
+     *
+     * @param ring the ring to read from.
+     * @param bus the bus to re-post events into.
+     * @param generators the cache that the event types are generated by.
+     * @param eventTypes the types of event to re-post.
+     * @throws IllegalArgumentException if two event types have the same tag in the ring.
+     */
+    public EventBridgeReader(@NonNull EventRing ring, @NonNull EventBus<?> bus, @NonNull EventGeneratorCache<?, ?> generators, @NonNull Collection<? extends Class<?>> eventTypes) {
+        this(ring, bus, generators, eventTypes, Throwable::printStackTrace);
+    }
+
+    /**
+     * Creates a reader.
+     *
+     * @param ring the ring to read from.
+     * @param bus the bus to re-post events into.
+     * @param generators the cache that the event types are generated by.
+     * @param eventTypes the types of event to re-post.
+     * @param errorHandler the handler of records that couldn't be decoded, called on the polling thread before they are skipped.
+     * @throws IllegalArgumentException if two event types have the same tag in the ring.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EventBridgeReader(@NonNull EventRing ring, @NonNull EventBus<?> bus, @NonNull EventGeneratorCache<?, ?> generators, @NonNull Collection<? extends Class<?>> eventTypes,
+                             @NonNull Consumer<? super RuntimeException> errorHandler) {
+        this.ring = ring;
+        this.bus = bus;
+        this.errorHandler = errorHandler;
+        this.instance = generators.getInstance();
+        this.view = ring.buffer().duplicate();
+        this.position = ring.published();
+
+        for (Class<?> eventType : eventTypes) {
+            EventCodec<?, ?> codec = ((EventGeneratorCache) generators).generate(eventType).getCodec();
+            if (this.codecs.put(EventBridgeWriter.tag(eventType), codec) != null) {
+                throw new IllegalArgumentException("Event " + eventType + " has the same tag as another event type.");
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of times the writer lapped this reader, so the events it hadn't read yet were lost.
+     *
+     * @return the amount of overruns.
+     */
+    public long getOverruns() {
+        return this.overruns;
+    }
+
+    /**
+     * Gets the amount of records that couldn't be decoded, and were skipped.
+     *
+     * @return the amount of failed records.
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Re-posts the events that were published since the last poll.
+     *
+     * @param limit the most events to re-post.
+     * @return the amount of records read, including any of types that were skipped.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int poll(int limit) {
+        long published = this.ring.published();
+        if (published - this.position > this.ring.getCapacity()) {
+            this.lapped(published);
+        }
+
+        int count = 0;
+        while (this.position < published && count < limit) {
+            int index = this.ring.index(this.position);
+            int length = this.view.getInt(index);
+            int tag = this.view.getInt(index + 4);
+
+            if (length < EventRing.RECORD_HEADER || length > this.ring.end() - index) {
+                this.lapped(this.ring.published());
+                return count;
+            }
+
+            Object event = null;
+            if (tag != EventRing.PADDING) {
+                EventCodec codec = this.codecs.get(tag);
+
+                if (codec != null) {
+                    try {
+                        this.view.limit(index + length).position(index + EventRing.RECORD_HEADER);
+                        event = codec.decode(this.instance, this.view);
+                    } catch (RuntimeException e) {
+                        event = e;
+                    } finally {
+                        this.view.clear();
+                    }
+                }
+                count++;
+            }
+
+            // the record was overwritten while it was read
+            if (this.ring.claimedAfterRead() - this.ring.getCapacity() > this.position) {
+                this.lapped(this.ring.published());
+                return count;
+            }
+
+            this.position += length;
+
+            if (event instanceof RuntimeException) {
+                this.failures++;
+                this.errorHandler.accept((RuntimeException) event);
+            } else if (event != null) {
+                EventBridgeWriter.REPOSTED.set(event);
+                try {
+                    ((EventBus) this.bus).post(event);
+                } finally {
+                    EventBridgeWriter.REPOSTED.remove();
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void lapped(long published) {
+        this.overruns++;
+        this.position = published;
+    }
+
+    /**
+     * Polls until this reader is closed, spinning while there are events and backing off once there aren't.
+     */
+    @Override
+    public void run() {
+        int idle = 0;
+        while (!this.closed) {
+            if (this.poll(256) > 0) {
+                idle = 0;
+            } else if (++idle > SPINS + YIELDS) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (idle > SPINS) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Stops {@link #run() running} this reader.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+}
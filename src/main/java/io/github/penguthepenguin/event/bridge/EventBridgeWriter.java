@@ -0,0 +1,153 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.bridge;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mirrors events of selected types from a bus into an {@link EventRing}, for {@link EventBridgeReader}s in other processes.
+ * <p>
+ * Events are mirrored by a subscription that runs {@link PostOrder#LAST}, so cancelled events aren't mirrored.
+ * Events re-posted by a reader aren't mirrored either, so two buses can be bridged both ways.
+ */
+public final class EventBridgeWriter implements AutoCloseable {
+
+    // the event a reader is re-posting on this thread
+    static final ThreadLocal<Object> REPOSTED = new ThreadLocal<>();
+
+    private final EventRing ring;
+    private final EventBus<?> bus;
+    private final List<Subscription<?>> subscriptions = new ArrayList<>();
+
+    // events are encoded aside first, as their size isn't known until they are
+    private final ByteBuffer scratch;
+    private long position;
+
+    /**
+     * Creates a writer, and starts mirroring events.
+     *
+     * @param ring the ring to write to, which no other writer may write to.
+     * @param bus the bus to mirror events from.
+     * @param generators the cache that the event types are generated by.
+     * @param eventTypes the types of event to mirror.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EventBridgeWriter(@NonNull EventRing ring, @NonNull EventBus<?> bus, @NonNull EventGeneratorCache<?, ?> generators, @NonNull Collection<? extends Class<?>> eventTypes) {
+        this.ring = ring;
+        this.bus = bus;
+        this.scratch = ByteBuffer.allocateDirect(Math.min(ring.getCapacity() / 4, 64 * 1024));
+        this.position = ring.published();
+
+        for (Class<?> eventType : eventTypes) {
+            GeneratedEvent<?, ?> generated = ((EventGeneratorCache) generators).generate(eventType);
+            EventCodec codec = generated.getCodec();
+            int tag = tag(eventType);
+
+            EventHandler<Object> handler = event -> {
+                if (REPOSTED.get() != event) {
+                    this.write(tag, codec, event);
+                }
+            };
+            this.subscriptions.add(((EventBus) bus).register(generated.getGeneratedClass(), handler, PostOrder.LAST));
+        }
+    }
+
+    /**
+     * Gets the tag of an event type in a ring, a hash of its name.
+     */
+    static int tag(Class<?> eventType) {
+        int tag = Hashing.murmur3_32_fixed().hashString(eventType.getName(), StandardCharsets.UTF_8).asInt();
+        return tag == EventRing.PADDING ? 1 : tag;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private synchronized void write(int tag, EventCodec codec, Object event) {
+        ByteBuffer scratch = this.scratch;
+        scratch.clear().position(EventRing.RECORD_HEADER);
+
+        try {
+            codec.encode((GeneratedEventData) event, scratch);
+        } catch (BufferOverflowException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Event " + event + " is larger than a quarter of the ring.", e);
+        }
+
+        int length = (scratch.position() + 7) & ~7;
+        scratch.putInt(4, tag);
+        scratch.limit(scratch.position()).position(EventRing.RECORD_HEADER);
+
+        MappedByteBuffer buffer = this.ring.buffer();
+        int index = this.ring.index(this.position);
+        int padding = index + length > this.ring.end() ? this.ring.end() - index : 0;
+
+        this.ring.claim(this.position + padding + length);
+
+        if (padding != 0) {
+            buffer.putInt(index + 4, EventRing.PADDING);
+            buffer.putInt(index, padding);
+            this.position += padding;
+            index = this.ring.index(this.position);
+        }
+
+        ByteBuffer record = buffer.duplicate();
+        record.position(index + EventRing.RECORD_HEADER);
+        record.put(scratch);
+        buffer.putInt(index + 4, tag);
+        buffer.putInt(index, length);
+
+        this.position += length;
+        this.ring.publish(this.position);
+    }
+
+    /**
+     * Stops mirroring events.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void close() {
+        for (Subscription subscription : this.subscriptions) {
+            ((EventBus) this.bus).unregister(subscription);
+        }
+        this.subscriptions.clear();
+    }
+
+}
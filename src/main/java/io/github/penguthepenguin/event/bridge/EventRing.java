@@ -0,0 +1,154 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.bridge;
+
+import com.google.common.base.Preconditions;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A ring of events in a memory-mapped file, shared by the processes of a host.
+ * <p>
+ * A ring has a single writer, an {@link EventBridgeWriter}, and any amount of {@link EventBridgeReader}s that each follow it
+ * at their own position. The writer never waits for readers: a reader that falls a whole ring behind loses the events
+ * it was lapped on, and carries on from the latest one.
+ * <p>
+ * The file is a header holding the capacity, then the position the writer has claimed and the position it has published,
+ * followed by the data. Positions only ever grow, and are wrapped into the data by its capacity, which is a power of 2.
+ * Records are 8 byte aligned, and never wrap: the rest of the data is padded instead.
+ */
+public final class EventRing {
+
+    private static final int MAGIC = 0x45564e54;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    // the writer's positions are on their own cache line, apart from the immutable fields read by everyone
+    private static final int CLAIMED_OFFSET = 64;
+    private static final int PUBLISHED_OFFSET = 72;
+    private static final int DATA_OFFSET = 128;
+
+    static final int RECORD_HEADER = 8;
+    static final int PADDING = 0;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private EventRing(Path path, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Maps a ring, creating its file if it doesn't exist.
+     *
+     * @param path the file of the ring.
+     * @param capacity the capacity of the ring in bytes, a power of 2, which every process must agree on.
+     * @return the ring mapped.
+     * @throws IOException if the file couldn't be mapped.
+     * @throws IllegalStateException if the file is a ring of another capacity.
+     */
+    public static @NonNull EventRing open(@NonNull Path path, int capacity) throws IOException {
+        Preconditions.checkArgument(capacity >= 1024 && Integer.bitCount(capacity) == 1, "The capacity of a ring must be a power of 2 of at least 1024, given %s", capacity);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + (long) capacity);
+
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                Fences.storeFence();
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+            } else if (buffer.getInt(CAPACITY_OFFSET) != capacity) {
+                throw new IllegalStateException("The ring " + path + " has a capacity of " + buffer.getInt(CAPACITY_OFFSET) + ", not " + capacity);
+            }
+
+            return new EventRing(path, buffer, capacity);
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    MappedByteBuffer buffer() {
+        return this.buffer;
+    }
+
+    int index(long position) {
+        return DATA_OFFSET + (int) (position & (this.capacity - 1));
+    }
+
+    int end() {
+        return DATA_OFFSET + this.capacity;
+    }
+
+    long claimed() {
+        long claimed = this.buffer.getLong(CLAIMED_OFFSET);
+        Fences.loadFence();
+        return claimed;
+    }
+
+    /**
+     * Reads the claimed position once the data read before it is done, to tell if that data was overwritten meanwhile.
+     */
+    long claimedAfterRead() {
+        Fences.loadFence();
+        return this.claimed();
+    }
+
+    /**
+     * Claims the data up to a position before it is written, so readers of what it overwrites can tell.
+     */
+    void claim(long position) {
+        this.buffer.putLong(CLAIMED_OFFSET, position);
+        Fences.storeFence();
+    }
+
+    long published() {
+        long published = this.buffer.getLong(PUBLISHED_OFFSET);
+        Fences.loadFence();
+        return published;
+    }
+
+    /**
+     * Publishes the data up to a position once it is written.
+     */
+    void publish(long position) {
+        Fences.storeFence();
+        this.buffer.putLong(PUBLISHED_OFFSET, position);
+    }
+
+}
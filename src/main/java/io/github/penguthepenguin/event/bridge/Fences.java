@@ -0,0 +1,60 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.bridge;
+
+/**
+ * Orders the plain accesses to an {@link EventRing} against each other, as they are shared with other processes.
+ * <p>
+ * This is the Java 8 version, where a fence is a volatile access: HotSpot compiles the store to a full fence,
+ * and the load keeps later loads after it. The jar also holds a Java 11 version under {@code META-INF/versions/11}
+ * that uses the fences of {@code VarHandle}.
+ * <p>
+ * A volatile load is only an acquire, so {@link #loadFence()} doesn't stop earlier plain loads from moving below it.
+ * This version relies on HotSpot running on x86, which never reorders loads with other loads, and is not a portable
+ * load fence on weakly ordered CPUs such as ARM.
+ */
+final class Fences {
+
+    private static volatile int fence;
+
+    private Fences() {
+    }
+
+    /**
+     * Keeps the loads and stores before the fence from being reordered with the stores after it.
+     */
+    static void storeFence() {
+        fence = 0;
+    }
+
+    /**
+     * Keeps the loads after the fence from being reordered with it. Loads before the fence are only kept before it
+     * by the hardware, as on x86.
+     */
+    static void loadFence() {
+        int ignored = fence;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to mark an event type as sticky: the bus keeps the last posted event of the type,
+ * and delivers it to every subscription that registers for the type afterwards.
+ * <p>
+ * Subclasses of a sticky type are sticky too. So are the implementations of a sticky interface,
+ * which the bus resolves itself as {@link Inherited} only covers superclasses.
+ * A type's own annotation wins over the one of its superclasses, which wins over those of its interfaces.
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Sticky {
+
+    /**
+     * The method of the event that returns its key, so the last event of each key is kept instead.
+     *
+     * @return the name of a public method without parameters, or empty to only keep the last event.
+     * @see io.github.penguthepenguin.event.generic.SimpleEventBus#clearSticky(Class, Object)
+     */
+    String key() default "";
+
+}
@@ -52,4 +52,41 @@ public @interface Subscribe {
      */
     boolean ignoreCancelled() default false;
 
+    /**
+     * The execution context this subscriber is bound to, posts from other threads are queued until it is drained.
+     *
+     * @return the context's name, or empty to run on the posting thread.
+     */
+    String context() default "";
+
+    /**
+     * Returns if this may run on another thread after the post returns, once it is found to be slow.
+     * Only buses with an adaptive offload move subscribers, and a deferred subscriber can't cancel the event in time.
+     *
+     * @return a boolean value.
+     */
+    boolean deferrable() default false;
+
+    /**
+     * An expression over the @{@link Index} properties of the event, that events must match to be handled.
+     *
+     * @return the expression, or empty to handle every event.
+     * @see io.github.penguthepenguin.event.gen.EventFilter
+     */
+    String filter() default "";
+
+    /**
+     * The most events delivered at once, for subscribers taking a {@link java.util.List} of events.
+     *
+     * @return the size that a batch is delivered at.
+     */
+    int maxBatchSize() default 256;
+
+    /**
+     * The most milliseconds an event waits in a batch, for subscribers taking a {@link java.util.List} of events.
+     *
+     * @return the delay a batch is delivered after its first event, or {@code 0} to only deliver full batches.
+     */
+    long maxBatchDelay() default 50;
+
 }
@@ -0,0 +1,195 @@
+package io.github.penguthepenguin.event.gen;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import io.github.penguthepenguin.event.data.Index;
+import net.bytebuddy.ByteBuddy;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * An opt-in directory of the bytecode of generated events, so later starts can define them
+ * straight from disk instead of running ByteBuddy for every event type.
+ * <p>
+ * Entries are keyed by a hash of everything the generated class is derived from: the structure of the event type,
+ * and the bytecode of {@link GeneratedEvent} and ByteBuddy that generate it. Any change to those produces a new key,
+ * and the stale entry is replaced.
+ * <p>
+ * The cache is only an optimization, so failing to read or write an entry never fails the generation:
+ * the failure is passed to the error handler and counted, and the event is generated as if there were no entry.
+ */
+public final class BytecodeCache {
+
+    private static final String EXTENSION = ".class";
+
+    // the generators are the same for the lifetime of the process, so they are only hashed once
+    private static final HashCode GENERATORS = hashGenerators(GeneratedEvent.class, ByteBuddy.class);
+
+    private final Path directory;
+    private final Consumer<? super IOException> errorHandler;
+    private final AtomicLong failures = new AtomicLong();
+
+    public BytecodeCache(@NonNull Path directory) throws IOException {
+        this(directory, Throwable::printStackTrace);
+    }
+
+    /**
+     * Opens a cache, creating its directory if it doesn't exist.
+     *
+     * @param directory the directory of the cache.
+     * @param errorHandler the handler of entries that couldn't be read, written or deleted, called on the generating thread.
+     * @throws IOException if the directory couldn't be created.
+     */
+    public BytecodeCache(@NonNull Path directory, @NonNull Consumer<? super IOException> errorHandler) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.errorHandler = errorHandler;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Gets the amount of entries that couldn't be read, written or deleted, which were passed to the error handler.
+     *
+     * @return the amount of failures.
+     */
+    public long getFailures() {
+        return this.failures.get();
+    }
+
+    /**
+     * Computes the key of an event type's generated class.
+     *
+     * @param eventType the type of event.
+     * @return the key, which changes whenever the generated class would.
+     */
+    public static @NonNull String key(@NonNull Class<?> eventType) {
+        Hasher hasher = Hashing.sha256().newHasher().putBytes(GENERATORS.asBytes());
+
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            hasher.putString(type.getName(), StandardCharsets.UTF_8).putInt(type.getModifiers());
+
+            Constructor<?>[] constructors = type.getDeclaredConstructors();
+            Arrays.sort(constructors, Comparator.comparing(Constructor::toGenericString));
+            for (Constructor<?> constructor : constructors) {
+                hasher.putString(constructor.toGenericString(), StandardCharsets.UTF_8);
+            }
+
+            Method[] methods = type.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::toGenericString));
+            for (Method method : methods) {
+                if (!Modifier.isAbstract(method.getModifiers()) && !method.isAnnotationPresent(Index.class)) continue;
+
+                Index index = method.getAnnotation(Index.class);
+                hasher.putString(method.toGenericString(), StandardCharsets.UTF_8).putInt(index == null ? -1 : index.value());
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Hashes the bytecode of the classes that generate events, falling back to their version if it can't be read.
+     */
+    private static HashCode hashGenerators(Class<?>... generators) {
+        Hasher hasher = Hashing.sha256().newHasher();
+
+        for (Class<?> generator : generators) {
+            try (InputStream bytecode = generator.getResourceAsStream(generator.getSimpleName() + EXTENSION)) {
+                if (bytecode != null) {
+                    hasher.putBytes(ByteStreams.toByteArray(bytecode));
+                    continue;
+                }
+            } catch (IOException ignored) {
+            }
+
+            hasher.putString(generator.getName() + ":" + generator.getPackage().getImplementationVersion(), StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash();
+    }
+
+    /**
+     * Reads the cached bytecode of an event type's generated class.
+     *
+     * @param eventType the type of event.
+     * @return the bytecode, or {@code null} if there is no up-to-date entry.
+     */
+    public byte @Nullable [] load(@NonNull Class<?> eventType) {
+        try {
+            return Files.readAllBytes(this.path(eventType, key(eventType)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            this.fail(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the bytecode of an event type's generated class, replacing any stale entries of that type.
+     *
+     * @param eventType the type of event.
+     * @param bytecode the bytecode of its generated class.
+     */
+    public void store(@NonNull Class<?> eventType, byte @NonNull [] bytecode) {
+        String key = key(eventType);
+        Path path = this.path(eventType, key);
+
+        try {
+            this.invalidate(eventType);
+
+            // written aside and moved, so a concurrent reader never sees a partial entry
+            Path temporary = Files.createTempFile(this.directory, eventType.getName(), ".tmp");
+            Files.write(temporary, bytecode);
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * Deletes every entry of an event type, such as when its cached bytecode failed to load.
+     *
+     * @param eventType the type of event.
+     */
+    public void invalidate(@NonNull Class<?> eventType) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory, eventType.getName() + "-*" + EXTENSION)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    private void fail(IOException exception) {
+        this.failures.incrementAndGet();
+        this.errorHandler.accept(exception);
+    }
+
+    private Path path(Class<?> eventType, String key) {
+        return this.directory.resolve(eventType.getName() + "-" + key + EXTENSION);
+    }
+
+}
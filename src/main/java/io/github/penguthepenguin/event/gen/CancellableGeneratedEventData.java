@@ -0,0 +1,41 @@
+package io.github.penguthepenguin.event.gen;
+
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.generic.CancellationState;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link GeneratedEventData} that can be cancelled, keeping its state in a volatile field
+ * the same way {@link io.github.penguthepenguin.event.generic.AbstractVolatileCancellable} does.
+ */
+public class CancellableGeneratedEventData<I> extends GeneratedEventData<I> implements Cancellable {
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicReferenceFieldUpdater<CancellableGeneratedEventData<?>, Object> STATE =
+            (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(CancellableGeneratedEventData.class, Object.class, "state");
+
+    private volatile Object state;
+
+    public CancellableGeneratedEventData(I instance) {
+        super(instance);
+    }
+
+    @Override
+    public @NonNull AtomicBoolean getCancellationState() {
+        return CancellationState.getCancellationState(STATE, this);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return CancellationState.isCancelled(this.state);
+    }
+
+    @Override
+    public boolean setCancelled(boolean cancelled) {
+        return CancellationState.setCancelled(STATE, this, cancelled);
+    }
+
+}
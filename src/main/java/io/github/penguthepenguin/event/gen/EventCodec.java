@@ -0,0 +1,241 @@
+package io.github.penguthepenguin.event.gen;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the @{@link io.github.penguthepenguin.event.data.Index} properties of a generated event to a {@link ByteBuffer},
+ * and reads them back into a new event. Implementations are generated per event type by {@link GeneratedEvent#getCodec()},
+ * and access the fields of the generated event directly.
+ * <p>
+ * An encoded event is an {@code int} length that includes the header, a {@code char} count of properties, then each property
+ * in index order: a {@code char} tag of its index and type, then primitives as themselves, their boxes and strings prefixed by whether
+ * they are present, strings as their UTF-8 length and bytes, and enums by name.
+ * <p>
+ * Properties may be added to an event after the ones it already has. An event encoded before they were added decodes with them
+ * left at their default value, and an event encoded after decodes with them skipped. An event whose tags don't match the properties
+ * it is decoded into, such as when an index was inserted between existing ones or a property changed its type, is rejected.
+ */
+public abstract class EventCodec<G extends GeneratedEventData<I>, I> {
+
+    /**
+     * The size of the header of an encoded event.
+     */
+    public static final int HEADER = 6;
+
+    /**
+     * The types a property can have, by the code in its tag. Every enum shares the code of {@link Enum}.
+     */
+    private static final List<Class<?>> TYPES = Arrays.asList(
+            boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class, double.class,
+            Boolean.class, Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class, Double.class,
+            String.class, Enum.class
+    );
+
+    protected EventCodec() {
+
+    }
+
+    /**
+     * Encodes an event at the position of a buffer, and moves the position past it.
+     *
+     * @param event the event to encode.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer hasn't enough room, leaving the content after its position undefined.
+     */
+    public abstract void encode(@NonNull G event, @NonNull ByteBuffer buffer);
+
+    /**
+     * Decodes an event at the position of a buffer, and moves the position past it.
+     *
+     * @param instance the instance passed to the event.
+     * @param buffer the buffer to read from.
+     * @return the event decoded.
+     * @throws IllegalArgumentException if a property was encoded with another index or type than the event has at its position.
+     */
+    public abstract @NonNull G decode(@NonNull I instance, @NonNull ByteBuffer buffer);
+
+    /**
+     * Gets the tag written before a property, of its index in the lower 11 bits and the code of its type above them.
+     *
+     * @param index the {@link io.github.penguthepenguin.event.data.Index} of the property.
+     * @param type the type of the property.
+     * @return the tag of the property.
+     */
+    static char tag(int index, Class<?> type) {
+        return (char) (TYPES.indexOf(type.isEnum() ? Enum.class : type) << 11 | index & 0x7FF);
+    }
+
+    protected static void checkTag(ByteBuffer buffer, char tag) {
+        char encoded = buffer.getChar();
+        if (encoded != tag) {
+            throw new IllegalArgumentException("Expected the property of index " + (tag & 0x7FF) + " of type " + TYPES.get(tag >>> 11).getName()
+                    + ", but it was encoded with index " + (encoded & 0x7FF) + " of type " + (encoded >>> 11 < TYPES.size() ? TYPES.get(encoded >>> 11).getName() : "unknown"));
+        }
+    }
+
+    protected static void putBoolean(ByteBuffer buffer, boolean value) {
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    protected static boolean getBoolean(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+
+    protected static void putString(ByteBuffer buffer, @Nullable String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        buffer.putInt(length);
+
+        // written a character at a time, rather than through an intermediate array
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18))
+                        .put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F))
+                        .put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    protected static @Nullable String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        // a corrupt length mustn't allocate past the end of the buffer
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        char[] chars = new char[length];
+        int count = 0;
+        for (int end = buffer.position() + length; buffer.position() < end; ) {
+            int b = buffer.get();
+            if (b >= 0) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | buffer.get() & 0x3F);
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (buffer.get() & 0x3F) << 6 | buffer.get() & 0x3F);
+            } else {
+                int codePoint = (b & 0x07) << 18 | (buffer.get() & 0x3F) << 12 | (buffer.get() & 0x3F) << 6 | buffer.get() & 0x3F;
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    protected static void putEnum(ByteBuffer buffer, @Nullable Enum<?> value) {
+        putString(buffer, value == null ? null : value.name());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected static @Nullable Enum<?> getEnum(ByteBuffer buffer, Class<?> type) {
+        String name = getString(buffer);
+        return name == null ? null : Enum.valueOf((Class) type, name);
+    }
+
+    protected static void putBoxedBoolean(ByteBuffer buffer, @Nullable Boolean value) {
+        if (present(buffer, value)) putBoolean(buffer, value);
+    }
+
+    protected static @Nullable Boolean getBoxedBoolean(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : getBoolean(buffer);
+    }
+
+    protected static void putBoxedByte(ByteBuffer buffer, @Nullable Byte value) {
+        if (present(buffer, value)) buffer.put(value);
+    }
+
+    protected static @Nullable Byte getBoxedByte(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.get();
+    }
+
+    protected static void putBoxedShort(ByteBuffer buffer, @Nullable Short value) {
+        if (present(buffer, value)) buffer.putShort(value);
+    }
+
+    protected static @Nullable Short getBoxedShort(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getShort();
+    }
+
+    protected static void putBoxedCharacter(ByteBuffer buffer, @Nullable Character value) {
+        if (present(buffer, value)) buffer.putChar(value);
+    }
+
+    protected static @Nullable Character getBoxedCharacter(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getChar();
+    }
+
+    protected static void putBoxedInteger(ByteBuffer buffer, @Nullable Integer value) {
+        if (present(buffer, value)) buffer.putInt(value);
+    }
+
+    protected static @Nullable Integer getBoxedInteger(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getInt();
+    }
+
+    protected static void putBoxedLong(ByteBuffer buffer, @Nullable Long value) {
+        if (present(buffer, value)) buffer.putLong(value);
+    }
+
+    protected static @Nullable Long getBoxedLong(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getLong();
+    }
+
+    protected static void putBoxedFloat(ByteBuffer buffer, @Nullable Float value) {
+        if (present(buffer, value)) buffer.putFloat(value);
+    }
+
+    protected static @Nullable Float getBoxedFloat(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getFloat();
+    }
+
+    protected static void putBoxedDouble(ByteBuffer buffer, @Nullable Double value) {
+        if (present(buffer, value)) buffer.putDouble(value);
+    }
+
+    protected static @Nullable Double getBoxedDouble(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getDouble();
+    }
+
+    private static boolean present(ByteBuffer buffer, @Nullable Object value) {
+        buffer.put((byte) (value == null ? 0 : 1));
+        return value != null;
+    }
+
+}
@@ -0,0 +1,246 @@
+package io.github.penguthepenguin.event.gen;
+
+import io.github.penguthepenguin.event.data.Index;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Generates the {@link EventCodec} of a generated event, reading and writing the fields of its generated class directly.
+ * The codec is defined into the same package and loader as the generated class, so it can access its fields.
+ */
+final class EventCodecGenerator implements Opcodes {
+
+    private static final String BUFFER = Type.getInternalName(Buffer.class);
+    private static final String BYTE_BUFFER = Type.getInternalName(ByteBuffer.class);
+    private static final String CODEC = Type.getInternalName(EventCodec.class);
+
+    private final String generated;
+    private final String instance;
+    private final Method[] properties;
+
+    private EventCodecGenerator(Class<?> generatedClass, Class<?> instanceType, Method[] properties) {
+        this.generated = Type.getInternalName(generatedClass);
+        this.instance = Type.getInternalName(instanceType);
+        this.properties = properties;
+
+        for (Method property : properties) {
+            Class<?> type = property.getReturnType();
+            if (!type.isPrimitive() && !type.isEnum() && type != String.class && !isBox(type)) {
+                throw new IllegalArgumentException("Property " + property + " of type " + type.getName() + " can't be encoded.");
+            }
+        }
+    }
+
+    /**
+     * Generates the bytecode of a codec.
+     *
+     * @param name the name of the codec.
+     * @param generatedClass the class generated for the event.
+     * @param instanceType the type of instance passed to the event.
+     * @param properties the properties of the event, in index order.
+     * @return the bytecode of the codec.
+     * @throws IllegalArgumentException if a property has a type that can't be encoded.
+     */
+    static byte[] generate(String name, Class<?> generatedClass, Class<?> instanceType, Method[] properties) {
+        EventCodecGenerator generator = new EventCodecGenerator(generatedClass, instanceType, properties);
+
+        return new ByteBuddy(ClassFileVersion.JAVA_V8)
+                .subclass(EventCodec.class)
+                .name(name)
+                .method(named("encode").and(isAbstract()))
+                .intercept(new Implementation.Simple(generator::encode))
+                .method(named("decode").and(isAbstract()))
+                .intercept(new Implementation.Simple(generator::decode))
+                .visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES))
+                .make()
+                .getBytes();
+    }
+
+    // encode(event, buffer), with the start of the event in 3 and the cast event in 4
+    private ByteCodeAppender.Size encode(MethodVisitor method, Implementation.Context context, MethodDescription description) {
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(CHECKCAST, this.generated);
+        method.visitVarInsn(ASTORE, 4);
+
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKEVIRTUAL, BUFFER, "position", "()I", false);
+        method.visitVarInsn(ISTORE, 3);
+        this.seek(method, 3, EventCodec.HEADER);
+
+        for (Method property : this.properties) {
+            Class<?> type = property.getReturnType();
+
+            method.visitVarInsn(ALOAD, 2);
+            method.visitLdcInsn((int) tag(property));
+            method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "putChar", "(C)L" + BYTE_BUFFER + ";", false);
+            method.visitInsn(POP);
+
+            method.visitVarInsn(ALOAD, 2);
+            method.visitVarInsn(ALOAD, 4);
+            method.visitFieldInsn(GETFIELD, this.generated, property.getName(), Type.getDescriptor(type));
+
+            String helper = helper(type);
+            if (helper == null) {
+                Method put = method(ByteBuffer.class, "put" + bufferSuffix(type), type);
+                method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, put.getName(), Type.getMethodDescriptor(put), false);
+                method.visitInsn(POP);
+            } else {
+                Method put = method(EventCodec.class, "put" + helper, ByteBuffer.class, type.isEnum() ? Enum.class : type);
+                method.visitMethodInsn(INVOKESTATIC, CODEC, put.getName(), Type.getMethodDescriptor(put), false);
+            }
+        }
+
+        // the header, once the length is known
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKEVIRTUAL, BUFFER, "position", "()I", false);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitInsn(ISUB);
+        method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "putInt", "(II)L" + BYTE_BUFFER + ";", false);
+        method.visitInsn(POP);
+
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitInsn(ICONST_4);
+        method.visitInsn(IADD);
+        method.visitLdcInsn(this.properties.length);
+        method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "putChar", "(IC)L" + BYTE_BUFFER + ";", false);
+        method.visitInsn(POP);
+
+        method.visitInsn(RETURN);
+        return new ByteCodeAppender.Size(6, 5);
+    }
+
+    // decode(instance, buffer), with the start of the event in 3, its count of properties in 4 and the event in 5
+    private ByteCodeAppender.Size decode(MethodVisitor method, Implementation.Context context, MethodDescription description) {
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKEVIRTUAL, BUFFER, "position", "()I", false);
+        method.visitVarInsn(ISTORE, 3);
+
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitInsn(ICONST_4);
+        method.visitInsn(IADD);
+        method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "getChar", "(I)C", false);
+        method.visitVarInsn(ISTORE, 4);
+        this.seek(method, 3, EventCodec.HEADER);
+
+        method.visitTypeInsn(NEW, this.generated);
+        method.visitInsn(DUP);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(CHECKCAST, this.instance);
+        method.visitMethodInsn(INVOKESPECIAL, this.generated, "<init>", "(L" + this.instance + ";)V", false);
+        method.visitVarInsn(ASTORE, 5);
+
+        Label end = new Label();
+        for (int i = 0; i < this.properties.length; i++) {
+            Method property = this.properties[i];
+            Class<?> type = property.getReturnType();
+
+            // encoded before this property was added
+            method.visitVarInsn(ILOAD, 4);
+            method.visitLdcInsn(i);
+            method.visitJumpInsn(IF_ICMPLE, end);
+
+            // rejects events encoded with another property at this position
+            method.visitVarInsn(ALOAD, 2);
+            method.visitLdcInsn((int) tag(property));
+            method.visitMethodInsn(INVOKESTATIC, CODEC, "checkTag", "(L" + BYTE_BUFFER + ";C)V", false);
+
+            method.visitVarInsn(ALOAD, 5);
+            method.visitVarInsn(ALOAD, 2);
+
+            String helper = helper(type);
+            if (helper == null) {
+                Method get = method(ByteBuffer.class, "get" + bufferSuffix(type));
+                method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, get.getName(), Type.getMethodDescriptor(get), false);
+            } else if (type.isEnum()) {
+                Method get = method(EventCodec.class, "getEnum", ByteBuffer.class, Class.class);
+                method.visitLdcInsn(Type.getType(type));
+                method.visitMethodInsn(INVOKESTATIC, CODEC, get.getName(), Type.getMethodDescriptor(get), false);
+                method.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+            } else {
+                Method get = method(EventCodec.class, "get" + helper, ByteBuffer.class);
+                method.visitMethodInsn(INVOKESTATIC, CODEC, get.getName(), Type.getMethodDescriptor(get), false);
+            }
+
+            method.visitFieldInsn(PUTFIELD, this.generated, property.getName(), Type.getDescriptor(type));
+        }
+
+        // skips any properties added after this codec was generated
+        method.visitLabel(end);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, 3);
+        method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "getInt", "(I)I", false);
+        method.visitInsn(IADD);
+        method.visitMethodInsn(INVOKEVIRTUAL, BUFFER, "position", "(I)L" + BUFFER + ";", false);
+        method.visitInsn(POP);
+
+        method.visitVarInsn(ALOAD, 5);
+        method.visitInsn(ARETURN);
+        return new ByteCodeAppender.Size(6, 6);
+    }
+
+    private static char tag(Method property) {
+        return EventCodec.tag(property.getAnnotation(Index.class).value(), property.getReturnType());
+    }
+
+    private void seek(MethodVisitor method, int start, int offset) {
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ILOAD, start);
+        method.visitLdcInsn(offset);
+        method.visitInsn(IADD);
+        method.visitMethodInsn(INVOKEVIRTUAL, BUFFER, "position", "(I)L" + BUFFER + ";", false);
+        method.visitInsn(POP);
+    }
+
+    /**
+     * Gets the suffix of the {@link EventCodec} helpers of a type, or {@code null} if the buffer reads and writes it itself.
+     */
+    private static @Nullable String helper(Class<?> type) {
+        if (type == boolean.class) return "Boolean";
+        if (type == String.class) return "String";
+        if (type.isEnum()) return "Enum";
+        if (isBox(type)) return "Boxed" + type.getSimpleName();
+        return null;
+    }
+
+    private static String bufferSuffix(Class<?> type) {
+        if (type == byte.class) return "";
+        String name = type.getName();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static boolean isBox(Class<?> type) {
+        return type == Boolean.class || type == Byte.class || type == Short.class || type == Character.class
+                || type == Integer.class || type == Long.class || type == Float.class || type == Double.class;
+    }
+
+    private static Method method(Class<?> owner, String name, Class<?>... parameters) {
+        try {
+            return owner == ByteBuffer.class ? owner.getMethod(name, parameters) : owner.getDeclaredMethod(name, parameters);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
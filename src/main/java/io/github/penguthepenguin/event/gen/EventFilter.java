@@ -0,0 +1,695 @@
+package io.github.penguthepenguin.event.gen;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.data.Index;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A filter over the @{@link Index} properties of an event, compiled from an expression to a {@link MethodHandle} tree.
+ * <p>
+ * Expressions compare properties, by their method name or its name without {@code get} / {@code is}, to literals
+ * or other properties with {@code == != < <= > >=}, and combine them with {@code && || !} and parentheses.
+ * Literals are numbers, strings in single or double quotes, {@code true}, {@code false} and {@code null}.
+ * A string compared to an enum property is the name of one of its constants.
+ * <p>
+ * Filters are interned per event type by their normalized expression, so subscriptions written with the same filter
+ * share one instance. The properties of generated events can't change, so the first {@value #SLOTS} filters of an
+ * event type each get a slot in the events they test to remember their result, and every subscription of a post
+ * after the first reuses it. Nothing is allocated for it, and the filter holds no reference to the event.
+ */
+public final class EventFilter {
+
+    /**
+     * The filters of an event type that remember their result in its events, two bits each.
+     */
+    static final int SLOTS = Long.SIZE / 2;
+
+    private static final ClassValue<Filters> FILTERS = new ClassValue<Filters>() {
+        @Override
+        protected Filters computeValue(Class<?> eventType) {
+            return new Filters();
+        }
+    };
+
+    private static final MethodHandle[] OPERATORS = new MethodHandle[Operator.values().length];
+    private static final MethodHandle COMPARE_LONG;
+    private static final MethodHandle COMPARE_DOUBLE;
+    private static final MethodHandle COMPARE_BOOLEAN;
+    private static final MethodHandle COMPARE_OBJECT;
+    private static final MethodHandle EQUALS;
+    private static final MethodHandle NOT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType operator = MethodType.methodType(boolean.class, int.class);
+            for (Operator value : Operator.values()) {
+                OPERATORS[value.ordinal()] = lookup.findStatic(EventFilter.class, value.name().toLowerCase(), operator);
+            }
+
+            COMPARE_LONG = lookup.findStatic(Long.class, "compare", MethodType.methodType(int.class, long.class, long.class));
+            COMPARE_DOUBLE = lookup.findStatic(Double.class, "compare", MethodType.methodType(int.class, double.class, double.class));
+            COMPARE_BOOLEAN = lookup.findStatic(Boolean.class, "compare", MethodType.methodType(int.class, boolean.class, boolean.class));
+            COMPARE_OBJECT = lookup.findStatic(EventFilter.class, "compare", MethodType.methodType(int.class, Object.class, Object.class));
+            EQUALS = lookup.findStatic(Objects.class, "equals", MethodType.methodType(boolean.class, Object.class, Object.class));
+            NOT = lookup.findStatic(EventFilter.class, "not", MethodType.methodType(boolean.class, boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<?> eventType;
+    private final String expression;
+    private final MethodHandle filter;
+
+    /**
+     * The bits of {@link GeneratedEventData#filterResults} telling if an event was evaluated and if it matched,
+     * or {@code 0} if the properties tested may change, or the event type has no slot left.
+     */
+    private final long evaluatedBit;
+    private final long matchedBit;
+
+    // the last class whose events were found to have a slot, so the checks are only made once per class
+    private @Nullable Class<?> slotted;
+
+    // only a statistic, lost updates between threads don't matter
+    private long evaluations;
+
+    private EventFilter(Class<?> eventType, String expression, MethodHandle filter, int slot) {
+        this.eventType = eventType;
+        this.expression = expression;
+        this.filter = filter;
+        this.evaluatedBit = slot < 0 ? 0 : 1L << (slot * 2);
+        this.matchedBit = slot < 0 ? 0 : 1L << (slot * 2 + 1);
+    }
+
+    /**
+     * Compiles a filter for an event type, or gets the filter already compiled for the same expression.
+     *
+     * @param eventType the type of event, or the class generated for it.
+     * @param expression the filter's expression.
+     * @return the filter, shared with every other filter of the type with the same normalized expression.
+     * @throws IllegalArgumentException if the expression is malformed, or doesn't fit the properties.
+     */
+    public static @NonNull EventFilter compile(@NonNull Class<?> eventType, @NonNull String expression) {
+        GeneratedEvent<?, ?> generated = GeneratedEvent.forGenerated(eventType);
+        Class<?> declaringType = generated != null ? generated.getEventType()
+                : EventSlab.View.class.isAssignableFrom(eventType) ? eventType.getSuperclass() : eventType;
+
+        Filters filters = FILTERS.get(declaringType);
+        EventFilter filter = filters.byExpression.get(expression);
+        if (filter != null) {
+            return filter;
+        }
+
+        Node node = new Parser(expression, properties(declaringType)).parse();
+        String normalized = node.toString();
+
+        boolean immutable = GeneratedEventData.class.isAssignableFrom(declaringType);
+        filter = filters.byExpression.computeIfAbsent(normalized, key -> new EventFilter(
+                declaringType, key, node.compile(), immutable ? filters.nextSlot() : -1
+        ));
+
+        filters.byExpression.putIfAbsent(expression, filter);
+        return filter;
+    }
+
+    private static Map<String, Method> properties(Class<?> eventType) {
+        Map<String, Method> properties = new HashMap<>();
+
+        for (Method method : GeneratedEvent.findProperties(eventType)) {
+            String name = method.getName();
+            properties.put(name, method);
+
+            for (String prefix : new String[]{"get", "is"}) {
+                if (name.length() > prefix.length() && name.startsWith(prefix) && Character.isUpperCase(name.charAt(prefix.length()))) {
+                    String property = name.substring(prefix.length());
+                    properties.putIfAbsent(Character.toLowerCase(property.charAt(0)) + property.substring(1), method);
+                }
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Tests an event, reusing the result remembered in the event if this already tested it.
+     * Flyweight views are always evaluated, as they show another event every time they move,
+     * and so are events of a subtype of the filter's event type, whose slots belong to their own filters.
+     *
+     * @param event the event, an instance of the filter's event type.
+     * @return {@code true} if the event matches the filter.
+     * @throws Throwable if a property couldn't be compared, such as a {@code null} box compared to a number.
+     */
+    public boolean test(@NonNull Object event) throws Throwable {
+        GeneratedEventData<?> data = null;
+        if (this.hasSlot(event)) {
+            data = (GeneratedEventData<?>) event;
+            long results = data.filterResults;
+            if ((results & this.evaluatedBit) != 0) {
+                return (results & this.matchedBit) != 0;
+            }
+        }
+
+        this.evaluations++;
+        boolean matches = (boolean) this.filter.invokeExact(event);
+
+        if (data != null) {
+            data.filterResults |= matches ? this.evaluatedBit | this.matchedBit : this.evaluatedBit;
+        }
+
+        return matches;
+    }
+
+    private boolean hasSlot(Object event) {
+        if (this.evaluatedBit == 0) return false;
+
+        Class<?> eventClass = event.getClass();
+        if (eventClass == this.slotted) return true;
+
+        // generated classes directly extend the event type they were generated for
+        if (eventClass.getSuperclass() != this.eventType || event instanceof EventSlab.View) return false;
+
+        this.slotted = eventClass;
+        return true;
+    }
+
+    public @NonNull Class<?> getEventType() {
+        return this.eventType;
+    }
+
+    /**
+     * Gets the normalized expression, with every comparison and combination in parentheses.
+     *
+     * @return the expression.
+     */
+    public @NonNull String getExpression() {
+        return this.expression;
+    }
+
+    /**
+     * Gets how many times the expression was evaluated, rather than reusing the last result.
+     *
+     * @return the amount of evaluations.
+     */
+    public long getEvaluationCount() {
+        return this.evaluations;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+
+    /**
+     * The filters of an event type, by their expression as written and normalized.
+     */
+    private static final class Filters {
+
+        private final ConcurrentMap<String, EventFilter> byExpression = new ConcurrentHashMap<>();
+        private final AtomicInteger slots = new AtomicInteger();
+
+        private int nextSlot() {
+            int slot = this.slots.getAndIncrement();
+            return slot < SLOTS ? slot : -1;
+        }
+
+    }
+
+    // the targets of OPERATORS, by the lower case name of each operator
+
+    private static boolean eq(int comparison) {
+        return comparison == 0;
+    }
+
+    private static boolean ne(int comparison) {
+        return comparison != 0;
+    }
+
+    private static boolean lt(int comparison) {
+        return comparison < 0;
+    }
+
+    private static boolean le(int comparison) {
+        return comparison <= 0;
+    }
+
+    private static boolean gt(int comparison) {
+        return comparison > 0;
+    }
+
+    private static boolean ge(int comparison) {
+        return comparison >= 0;
+    }
+
+    private static boolean not(boolean value) {
+        return !value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private enum Operator {
+
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        private boolean isEquality() {
+            return this == EQ || this == NE;
+        }
+
+    }
+
+    /**
+     * A node of a parsed expression, its {@link #toString()} being its normalized form.
+     */
+    private interface Node {
+
+        /**
+         * Compiles this to a handle of type {@code (Object)boolean}.
+         */
+        MethodHandle compile();
+
+    }
+
+    /**
+     * A property or literal compared by a {@link Comparison}.
+     */
+    private static final class Operand {
+
+        private final @Nullable Method property;
+        private final @Nullable Object literal;
+        private final String text;
+
+        private Operand(@Nullable Method property, @Nullable Object literal, String text) {
+            this.property = property;
+            this.literal = literal;
+            this.text = text;
+        }
+
+        private Class<?> type() {
+            if (this.property != null) {
+                return this.property.getReturnType();
+            }
+
+            return this.literal == null ? Object.class : this.literal.getClass();
+        }
+
+        private boolean isNumber() {
+            Class<?> type = MethodType.methodType(this.type()).wrap().returnType();
+            return Number.class.isAssignableFrom(type) || type == Character.class;
+        }
+
+        private boolean isFloating() {
+            Class<?> type = MethodType.methodType(this.type()).wrap().returnType();
+            return type == Float.class || type == Double.class;
+        }
+
+        private boolean isBoolean() {
+            return MethodType.methodType(this.type()).wrap().returnType() == Boolean.class;
+        }
+
+        /**
+         * Compiles this to a handle of type {@code (Object)type}.
+         */
+        private MethodHandle compile(Class<?> type) {
+            MethodHandle handle;
+
+            if (this.property != null) {
+                try {
+                    handle = MethodHandles.publicLookup().unreflect(this.property);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Property " + this.property + " isn't accessible", e);
+                }
+            } else {
+                Object literal = this.literal;
+                if (literal instanceof Number && type.isPrimitive()) {
+                    literal = type == double.class ? (Object) ((Number) literal).doubleValue() : (Object) ((Number) literal).longValue();
+                }
+
+                handle = MethodHandles.dropArguments(MethodHandles.constant(type, literal), 0, Object.class);
+            }
+
+            return handle.asType(MethodType.methodType(type, Object.class));
+        }
+
+        private Operand asEnumConstant(Class<?> enumType) {
+            if (!(this.literal instanceof String)) return this;
+
+            for (Object constant : enumType.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equals(this.literal)) {
+                    return new Operand(null, constant, this.text);
+                }
+            }
+
+            throw new IllegalArgumentException("Enum " + enumType.getName() + " has no constant " + this.text);
+        }
+
+        @Override
+        public String toString() {
+            return this.text;
+        }
+
+    }
+
+    private static final class Comparison implements Node {
+
+        private final Operand left;
+        private final Operator operator;
+        private final Operand right;
+
+        private Comparison(Operand left, Operator operator, Operand right) {
+            Class<?> leftType = left.type();
+            Class<?> rightType = right.type();
+
+            // names compared to an enum are its constants
+            if (leftType.isEnum()) {
+                right = right.asEnumConstant(leftType);
+            } else if (rightType.isEnum()) {
+                left = left.asEnumConstant(rightType);
+            }
+
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public MethodHandle compile() {
+            MethodHandle comparison;
+
+            if (this.left.isNumber() && this.right.isNumber()) {
+                Class<?> type = this.left.isFloating() || this.right.isFloating() ? double.class : long.class;
+                comparison = type == double.class ? COMPARE_DOUBLE : COMPARE_LONG;
+                comparison = MethodHandles.filterArguments(comparison, 0, this.left.compile(type), this.right.compile(type));
+            } else if (this.left.isBoolean() && this.right.isBoolean()) {
+                this.checkEquality("booleans");
+                comparison = MethodHandles.filterArguments(COMPARE_BOOLEAN, 0, this.left.compile(boolean.class), this.right.compile(boolean.class));
+            } else if (this.operator.isEquality()) {
+                this.checkLiteral(this.left, this.right);
+                this.checkLiteral(this.right, this.left);
+
+                MethodHandle equals = MethodHandles.filterArguments(EQUALS, 0, this.left.compile(Object.class), this.right.compile(Object.class));
+                equals = MethodHandles.permuteArguments(equals, MethodType.methodType(boolean.class, Object.class), 0, 0);
+                return this.operator == Operator.EQ ? equals : MethodHandles.filterReturnValue(equals, NOT);
+            } else {
+                Preconditions.checkArgument(Comparable.class.isAssignableFrom(this.left.type()) && Comparable.class.isAssignableFrom(this.right.type()),
+                        "Can't order %s and %s in %s", this.left, this.right, this
+                );
+                comparison = MethodHandles.filterArguments(COMPARE_OBJECT, 0, this.left.compile(Object.class), this.right.compile(Object.class));
+            }
+
+            comparison = MethodHandles.permuteArguments(comparison, MethodType.methodType(int.class, Object.class), 0, 0);
+            return MethodHandles.filterReturnValue(comparison, OPERATORS[this.operator.ordinal()]);
+        }
+
+        private void checkLiteral(Operand literal, Operand property) {
+            if (literal.property != null || literal.literal == null) return;
+
+            Class<?> type = MethodType.methodType(property.type()).wrap().returnType();
+            Preconditions.checkArgument(type.isInstance(literal.literal), "Can't compare %s to %s in %s", property, literal, this);
+        }
+
+        private void checkEquality(String types) {
+            Preconditions.checkArgument(this.operator.isEquality(), "Can't order %s in %s", types, this);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.left + " " + this.operator.symbol + " " + this.right + ")";
+        }
+
+    }
+
+    private static final class Flag implements Node {
+
+        private final Operand property;
+
+        private Flag(Operand property) {
+            Preconditions.checkArgument(property.isBoolean(), "Property %s isn't a boolean", property);
+            this.property = property;
+        }
+
+        @Override
+        public MethodHandle compile() {
+            return this.property.compile(boolean.class);
+        }
+
+        @Override
+        public String toString() {
+            return this.property.toString();
+        }
+
+    }
+
+    private static final class Not implements Node {
+
+        private final Node node;
+
+        private Not(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public MethodHandle compile() {
+            return MethodHandles.filterReturnValue(this.node.compile(), NOT);
+        }
+
+        @Override
+        public String toString() {
+            return "!" + this.node;
+        }
+
+    }
+
+    private static final class Junction implements Node {
+
+        private final boolean and;
+        private final Node left;
+        private final Node right;
+
+        private Junction(boolean and, Node left, Node right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public MethodHandle compile() {
+            // the right side is only tested if the left didn't decide already
+            MethodHandle decided = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, !this.and), 0, Object.class);
+            return this.and
+                    ? MethodHandles.guardWithTest(this.left.compile(), this.right.compile(), decided)
+                    : MethodHandles.guardWithTest(this.left.compile(), decided, this.right.compile());
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.left + (this.and ? " && " : " || ") + this.right + ")";
+        }
+
+    }
+
+    /**
+     * A recursive descent parser of expressions.
+     */
+    private static final class Parser {
+
+        private final String expression;
+        private final Map<String, Method> properties;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        private Parser(String expression, Map<String, Method> properties) {
+            this.expression = expression;
+            this.properties = properties;
+            this.tokenize();
+        }
+
+        private Node parse() {
+            Preconditions.checkArgument(!this.tokens.isEmpty(), "Empty filter expression");
+
+            Node node = this.or();
+            if (this.position != this.tokens.size()) {
+                throw this.error("Unexpected " + this.tokens.get(this.position));
+            }
+
+            return node;
+        }
+
+        private Node or() {
+            Node node = this.and();
+            while (this.accept("||")) {
+                node = new Junction(false, node, this.and());
+            }
+
+            return node;
+        }
+
+        private Node and() {
+            Node node = this.unary();
+            while (this.accept("&&")) {
+                node = new Junction(true, node, this.unary());
+            }
+
+            return node;
+        }
+
+        private Node unary() {
+            if (this.accept("!")) {
+                return new Not(this.unary());
+            }
+
+            if (this.accept("(")) {
+                Node node = this.or();
+                this.expect(")");
+                return node;
+            }
+
+            Operand left = this.operand();
+            for (Operator operator : Operator.values()) {
+                if (this.accept(operator.symbol)) {
+                    return new Comparison(left, operator, this.operand());
+                }
+            }
+
+            return new Flag(left);
+        }
+
+        private Operand operand() {
+            if (this.position == this.tokens.size()) {
+                throw this.error("Unexpected end");
+            }
+
+            String token = this.tokens.get(this.position++);
+            char first = token.charAt(0);
+
+            if (first == '"' || first == '\'') {
+                StringBuilder value = new StringBuilder();
+                for (int i = 1; i < token.length() - 1; i++) {
+                    char c = token.charAt(i);
+                    value.append(c == '\\' ? token.charAt(++i) : c);
+                }
+
+                return new Operand(null, value.toString(), quote(value.toString()));
+            }
+
+            if (first == '-' || Character.isDigit(first)) {
+                try {
+                    boolean floating = token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0;
+                    Number value = floating ? (Number) Double.parseDouble(token) : (Number) Long.parseLong(token);
+                    return new Operand(null, value, value.toString());
+                } catch (NumberFormatException e) {
+                    throw this.error("Malformed number " + token);
+                }
+            }
+
+            switch (token) {
+                case "true":
+                case "false":
+                    return new Operand(null, Boolean.parseBoolean(token), token);
+                case "null":
+                    return new Operand(null, null, token);
+            }
+
+            Method property = this.properties.get(token);
+            if (property == null) {
+                throw this.error("Unknown property " + token + ", expected one of " + this.properties.keySet());
+            }
+
+            return new Operand(property, null, property.getName());
+        }
+
+        private boolean accept(String token) {
+            if (this.position < this.tokens.size() && this.tokens.get(this.position).equals(token)) {
+                this.position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!this.accept(token)) {
+                throw this.error("Expected " + token);
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in filter " + this.expression);
+        }
+
+        private void tokenize() {
+            String expression = this.expression;
+            int i = 0;
+
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                int start = i;
+
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+
+                if (c == '"' || c == '\'') {
+                    i++;
+                    while (i < expression.length() && expression.charAt(i) != c) {
+                        i += expression.charAt(i) == '\\' ? 2 : 1;
+                    }
+
+                    if (i >= expression.length()) {
+                        throw this.error("Unterminated string");
+                    }
+                    i++;
+                } else if (Character.isDigit(c) || c == '-' && i + 1 < expression.length() && Character.isDigit(expression.charAt(i + 1))) {
+                    i++;
+                    while (i < expression.length() && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '.'
+                            || (expression.charAt(i) == '-' || expression.charAt(i) == '+') && Character.toLowerCase(expression.charAt(i - 1)) == 'e')) {
+                        i++;
+                    }
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    while (i < expression.length() && Character.isJavaIdentifierPart(expression.charAt(i))) {
+                        i++;
+                    }
+                } else if (expression.startsWith("&&", i) || expression.startsWith("||", i) || expression.startsWith("==", i)
+                        || expression.startsWith("!=", i) || expression.startsWith("<=", i) || expression.startsWith(">=", i)) {
+                    i += 2;
+                } else if ("!<>()".indexOf(c) >= 0) {
+                    i++;
+                } else {
+                    throw this.error("Unexpected character '" + c + "'");
+                }
+
+                this.tokens.add(expression.substring(start, i));
+            }
+        }
+
+        private static String quote(String value) {
+            return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        }
+
+    }
+
+}
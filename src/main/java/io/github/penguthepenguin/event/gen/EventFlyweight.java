@@ -0,0 +1,108 @@
+package io.github.penguthepenguin.event.gen;
+
+import com.google.common.base.Preconditions;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The layout of a generated event stored in fixed size slots of a {@link ByteBuffer}, and the flyweight class
+ * that reads its @{@link io.github.penguthepenguin.event.data.Index} properties straight from a slot.
+ * Flyweights are generated per event type by {@link GeneratedEvent#getFlyweight()}.
+ * <p>
+ * Only primitive properties can be stored, as every slot has the same size.
+ * Properties are referred to by their position in {@link GeneratedEvent#getProperties()}.
+ * Views are reused for every slot, so they can't be posted anywhere that keeps events past their post, see {@link EventSlab}.
+ */
+public final class EventFlyweight<G extends GeneratedEventData<I>, I> {
+
+    private final Class<? extends G> viewClass;
+    private final Constructor<? extends G> constructor;
+
+    private final Class<?>[] types;
+    private final int[] offsets;
+    private final int slotSize;
+
+    EventFlyweight(Class<? extends G> viewClass, Class<I> instanceType, Method[] properties, int[] layout) throws NoSuchMethodException {
+        this.viewClass = viewClass;
+        this.constructor = viewClass.getConstructor(instanceType);
+
+        this.types = new Class<?>[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            this.types[i] = properties[i].getReturnType();
+        }
+
+        this.offsets = new int[properties.length];
+        System.arraycopy(layout, 0, this.offsets, 0, properties.length);
+        this.slotSize = layout[properties.length];
+    }
+
+    /**
+     * Gets the class of the views, which posted views are of.
+     *
+     * @return the generated view class.
+     */
+    public @NonNull Class<? extends G> getViewClass() {
+        return this.viewClass;
+    }
+
+    /**
+     * Gets the size of a slot, a multiple of 8 bytes.
+     *
+     * @return the size of a slot in bytes.
+     */
+    public int getSlotSize() {
+        return this.slotSize;
+    }
+
+    /**
+     * Gets where a property lives within a slot.
+     *
+     * @param property the position of the property.
+     * @return its offset in bytes.
+     */
+    public int getOffset(int property) {
+        return this.offsets[property];
+    }
+
+    /**
+     * Gets the type of a property.
+     *
+     * @param property the position of the property.
+     * @return its primitive type.
+     */
+    public @NonNull Class<?> getType(int property) {
+        return this.types[property];
+    }
+
+    /**
+     * Creates a slab over the remaining bytes of a buffer, in the byte order of the buffer.
+     *
+     * @param instance the instance passed to the view.
+     * @param buffer the buffer to store events in, heap or direct.
+     * @return a slab of as many slots as fit.
+     */
+    public @NonNull EventSlab<G, I> newSlab(@NonNull I instance, @NonNull ByteBuffer buffer) {
+        try {
+            return new EventSlab<>(this, this.constructor.newInstance(instance), buffer);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a view of " + this.viewClass, e);
+        }
+    }
+
+    /**
+     * Creates a slab over a new direct buffer, in native byte order.
+     *
+     * @param instance the instance passed to the view.
+     * @param slots the amount of slots.
+     * @return a slab of the given amount of slots.
+     */
+    public @NonNull EventSlab<G, I> allocateSlab(@NonNull I instance, int slots) {
+        Preconditions.checkArgument(slots >= 0 && slots <= Integer.MAX_VALUE / this.slotSize, "Can't allocate %s slots of %s bytes", slots, this.slotSize);
+        return this.newSlab(instance, ByteBuffer.allocateDirect(slots * this.slotSize).order(ByteOrder.nativeOrder()));
+    }
+
+}
@@ -0,0 +1,180 @@
+package io.github.penguthepenguin.event.gen;
+
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.data.Index;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Generates the flyweight view of a generated event, a subclass whose properties read a slot of a {@link ByteBuffer}
+ * rather than fields of their own.
+ */
+final class EventFlyweightGenerator implements Opcodes {
+
+    private static final String BYTE_BUFFER = Type.getInternalName(ByteBuffer.class);
+    private static final String BUFFER_FIELD = "flyweightBuffer";
+    private static final String BASE_FIELD = "flyweightBase";
+
+    private final String name;
+    private final Class<?> eventType;
+    private final Method[] properties;
+    private final int[] offsets;
+
+    // the position of every property by the name of its method
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    private EventFlyweightGenerator(String name, Class<?> eventType, Method[] properties, int[] offsets) {
+        this.name = name.replace('.', '/');
+        this.eventType = eventType;
+        this.properties = properties;
+        this.offsets = offsets;
+
+        for (int i = 0; i < properties.length; i++) {
+            this.positions.put(properties[i].getName(), i);
+        }
+    }
+
+    /**
+     * Generates the bytecode of a flyweight view.
+     *
+     * @param name the name of the view.
+     * @param eventType the type of event.
+     * @param properties the properties of the event, in index order.
+     * @param offsets the offset of every property within a slot.
+     * @return the bytecode of the view.
+     */
+    static byte[] generate(String name, Class<?> eventType, Method[] properties, int[] offsets) {
+        EventFlyweightGenerator generator = new EventFlyweightGenerator(name, eventType, properties, offsets);
+
+        return new ByteBuddy(ClassFileVersion.JAVA_V8)
+                .subclass(eventType, ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
+                .implement(EventSlab.View.class)
+                .name(name)
+                .defineField(BUFFER_FIELD, ByteBuffer.class, Visibility.PRIVATE)
+                .defineField(BASE_FIELD, int.class, Visibility.PRIVATE)
+                .method(isAnnotatedWith(Index.class))
+                .intercept(new Implementation.Simple(generator::get))
+                .method(named("moveFlyweight").and(isDeclaredBy(EventSlab.View.class)))
+                .intercept(new Implementation.Simple(generator::move))
+                .visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES))
+                .make()
+                .getBytes();
+    }
+
+    /**
+     * Computes where every property lives in a slot, the widest first so that each is aligned to its size without padding.
+     *
+     * @param properties the properties of the event, in index order.
+     * @return the offset of every property by its position, followed by the size of a slot rounded up to 8 bytes.
+     * @throws IllegalArgumentException if a property isn't a primitive, or there are none.
+     */
+    static int[] layout(Method[] properties) {
+        if (properties.length == 0) {
+            throw new IllegalArgumentException("An event needs properties to be stored in a slot.");
+        }
+
+        int[] layout = new int[properties.length + 1];
+        int offset = 0;
+
+        for (int size = 8; size > 0; size /= 2) {
+            for (int i = 0; i < properties.length; i++) {
+                if (size(properties[i]) == size) {
+                    layout[i] = offset;
+                    offset += size;
+                }
+            }
+        }
+
+        layout[properties.length] = (offset + 7) & ~7;
+        return layout;
+    }
+
+    /**
+     * Gets the size of a property in a slot.
+     *
+     * @throws IllegalArgumentException if the property isn't a primitive.
+     */
+    static int size(Method property) {
+        Class<?> type = property.getReturnType();
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+
+        throw new IllegalArgumentException("Property " + property + " of type " + type.getName() + " can't be stored in a slot, only primitives have a fixed size.");
+    }
+
+    // a property, read at the base of the slot plus its offset
+    private ByteCodeAppender.Size get(MethodVisitor method, Implementation.Context context, MethodDescription description) {
+        int position = this.positions.get(description.getName());
+        Class<?> type = this.properties[position].getReturnType();
+
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, this.name, BUFFER_FIELD, Type.getDescriptor(ByteBuffer.class));
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, this.name, BASE_FIELD, "I");
+        method.visitLdcInsn(this.offsets[position]);
+        method.visitInsn(IADD);
+
+        if (type == boolean.class) {
+            Label zero = new Label();
+            Label end = new Label();
+
+            method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "get", "(I)B", false);
+            method.visitJumpInsn(IFEQ, zero);
+            method.visitInsn(ICONST_1);
+            method.visitJumpInsn(GOTO, end);
+            method.visitLabel(zero);
+            method.visitInsn(ICONST_0);
+            method.visitLabel(end);
+            method.visitInsn(IRETURN);
+        } else {
+            Type returned = Type.getType(type);
+            String suffix = type == byte.class ? "" : Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+
+            method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER, "get" + suffix, "(I)" + returned.getDescriptor(), false);
+            method.visitInsn(returned.getOpcode(IRETURN));
+        }
+
+        return new ByteCodeAppender.Size(3, 1);
+    }
+
+    // moveFlyweight(buffer, base), resetting the cancellation of the previous slot
+    private ByteCodeAppender.Size move(MethodVisitor method, Implementation.Context context, MethodDescription description) {
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitFieldInsn(PUTFIELD, this.name, BUFFER_FIELD, Type.getDescriptor(ByteBuffer.class));
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ILOAD, 2);
+        method.visitFieldInsn(PUTFIELD, this.name, BASE_FIELD, "I");
+
+        if (Cancellable.class.isAssignableFrom(this.eventType)) {
+            method.visitVarInsn(ALOAD, 0);
+            method.visitInsn(ICONST_0);
+            method.visitMethodInsn(INVOKEVIRTUAL, this.name, "setCancelled", "(Z)Z", false);
+            method.visitInsn(POP);
+        }
+
+        method.visitInsn(RETURN);
+        return new ByteCodeAppender.Size(2, 3);
+    }
+
+}
@@ -1,29 +1,99 @@
 package io.github.penguthepenguin.event.gen;
 
+import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Caches the {@link GeneratedEvent}s of an instance type, weakly keyed by the class loader of each event
+ * so that reloading the code that declares events doesn't leak their generated classes.
+ * <p>
+ * Generated classes are defined into the loader of their event and hold their own {@link GeneratedEvent},
+ * so an entry lives exactly as long as that loader does, and can be evicted early without regenerating the class.
+ * <p>
+ * Entries are held strongly by the cache of their loader, which in turn is only held strongly by the event classes
+ * it has generated, so that it doesn't reach its own loader from outside of it.
+ */
 public class EventGeneratorCache<G extends GeneratedEventData<I>, I> {
 
     private final I instance;
     private final Class<I> instanceType;
+    private final long maximumSize;
+    private final @Nullable BytecodeCache bytecodeCache;
 
-    private final LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> cache;
+    private final LoadingCache<ClassLoader, LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>> cache;
+    // the cache of a loader, kept alive by every event class it has generated rather than by this cache
+    private final ClassValue<AtomicReference<LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>>> anchors = new ClassValue<AtomicReference<LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>>>() {
+        @Override
+        protected AtomicReference<LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>> computeValue(Class<?> eventType) {
+            return new AtomicReference<>();
+        }
+    };
 
     public EventGeneratorCache(I instance) {
+        this(instance, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache of generated events.
+     *
+     * @param instance the instance passed to generated events.
+     * @param maximumSize the most events cached per class loader.
+     */
+    public EventGeneratorCache(I instance, long maximumSize) {
+        this(instance, maximumSize, null);
+    }
+
+    /**
+     * Creates a cache of generated events, backed by a cache of their bytecode on disk.
+     *
+     * @param instance the instance passed to generated events.
+     * @param maximumSize the most events cached per class loader.
+     * @param bytecodeCache the cache of generated bytecode, or {@code null} to always generate.
+     */
+    @SuppressWarnings("unchecked")
+    public EventGeneratorCache(I instance, long maximumSize, @Nullable BytecodeCache bytecodeCache) {
         this.instance = instance;
         this.instanceType = (Class<I>) instance.getClass();
+        this.maximumSize = maximumSize;
+        this.bytecodeCache = bytecodeCache;
 
-        this.cache = CacheBuilder.newBuilder().build(new CacheLoader<Class<? extends G>, GeneratedEvent<? extends G, I>>() {
+        Class<I> instanceType = this.instanceType;
+        this.cache = CacheBuilder.newBuilder().weakKeys().weakValues().build(new CacheLoader<ClassLoader, LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>>() {
+            @Override
+            public LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> load(ClassLoader classLoader) {
+                return newLoaderCache(instanceType, maximumSize, bytecodeCache);
+            }
+        });
+    }
+
+    // the cache of a loader strongly reaches it, so it must not reach this cache back, which would keep both alive with the loader
+    private static <G extends GeneratedEventData<I>, I> LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> newLoaderCache(Class<I> instanceType, long maximumSize, @Nullable BytecodeCache bytecodeCache) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().weakKeys();
+        if (maximumSize != Long.MAX_VALUE) {
+            builder.maximumSize(maximumSize);
+        }
+
+        return builder.build(new CacheLoader<Class<? extends G>, GeneratedEvent<? extends G, I>>() {
             @Override
             public GeneratedEvent<? extends G, I> load(Class<? extends G> eventClass) {
                 try {
-                    return new GeneratedEvent<>(eventClass, instanceType);
+                    return new GeneratedEvent<>(eventClass, instanceType, bytecodeCache);
                 } catch (Throwable e) {
                     throw new RuntimeException(e);
                 }
@@ -31,18 +101,146 @@ public class EventGeneratorCache<G extends GeneratedEventData<I>, I> {
         });
     }
 
+    /**
+     * Gets the instance passed to generated events.
+     *
+     * @return the instance.
+     */
+    public I getInstance() {
+        return this.instance;
+    }
+
+    /**
+     * Generates events ahead of their first use, in parallel on the common pool.
+     *
+     * @param events the event types to generate.
+     * @throws IllegalStateException if any event couldn't be generated, with each failure suppressed.
+     */
     public void preGenerate(@NonNull Collection<Class<? extends G>> events) {
+        Map<Class<? extends G>, Throwable> failures = this.preGenerateAsync(events).join();
+        if (!failures.isEmpty()) {
+            IllegalStateException exception = new IllegalStateException("Failed to generate events " + failures.keySet());
+            failures.values().forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    /**
+     * Generates events ahead of their first use, in parallel on the common pool.
+     *
+     * @param events the event types to generate.
+     * @return a future completed once every event is generated, with the failure of each event that couldn't be.
+     */
+    public CompletableFuture<Map<Class<? extends G>, Throwable>> preGenerateAsync(@NonNull Collection<Class<? extends G>> events) {
+        return this.preGenerateAsync(events, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates events ahead of their first use, in parallel on an executor.
+     * <p>
+     * Generation is independent per event type, and defining the generated classes is locked per class,
+     * so any amount of events can be generated at once, including ones that share a class loader.
+     *
+     * @param events the event types to generate.
+     * @param executor the executor to generate events on.
+     * @return a future completed once every event is generated, with the failure of each event that couldn't be.
+     */
+    public CompletableFuture<Map<Class<? extends G>, Throwable>> preGenerateAsync(@NonNull Collection<Class<? extends G>> events, @NonNull Executor executor) {
+        Map<Class<? extends G>, Throwable> failures = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] futures = new CompletableFuture[events.size()];
+
+        int i = 0;
         for (Class<? extends G> eventType : events) {
-            generate(eventType);
+            CompletableFuture<?> future;
+            try {
+                future = CompletableFuture.runAsync(() -> this.generate(eventType), executor);
+            } catch (RejectedExecutionException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            futures[i++] = future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    failures.put(eventType, unwrap(throwable));
+                }
+            });
         }
+
+        return CompletableFuture.allOf(futures).handle((result, throwable) -> failures);
     }
 
     public GeneratedEvent<? extends G, I> generate(Class<? extends G> event) {
+        ClassLoader classLoader = event.getClassLoader();
+        Preconditions.checkArgument(classLoader != null, "Event %s must not be loaded by the bootstrap class loader.", event);
+
         try {
-            return this.cache.get(event);
+            LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> events = this.cache.get(classLoader);
+            AtomicReference<LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>>> anchor = this.anchors.get(event);
+            if (anchor.get() != events) {
+                anchor.set(events);
+            }
+
+            return events.get(event);
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Unwraps the failure of a generated event from the futures and caches it passed through.
+     */
+    private static Throwable unwrap(Throwable throwable) {
+        while (throwable.getCause() != null && (throwable instanceof CompletionException
+                || throwable instanceof ExecutionException
+                || throwable instanceof UncheckedExecutionException
+                || throwable.getClass() == RuntimeException.class)) {
+            throwable = throwable.getCause();
+        }
+
+        return throwable;
+    }
+
+    /**
+     * Evicts a generated event from this cache.
+     *
+     * @param event the event type to evict.
+     */
+    public void evict(@NonNull Class<? extends G> event) {
+        LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> events = this.cache.getIfPresent(event.getClassLoader());
+        if (events != null) {
+            events.invalidate(event);
+        }
+    }
+
+    /**
+     * Evicts every generated event of a class loader from this cache, such as when a plugin is unloaded.
+     *
+     * @param classLoader the class loader of the events.
+     */
+    public void evict(@NonNull ClassLoader classLoader) {
+        this.cache.invalidate(classLoader);
+    }
+
+    /**
+     * Evicts every generated event from this cache.
+     */
+    public void evictAll() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Gets the amount of generated events that are currently cached.
+     *
+     * @return the amount of cached events.
+     */
+    public long size() {
+        long size = 0;
+        for (LoadingCache<Class<? extends G>, GeneratedEvent<? extends G, I>> events : this.cache.asMap().values()) {
+            events.cleanUp();
+            size += events.size();
+        }
+
+        return size;
+    }
+
 }
@@ -0,0 +1,173 @@
+package io.github.penguthepenguin.event.gen;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Events stored in the slots of a {@link ByteBuffer}, read through a single reusable view.
+ * <p>
+ * Producers write the properties of a slot with the {@code put} methods, or straight into {@link #getBuffer()}
+ * at the offsets of the {@link EventFlyweight}. Reading a slot moves the view to it, so neither writing nor reading
+ * allocates. The view only shows a slot until it is moved again: it mustn't be kept, or shared between threads.
+ * A cancellable view is no longer cancelled once it has moved.
+ * <p>
+ * The same goes for posting the view: it can only be posted to subscriptions that are done with it once the post returns.
+ * Buses reject it where they would keep it for later, in batching subscriptions, sticky types, recordings and posts
+ * queued for an execution context, and deferrable subscriptions run it inline rather than offloading it.
+ * Post a copy, such as one made by {@link GeneratedEvent#newInstance}, to reach those.
+ */
+public final class EventSlab<G extends GeneratedEventData<I>, I> {
+
+    private final EventFlyweight<G, I> flyweight;
+    private final G view;
+    private final ByteBuffer buffer;
+
+    private final int slotSize;
+    private final int capacity;
+
+    EventSlab(EventFlyweight<G, I> flyweight, G view, ByteBuffer buffer) {
+        this.flyweight = flyweight;
+        this.view = view;
+        this.buffer = buffer.slice().order(buffer.order());
+
+        this.slotSize = flyweight.getSlotSize();
+        this.capacity = this.buffer.capacity() / this.slotSize;
+    }
+
+    public @NonNull EventFlyweight<G, I> getFlyweight() {
+        return this.flyweight;
+    }
+
+    /**
+     * Gets the buffer the slots are stored in, the slot {@code n} starting at {@code n * slotSize}.
+     *
+     * @return the buffer of the slab.
+     */
+    public @NonNull ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Gets the amount of slots in the slab.
+     *
+     * @return the capacity of the slab.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Moves the view to a slot.
+     *
+     * @param slot the slot to read.
+     * @return the view, showing the slot.
+     * @throws IndexOutOfBoundsException if the slot isn't in the slab.
+     */
+    public @NonNull G get(int slot) {
+        ((View) this.view).moveFlyweight(this.buffer, this.base(slot));
+        return this.view;
+    }
+
+    /**
+     * Walks a range of slots with the view.
+     *
+     * @param from the first slot, inclusive.
+     * @param to the last slot, exclusive.
+     * @param consumer the consumer of the view at every slot.
+     */
+    public void forEach(int from, int to, @NonNull Consumer<? super G> consumer) {
+        if (from < 0 || from > to || to > this.capacity) {
+            throw new IndexOutOfBoundsException("Slots " + from + " to " + to + " aren't in a slab of " + this.capacity);
+        }
+
+        View view = (View) this.view;
+        for (int slot = from; slot < to; slot++) {
+            view.moveFlyweight(this.buffer, slot * this.slotSize);
+            consumer.accept(this.view);
+        }
+    }
+
+    public void putBoolean(int slot, int property, boolean value) {
+        this.buffer.put(this.offset(slot, property, boolean.class), (byte) (value ? 1 : 0));
+    }
+
+    public void putByte(int slot, int property, byte value) {
+        this.buffer.put(this.offset(slot, property, byte.class), value);
+    }
+
+    public void putChar(int slot, int property, char value) {
+        this.buffer.putChar(this.offset(slot, property, char.class), value);
+    }
+
+    public void putShort(int slot, int property, short value) {
+        this.buffer.putShort(this.offset(slot, property, short.class), value);
+    }
+
+    public void putInt(int slot, int property, int value) {
+        this.buffer.putInt(this.offset(slot, property, int.class), value);
+    }
+
+    public void putFloat(int slot, int property, float value) {
+        this.buffer.putFloat(this.offset(slot, property, float.class), value);
+    }
+
+    public void putLong(int slot, int property, long value) {
+        this.buffer.putLong(this.offset(slot, property, long.class), value);
+    }
+
+    public void putDouble(int slot, int property, double value) {
+        this.buffer.putDouble(this.offset(slot, property, double.class), value);
+    }
+
+    /**
+     * Returns if an event is the view of a slab, which mustn't be kept past its post.
+     *
+     * @param event the event.
+     * @return {@code true} if the event is a view.
+     */
+    public static boolean isView(@NonNull Object event) {
+        return event instanceof View;
+    }
+
+    /**
+     * Checks that an event isn't the view of a slab, before it is kept past its post.
+     *
+     * @param event the event to keep.
+     * @param keeper what keeps the event, for the message.
+     * @throws IllegalArgumentException if the event is a view.
+     */
+    public static void checkNotView(@NonNull Object event, @NonNull String keeper) {
+        if (event instanceof View) {
+            throw new IllegalArgumentException("The view " + event.getClass().getName() + " only shows its slot until it moves, "
+                    + "so it can't be kept by " + keeper + ". Post a copy instead.");
+        }
+    }
+
+    private int base(int slot) {
+        if (slot < 0 || slot >= this.capacity) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " isn't in a slab of " + this.capacity);
+        }
+
+        return slot * this.slotSize;
+    }
+
+    private int offset(int slot, int property, Class<?> type) {
+        if (this.flyweight.getType(property) != type) {
+            throw new IllegalArgumentException("Property " + property + " is a " + this.flyweight.getType(property).getName() + ", not a " + type.getName());
+        }
+
+        return this.base(slot) + this.flyweight.getOffset(property);
+    }
+
+    /**
+     * Implemented by the generated views, to move them between slots.
+     */
+    public interface View {
+
+        void moveFlyweight(@NonNull ByteBuffer buffer, int base);
+
+    }
+
+}
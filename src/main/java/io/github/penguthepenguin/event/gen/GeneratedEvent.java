@@ -1,69 +1,149 @@
 package io.github.penguthepenguin.event.gen;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Striped;
 import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.jfr.BusRecorder;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.ClassFileVersion;
 import net.bytebuddy.description.NamedElement;
+import net.bytebuddy.description.modifier.Ownership;
 import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassInjector;
 import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
 import net.bytebuddy.implementation.FieldAccessor;
 import net.bytebuddy.implementation.FixedValue;
 import net.bytebuddy.implementation.MethodCall;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.locks.Lock;
 
 import static net.bytebuddy.matcher.ElementMatchers.*;
 
 public final class GeneratedEvent<G extends GeneratedEventData<I>, I> {
 
+    /**
+     * The static field of a generated class that holds the {@link GeneratedEvent} it was generated for,
+     * tying its lifetime to the class loader of the event rather than to the {@link EventGeneratorCache}.
+     */
+    public static final String GENERATED_FIELD = "generatedEvent";
+
+    // two caches generating the same event into a loader at once must not both define it
+    private static final Striped<Lock> DEFINITION_LOCKS = Striped.lock(64);
+
+    private static final ClassValue<@Nullable GeneratedEvent<?, ?>> GENERATED = new ClassValue<@Nullable GeneratedEvent<?, ?>>() {
+        @Override
+        protected @Nullable GeneratedEvent<?, ?> computeValue(Class<?> generatedClass) {
+            if (!GeneratedEventData.class.isAssignableFrom(generatedClass) || !generatedClass.getName().endsWith("$Generated")) {
+                return null;
+            }
+
+            try {
+                return (GeneratedEvent<?, ?>) generatedClass.getField(GENERATED_FIELD).get(null);
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    };
+
     private final Class<G> eventType;
     private final Class<I> instanceType;
+    private final Class<?> generatedClass;
 
+    private final Method[] properties;
     private final MethodHandle constructor;
     private final MethodHandle[] setters;
 
+    private volatile @Nullable EventCodec<G, I> codec;
+    private volatile @Nullable EventFlyweight<G, I> flyweight;
+
     public GeneratedEvent(Class<G> eventType, Class<I> instanceType) throws Throwable {
+        this(eventType, instanceType, null);
+    }
+
+    /**
+     * Generates an event, or defines it from the bytecode cache if it holds an up-to-date entry.
+     *
+     * @param eventType the type of event to generate.
+     * @param instanceType the type of instance passed to the event.
+     * @param bytecodeCache the cache of generated bytecode, or {@code null} to always generate.
+     * @throws Throwable if the event couldn't be generated.
+     */
+    public GeneratedEvent(Class<G> eventType, Class<I> instanceType, @Nullable BytecodeCache bytecodeCache) throws Throwable {
         this.eventType = eventType;
         this.instanceType = instanceType;
 
+        ClassLoader classLoader = eventType.getClassLoader();
+        Preconditions.checkArgument(classLoader != null, "Event %s must not be loaded by the bootstrap class loader.", eventType);
+
         TypeDescription eventClassType = new TypeDescription.ForLoadedType(eventType);
+        String generatedClassName = eventType.getName() + "$Generated";
 
-        String eventClassSuffix = eventType.getName().substring(eventType.getPackage().getName().length());
-        String packageWithName = GeneratedEvent.class.getName();
-        String generatedClassName = packageWithName.substring(0, packageWithName.lastIndexOf('.')) + eventClassSuffix;
-
-        DynamicType.Builder<G> builder = new ByteBuddy(ClassFileVersion.JAVA_V8)
-                .subclass(this.eventType, ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
-                .name(generatedClassName)
-                .implement(eventClassType)
-                .method(isAnnotatedWith(Index.class))
-                .intercept(FieldAccessor.of(NamedElement.WithRuntimeName::getInternalName))
-                .method(named("getEventType").and(returns(Class.class)).and(takesArguments(0)))
-                .intercept(FixedValue.value(eventClassType))
-                .method(named("lookupMethodHandles").and(returns(MethodHandles.Lookup.class)).and(takesArguments(0)))
-                .intercept(MethodCall.invoke(MethodHandles.class.getMethod("lookup")))
-                .withToString();
-
-        Method[] properties = Arrays.stream(eventType.getMethods())
-                .filter(m -> m.isAnnotationPresent(Index.class))
-                .sorted(Comparator.comparingInt(o -> o.getAnnotation(Index.class).value()))
-                .toArray(Method[]::new);
+        Method[] properties = this.properties = findProperties(eventType);
+
+        Class<?> generatedClass;
+        boolean cached = true;
+        Object recording = BusRecorder.beginGeneration();
+
+        Lock lock = DEFINITION_LOCKS.get(generatedClassName);
+        lock.lock();
+        try {
+            generatedClass = findGenerated(generatedClassName, classLoader);
+
+            if (generatedClass == null && bytecodeCache != null) {
+                generatedClass = defineCached(eventType, generatedClassName, bytecodeCache);
+            }
+
+            if (generatedClass == null) {
+                DynamicType.Builder<G> builder = new ByteBuddy(ClassFileVersion.JAVA_V8)
+                        .subclass(this.eventType, ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
+                        .name(generatedClassName)
+                        .defineField(GENERATED_FIELD, GeneratedEvent.class, Visibility.PUBLIC, Ownership.STATIC)
+                        .method(isAnnotatedWith(Index.class))
+                        .intercept(FieldAccessor.of(NamedElement.WithRuntimeName::getInternalName))
+                        .method(named("getEventType").and(returns(Class.class)).and(takesArguments(0)))
+                        .intercept(FixedValue.value(eventClassType))
+                        .method(named("lookupMethodHandles").and(returns(MethodHandles.Lookup.class)).and(takesArguments(0)))
+                        .intercept(MethodCall.invoke(MethodHandles.class.getMethod("lookup")))
+                        .withToString();
+
+                for (Method method : properties) {
+                    builder = builder.defineField(method.getName(), method.getReturnType(), Visibility.PACKAGE_PRIVATE);
+                }
 
-        for (Method method : properties) {
-            builder = builder.defineField(method.getName(), method.getReturnType(), Visibility.PRIVATE);
+                DynamicType.Unloaded<G> unloaded = builder.make();
+                cached = false;
+                generatedClass = define(eventType, generatedClassName, unloaded.getBytes());
+
+                if (bytecodeCache != null) {
+                    bytecodeCache.store(eventType, unloaded.getBytes());
+                }
+            }
+
+            if (generatedClass.getField(GENERATED_FIELD).get(null) == null) {
+                generatedClass.getField(GENERATED_FIELD).set(null, this);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (recording != null) {
+            BusRecorder.endGeneration(recording, eventType, generatedClass, cached);
         }
 
-        Class<?> generatedClass = builder.make().load(GeneratedEvent.class.getClassLoader()).getLoaded();
+        this.generatedClass = generatedClass;
         this.constructor = MethodHandles.publicLookup().in(generatedClass)
                 .findConstructor(generatedClass, MethodType.methodType(void.class, this.instanceType))
-                .asType(MethodType.methodType(this.eventType, this.instanceType));
+                .asType(MethodType.methodType(Object.class, Object.class));
 
         // noinspection unchecked
         MethodHandles.Lookup lookup = ((G) this.constructor.invoke((Object) null)).lookupMethodHandles();
@@ -73,9 +153,174 @@ public final class GeneratedEvent<G extends GeneratedEventData<I>, I> {
             Method method = properties[i];
 
             this.setters[i] = lookup.findSetter(generatedClass, method.getName(), method.getReturnType())
-                    .asType(MethodType.methodType(void.class, new Class[]{this.eventType, Object.class}));
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+
+    }
+
+    /**
+     * Finds the properties of an event, the methods annotated with @{@link Index} sorted by their index.
+     *
+     * @param eventType the type of event.
+     * @return the properties of the event.
+     */
+    public static Method[] findProperties(Class<?> eventType) {
+        return Arrays.stream(eventType.getMethods())
+                .filter(m -> m.isAnnotationPresent(Index.class))
+                .sorted(Comparator.comparingInt(o -> o.getAnnotation(Index.class).value()))
+                .toArray(Method[]::new);
+    }
+
+    /**
+     * Finds the class generated for an event if its loader already holds it, such as after it was evicted from a cache.
+     */
+    private static @Nullable Class<?> findGenerated(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Defines the cached bytecode of an event, dropping the entry if it can't be defined.
+     */
+    private static @Nullable Class<?> defineCached(Class<?> eventType, String name, BytecodeCache bytecodeCache) {
+        byte[] bytecode = bytecodeCache.load(eventType);
+        if (bytecode == null) {
+            return null;
         }
 
+        try {
+            return define(eventType, name, bytecode);
+        } catch (Throwable e) {
+            bytecodeCache.invalidate(eventType);
+            return null;
+        }
+    }
+
+    /**
+     * Defines a generated class straight into the loader of the event, so it unloads along with it.
+     */
+    private static Class<?> define(Class<?> eventType, String name, byte[] bytecode) throws ReflectiveOperationException {
+        ClassInjector injector;
+        if (ClassInjector.UsingLookup.isAvailable()) {
+            Object lookup = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class)
+                    .invoke(null, eventType, MethodHandles.lookup());
+
+            injector = ClassInjector.UsingLookup.of(lookup);
+        } else {
+            injector = new ClassInjector.UsingReflection(eventType.getClassLoader());
+        }
+
+        return injector.injectRaw(Collections.singletonMap(name, bytecode)).get(name);
+    }
+
+    /**
+     * Gets the {@link GeneratedEvent} a class was generated for.
+     *
+     * @param generatedClass the class of a generated event.
+     * @return its generated event, or {@code null} if the class wasn't generated.
+     */
+    public static @Nullable GeneratedEvent<?, ?> forGenerated(Class<?> generatedClass) {
+        return GENERATED.get(generatedClass);
+    }
+
+    public Class<G> getEventType() {
+        return this.eventType;
+    }
+
+    public Class<I> getInstanceType() {
+        return this.instanceType;
+    }
+
+    /**
+     * Gets the class generated for the event, which every instance of the event is of.
+     *
+     * @return the generated class.
+     */
+    public Class<? extends G> getGeneratedClass() {
+        return this.generatedClass.asSubclass(this.eventType);
+    }
+
+    /**
+     * Gets the codec of the event, generating it on first use.
+     *
+     * @return the codec of the event.
+     * @throws IllegalArgumentException if a property has a type that can't be encoded.
+     */
+    @SuppressWarnings("unchecked")
+    public EventCodec<G, I> getCodec() {
+        EventCodec<G, I> codec = this.codec;
+        if (codec != null) {
+            return codec;
+        }
+
+        String codecClassName = this.eventType.getName() + "$Codec";
+
+        Lock lock = DEFINITION_LOCKS.get(codecClassName);
+        lock.lock();
+        try {
+            if ((codec = this.codec) != null) {
+                return codec;
+            }
+
+            Class<?> codecClass = findGenerated(codecClassName, this.eventType.getClassLoader());
+            if (codecClass == null) {
+                codecClass = define(this.eventType, codecClassName, EventCodecGenerator.generate(codecClassName, this.generatedClass, this.instanceType, this.properties));
+            }
+
+            return this.codec = (EventCodec<G, I>) codecClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to generate the codec of " + this.eventType, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the flyweight of the event, generating its view class on first use.
+     *
+     * @return the flyweight of the event.
+     * @throws IllegalArgumentException if a property isn't a primitive, or the event has none.
+     */
+    @SuppressWarnings("unchecked")
+    public EventFlyweight<G, I> getFlyweight() {
+        EventFlyweight<G, I> flyweight = this.flyweight;
+        if (flyweight != null) {
+            return flyweight;
+        }
+
+        String viewClassName = this.eventType.getName() + "$Flyweight";
+        int[] layout = EventFlyweightGenerator.layout(this.properties);
+
+        Lock lock = DEFINITION_LOCKS.get(viewClassName);
+        lock.lock();
+        try {
+            if ((flyweight = this.flyweight) != null) {
+                return flyweight;
+            }
+
+            Class<?> viewClass = findGenerated(viewClassName, this.eventType.getClassLoader());
+            if (viewClass == null) {
+                viewClass = define(this.eventType, viewClassName, EventFlyweightGenerator.generate(viewClassName, this.eventType, this.properties, layout));
+            }
+
+            return this.flyweight = new EventFlyweight<>((Class<? extends G>) viewClass, this.instanceType, this.properties, layout);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to generate the flyweight of " + this.eventType, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the properties of the event, the methods annotated with @{@link Index} sorted by their index.
+     *
+     * @return a copy of the properties.
+     */
+    public Method[] getProperties() {
+        return this.properties.clone();
     }
 
     public <E> E newInstance(I instance, Object... properties) throws Throwable {
@@ -84,13 +329,13 @@ public final class GeneratedEvent<G extends GeneratedEventData<I>, I> {
         }
 
         // noinspection unchecked
-        E event = (E) this.constructor.invokeExact(instance);
+        E event = (E) this.constructor.invokeExact((Object) instance);
 
         for (int i = 0; i < this.setters.length; i++) {
             MethodHandle setter = this.setters[i];
             Object value = properties[i];
 
-            setter.invokeExact(event, value);
+            setter.invokeExact((Object) event, value);
         }
 
         return event;
@@ -6,6 +6,13 @@ public class GeneratedEventData<I> {
 
     private final I instance;
 
+    /**
+     * The results of the {@link EventFilter}s that tested this event, two bits per filter slot of the event type:
+     * if it was evaluated, then if it matched. Both bits of a slot are always written together and sit in the same half
+     * of the long, so a lost update, a stale read from another thread or a torn long only costs an evaluation.
+     */
+    long filterResults;
+
     public GeneratedEventData(I instance) {
         this.instance = instance;
     }
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.data.Cancellable;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link Cancellable} that keeps its state in a volatile field of the event itself,
+ * rather than allocating an {@link AtomicBoolean} for every event instance.
+ * The {@link AtomicBoolean} is only created if {@link #getCancellationState()} is called, see {@link CancellationState}.
+ */
+public abstract class AbstractVolatileCancellable implements Cancellable {
+
+    private static final AtomicReferenceFieldUpdater<AbstractVolatileCancellable, Object> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractVolatileCancellable.class, Object.class, "state");
+
+    private volatile Object state;
+
+    /**
+     * Returns the events current cancellation state, creating it on first use.
+     *
+     * @return an atomic boolean to maintain concurrency.
+     */
+    @Override
+    public @NonNull AtomicBoolean getCancellationState() {
+        return CancellationState.getCancellationState(STATE, this);
+    }
+
+    /**
+     * Returns if the event was cancelled
+     *
+     * @return {@code true} if the event was cancelled, {@code false} otherwise.
+     */
+    @Override
+    public boolean isCancelled() {
+        return CancellationState.isCancelled(this.state);
+    }
+
+    /**
+     * Sets the cancellation state
+     *
+     * @param cancelled The new cancellation state.
+     * @return The previous value of the cancellation state.
+     */
+    @Override
+    public boolean setCancelled(boolean cancelled) {
+        return CancellationState.setCancelled(STATE, this, cancelled);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a bus moves slow {@link AdaptiveSubscription}s off the posting thread, and back once they speed up.
+ */
+@Getter
+public final class AdaptiveOffload {
+
+    /**
+     * The executor that offloaded subscriptions run on.
+     */
+    private final Executor executor;
+
+    /**
+     * The average time a subscription may take before it is offloaded, it moves back under half of it.
+     */
+    private final long thresholdNanos;
+
+    /**
+     * The amount of recent decisions every subscription keeps.
+     */
+    private final int history;
+
+    public AdaptiveOffload(@NonNull Executor executor, long threshold, @NonNull TimeUnit unit) {
+        this(executor, threshold, unit, 16);
+    }
+
+    public AdaptiveOffload(@NonNull Executor executor, long threshold, @NonNull TimeUnit unit, int history) {
+        Preconditions.checkArgument(threshold > 0, "The threshold must be positive, given %s", threshold);
+        Preconditions.checkArgument(history >= 0, "The history can't be negative, given %s", history);
+        this.executor = executor;
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.history = history;
+    }
+
+}
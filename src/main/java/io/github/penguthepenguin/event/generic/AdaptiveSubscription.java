@@ -0,0 +1,238 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A subscription that measures how long its handler takes, and runs it on an executor while it is slow.
+ * <p>
+ * The time is averaged by an exponentially weighted moving average, each call weighing an eighth. Once enough calls
+ * were measured, an average over the threshold of its {@link AdaptiveOffload} offloads the handler, and an average under
+ * half of it brings the handler back to the posting thread. An offloaded handler's failure is reported by the next post.
+ */
+public class AdaptiveSubscription<E> extends SimpleSubscription<E> {
+
+    /**
+     * The calls measured before the first decision, so a cold handler isn't offloaded by its first calls.
+     */
+    static final int WARMUP = 8;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AdaptiveSubscription, Placement> PLACEMENT =
+            AtomicReferenceFieldUpdater.newUpdater(AdaptiveSubscription.class, Placement.class, "placement");
+
+    private final AdaptiveOffload offload;
+
+    private volatile Placement placement = Placement.INLINE;
+    private volatile long averageNanos;
+    private volatile long calls;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    public AdaptiveSubscription(int order, @NonNull EventBus<E> bus, @NonNull Class<? extends E> eventClass, @NonNull EventHandler<? super E> handler,
+                                boolean acceptsCancelled, @NonNull AdaptiveOffload offload) {
+        super(order, bus, eventClass, handler, acceptsCancelled);
+        this.offload = offload;
+    }
+
+    /**
+     * Runs the handler, on the posting thread or its executor as it is placed.
+     *
+     * @param event the event to be handled.
+     * @throws Throwable if the handler failed on the posting thread, or failed offloaded since the last post.
+     */
+    @Override
+    public void on(@NonNull E event) throws Throwable {
+        Throwable failure = null;
+
+        // a view moves on once the post returns, so it can't be handed to another thread
+        if (this.placement == Placement.OFFLOADED && !EventSlab.isView(event)) {
+            try {
+                this.offload.getExecutor().execute(() -> this.runOffloaded(event));
+            } catch (RejectedExecutionException e) {
+                failure = this.run(event);
+            }
+        } else {
+            failure = this.run(event);
+        }
+
+        Throwable offloaded = this.failure.getAndSet(null);
+        if (offloaded != null) {
+            if (failure == null) {
+                failure = offloaded;
+            } else {
+                failure.addSuppressed(offloaded);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void runOffloaded(E event) {
+        Throwable failure = this.run(event);
+
+        if (failure != null) {
+            Throwable previous = this.failure.getAndSet(failure);
+            if (previous != null) {
+                failure.addSuppressed(previous);
+            }
+        }
+    }
+
+    private @Nullable Throwable run(E event) {
+        long start = System.nanoTime();
+
+        try {
+            this.getHandler().handle(event);
+            return null;
+        } catch (Throwable e) {
+            return e;
+        } finally {
+            this.measured(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Folds a measured call into the average, and moves the handler if the average crossed the threshold.
+     * Calls on other threads may race to fold, losing a sample rather than contending.
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    private void measured(long nanos) {
+        long calls = ++this.calls;
+        long average = calls == 1 ? nanos : this.averageNanos + (nanos - this.averageNanos) / 8;
+        this.averageNanos = average;
+
+        if (calls < WARMUP) return;
+
+        long threshold = this.offload.getThresholdNanos();
+        if (average > threshold) {
+            this.move(Placement.INLINE, Placement.OFFLOADED, average);
+        } else if (average < threshold / 2) {
+            this.move(Placement.OFFLOADED, Placement.INLINE, average);
+        }
+    }
+
+    private void move(Placement from, Placement to, long average) {
+        if (this.placement != from || !PLACEMENT.compareAndSet(this, from, to)) return;
+
+        int history = this.offload.getHistory();
+        if (history == 0) return;
+
+        synchronized (this.decisions) {
+            if (this.decisions.size() == history) {
+                this.decisions.removeFirst();
+            }
+
+            this.decisions.addLast(new Decision(System.currentTimeMillis(), to, average, this.offload.getThresholdNanos()));
+        }
+    }
+
+    /**
+     * Gets where the handler currently runs.
+     *
+     * @return the placement of the handler.
+     */
+    public @NonNull Placement getPlacement() {
+        return this.placement;
+    }
+
+    /**
+     * Gets the moving average of the time the handler takes.
+     *
+     * @return the average in nanoseconds, {@code 0} if it wasn't called yet.
+     */
+    public long getAverageNanos() {
+        return this.averageNanos;
+    }
+
+    /**
+     * Gets the recent decisions to move the handler, oldest first.
+     *
+     * @return a copy of the decisions kept.
+     */
+    public @NonNull List<Decision> getDecisions() {
+        synchronized (this.decisions) {
+            return new ArrayList<>(this.decisions);
+        }
+    }
+
+    public enum Placement {
+
+        /**
+         * The handler runs on the posting thread, before the post returns.
+         */
+        INLINE,
+
+        /**
+         * The handler runs on the executor of the offload, maybe after the post returns.
+         */
+        OFFLOADED
+
+    }
+
+    /**
+     * A move of the handler, and the average that caused it.
+     */
+    @Getter
+    public static final class Decision {
+
+        private final long timestamp;
+        private final Placement placement;
+        private final long averageNanos;
+        private final long thresholdNanos;
+
+        Decision(long timestamp, Placement placement, long averageNanos, long thresholdNanos) {
+            this.timestamp = timestamp;
+            this.placement = placement;
+            this.averageNanos = averageNanos;
+            this.thresholdNanos = thresholdNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Moved " + this.placement + " at " + this.timestamp + ", averaging " + this.averageNanos
+                    + "ns against a threshold of " + this.thresholdNanos + "ns";
+        }
+
+    }
+
+}
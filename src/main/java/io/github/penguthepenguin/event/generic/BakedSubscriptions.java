@@ -0,0 +1,175 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.penguthepenguin.event.Subscription;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An immutable snapshot of the subscriptions registered to an event type, sorted by their order.
+ * <p>
+ * When the event type is cancellable, the snapshot also records for each position where the next
+ * subscription that still receives cancelled events is, so a cancelled event can skip straight to it.
+ * <p>
+ * Hot snapshots are compiled into a {@link CompiledDispatcher} on a shared background thread, so no post waits for
+ * the compilation. Posts keep iterating the array until the dispatcher is published.
+ */
+@Getter
+public final class BakedSubscriptions<E> {
+
+    private static final Executor COMPILER = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("event-dispatcher-compiler").setDaemon(true).build()
+    );
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BakedSubscriptions, Compilation> COMPILATION =
+            AtomicReferenceFieldUpdater.newUpdater(BakedSubscriptions.class, Compilation.class, "compilation");
+
+    private final Subscription<E>[] subscriptions;
+
+    /**
+     * For every index, the index of the first subscription at or after it that doesn't accept
+     * cancellation, or the length of the array if there is none. {@code null} if the event type isn't cancellable.
+     */
+    private final int[] nextReceivingCancelled;
+
+    /**
+     * If any of the subscriptions are bound to an {@link ExecutionContext}.
+     */
+    private final boolean affine;
+
+    @Getter(AccessLevel.NONE)
+    private final boolean compilable;
+
+    @Getter(AccessLevel.NONE)
+    private volatile CompiledDispatcher<E> dispatcher;
+
+    /**
+     * How far compiling the dispatcher of this snapshot got.
+     */
+    private volatile Compilation compilation = Compilation.NONE;
+
+    /**
+     * Why the dispatcher couldn't be compiled, if it {@link Compilation#FAILED}.
+     */
+    private volatile @Nullable Throwable compileFailure;
+
+    // only a heuristic, lost updates between threads don't matter
+    @Getter(AccessLevel.NONE)
+    private int posts;
+
+    public BakedSubscriptions(Subscription<E>[] subscriptions, boolean cancellable) {
+        this.subscriptions = subscriptions;
+        this.nextReceivingCancelled = cancellable ? partition(subscriptions) : null;
+        this.affine = Arrays.stream(subscriptions).anyMatch(subscription -> subscription.getContext() != null);
+        this.compilable = !cancellable && !this.affine
+                && subscriptions.length >= CompiledDispatcher.MIN_SUBSCRIPTIONS
+                && subscriptions.length <= CompiledDispatcher.MAX_SUBSCRIPTIONS;
+    }
+
+    /**
+     * Gets the dispatcher compiled for these subscriptions, submitting it to be compiled once this snapshot has served
+     * {@link CompiledDispatcher#COMPILE_THRESHOLD} posts.
+     *
+     * @return the compiled dispatcher, or {@code null} if the array should be iterated instead.
+     */
+    public @Nullable CompiledDispatcher<E> getDispatcher() {
+        CompiledDispatcher<E> dispatcher = this.dispatcher;
+        if (dispatcher != null || !this.compilable || this.posts++ < CompiledDispatcher.COMPILE_THRESHOLD
+                || !COMPILATION.compareAndSet(this, Compilation.NONE, Compilation.COMPILING)) {
+            return dispatcher;
+        }
+
+        COMPILER.execute(this::compile);
+        return null;
+    }
+
+    private void compile() {
+        try {
+            this.dispatcher = CompiledDispatcher.compile(this.subscriptions);
+            this.compilation = Compilation.COMPILED;
+        } catch (Throwable e) {
+            // stays on the array loop
+            this.compileFailure = e;
+            this.compilation = Compilation.FAILED;
+        }
+    }
+
+    /**
+     * Returns if this was baked for a cancellable event type.
+     *
+     * @return {@code true} if the event type implements {@link io.github.penguthepenguin.event.data.Cancellable}.
+     */
+    public boolean isCancellable() {
+        return this.nextReceivingCancelled != null;
+    }
+
+    /**
+     * How far compiling the dispatcher of a snapshot got.
+     */
+    public enum Compilation {
+
+        /**
+         * Not compiled, as the snapshot isn't hot or can't be compiled.
+         */
+        NONE,
+
+        /**
+         * Waiting for or being compiled on the background thread.
+         */
+        COMPILING,
+
+        /**
+         * Compiled, and posted through.
+         */
+        COMPILED,
+
+        /**
+         * Failed to compile, see {@link #getCompileFailure()}. Posts iterate the array for good.
+         */
+        FAILED
+
+    }
+
+    private static int[] partition(Subscription<?>[] subscriptions) {
+        int[] next = new int[subscriptions.length + 1];
+        next[subscriptions.length] = subscriptions.length;
+
+        for (int i = subscriptions.length - 1; i >= 0; i--) {
+            next[i] = subscriptions[i].acceptsCancelled() ? next[i + 1] : i;
+        }
+
+        return next;
+    }
+
+}
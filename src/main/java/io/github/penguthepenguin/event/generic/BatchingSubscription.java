@@ -0,0 +1,96 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A subscription that delivers events in batches, once a batch reaches its maximum size or has waited its maximum delay.
+ * <p>
+ * A full batch is delivered by the post that filled it, which reports a failure of the batch in its {@link io.github.penguthepenguin.event.PostResult}.
+ * A delayed batch is delivered on a shared timer thread, and a failure of it is reported by the next post instead.
+ * Batches may be delivered concurrently, and are flushed when their bus is closed.
+ */
+public class BatchingSubscription<E> extends SimpleSubscription<E> {
+
+    private final EventBatcher<E> batcher;
+
+    /**
+     * Creates a batching subscription.
+     *
+     * @param order the order in which the subscription should be handled.
+     * @param bus the bus that the subscription will be registered to.
+     * @param eventClass the class of the event that this subscription is subscribing to.
+     * @param handler the handler of every batch of events.
+     * @param maxSize the most events in a batch.
+     * @param maxDelay the most time an event waits in a batch, or {@code 0} to only deliver full batches.
+     * @param unit the unit of the delay.
+     * @param acceptsCancelled if this can be cancelled.
+     */
+    public BatchingSubscription(int order, @NonNull EventBus<E> bus, @NonNull Class<? extends E> eventClass, @NonNull EventHandler<? super List<E>> handler,
+                                int maxSize, long maxDelay, @NonNull TimeUnit unit, boolean acceptsCancelled) {
+        this(order, bus, eventClass, batcher(handler, maxSize, maxDelay, unit), acceptsCancelled);
+    }
+
+    private BatchingSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, EventBatcher<E> batcher, boolean acceptsCancelled) {
+        super(order, bus, eventClass, batcher, acceptsCancelled);
+        this.batcher = batcher;
+    }
+
+    private static <E> EventBatcher<E> batcher(EventHandler<? super List<E>> handler, int maxSize, long maxDelay, TimeUnit unit) {
+        Preconditions.checkArgument(maxSize > 0, "The maximum batch size must be positive, given %s", maxSize);
+        Preconditions.checkArgument(maxDelay >= 0, "The maximum batch delay can't be negative, given %s", maxDelay);
+        return new EventBatcher<>(handler, maxSize, unit.toNanos(maxDelay));
+    }
+
+    /**
+     * Adds the event to the current batch, delivering the batch if it is full.
+     *
+     * @param event the event to be handled.
+     * @throws Throwable if the batch failed, or a delayed batch failed since the last event.
+     */
+    @Override
+    public void on(@NonNull E event) throws Throwable {
+        EventSlab.checkNotView(event, "a batching subscription");
+        this.batcher.handle(event);
+    }
+
+    /**
+     * Delivers the current batch right away, if it has any events.
+     *
+     * @throws Throwable if the batch failed, or a delayed batch failed since the last event.
+     */
+    public void flush() throws Throwable {
+        this.batcher.flush();
+    }
+
+}
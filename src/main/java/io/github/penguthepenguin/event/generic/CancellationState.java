@@ -0,0 +1,98 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * The cancellation state of events that keep it in a volatile field of their own, shared by
+ * {@link AbstractVolatileCancellable} and {@link io.github.penguthepenguin.event.gen.CancellableGeneratedEventData}.
+ * <p>
+ * The field holds {@code null} or a {@link Boolean} until the {@link AtomicBoolean} of the event is asked for.
+ * That is only created then, seeded from the field, and replaces it as the state of the event from then on,
+ * so events never asked for it allocate nothing.
+ */
+public final class CancellationState {
+
+    private CancellationState() {
+    }
+
+    /**
+     * Returns if an event is cancelled.
+     *
+     * @param state the state field of the event.
+     * @return {@code true} if the event was cancelled.
+     */
+    public static boolean isCancelled(@Nullable Object state) {
+        return state == Boolean.TRUE || state instanceof AtomicBoolean && ((AtomicBoolean) state).get();
+    }
+
+    /**
+     * Sets the cancellation state of an event.
+     *
+     * @param updater the updater of the state field.
+     * @param event the event.
+     * @param cancelled the new cancellation state.
+     * @return the previous cancellation state.
+     */
+    public static <T> boolean setCancelled(@NonNull AtomicReferenceFieldUpdater<T, Object> updater, @NonNull T event, boolean cancelled) {
+        while (true) {
+            Object state = updater.get(event);
+            if (state instanceof AtomicBoolean) {
+                return ((AtomicBoolean) state).getAndSet(cancelled);
+            }
+
+            if (updater.compareAndSet(event, state, Boolean.valueOf(cancelled))) {
+                return state == Boolean.TRUE;
+            }
+        }
+    }
+
+    /**
+     * Gets the {@link AtomicBoolean} of an event, creating it on first use.
+     *
+     * @param updater the updater of the state field.
+     * @param event the event.
+     * @return the state of the event, which its later cancellations go through.
+     */
+    public static <T> @NonNull AtomicBoolean getCancellationState(@NonNull AtomicReferenceFieldUpdater<T, Object> updater, @NonNull T event) {
+        while (true) {
+            Object state = updater.get(event);
+            if (state instanceof AtomicBoolean) {
+                return (AtomicBoolean) state;
+            }
+
+            AtomicBoolean atomic = new AtomicBoolean(state == Boolean.TRUE);
+            if (updater.compareAndSet(event, state, atomic)) {
+                return atomic;
+            }
+        }
+    }
+
+}
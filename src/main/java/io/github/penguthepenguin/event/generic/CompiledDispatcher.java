@@ -0,0 +1,130 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.Subscription;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.lang.reflect.Method;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * A dispatcher generated for one baked set of subscriptions, which calls every subscription in order
+ * from its own call site, so each call site only ever sees a single subscription type.
+ * <p>
+ * Dispatchers are tied to the {@link BakedSubscriptions} they were compiled from, any change to the
+ * registered subscriptions bakes a new snapshot and leaves the old dispatcher to be collected.
+ */
+public abstract class CompiledDispatcher<E> {
+
+    /**
+     * The least amount of subscriptions worth compiling a dispatcher for, smaller sets use the array loop.
+     */
+    public static final int MIN_SUBSCRIPTIONS = 4;
+
+    /**
+     * The most subscriptions that are compiled into one dispatcher, to keep the generated method small.
+     */
+    public static final int MAX_SUBSCRIPTIONS = 256;
+
+    /**
+     * How many posts a baked snapshot must serve before it is compiled,
+     * subscriptions that change more often than this never leave the array loop.
+     */
+    public static final int COMPILE_THRESHOLD = 1_000;
+
+    private static final Method ON;
+    private static final Method ADVANCE;
+
+    static {
+        try {
+            ON = Subscription.class.getMethod("on", Object.class);
+            ADVANCE = DispatchCursor.class.getMethod("advance");
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Posts an event to every subscription this was compiled for.
+     * <p>
+     * If a subscription throws, the exception is propagated and the cursor holds the index of that subscription.
+     *
+     * @param event the event to post.
+     * @param cursor the cursor that is advanced after each subscription is called.
+     * @throws Throwable on an exception thrown by a subscription.
+     */
+    public abstract void dispatch(@NonNull E event, @NonNull DispatchCursor cursor) throws Throwable;
+
+    /**
+     * Generates a dispatcher for the given subscriptions.
+     *
+     * @param subscriptions the subscriptions, in the order they should be called.
+     * @return the compiled dispatcher.
+     * @throws ReflectiveOperationException if the generated class can't be instantiated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> @NonNull CompiledDispatcher<E> compile(@NonNull Subscription<E>[] subscriptions) throws ReflectiveOperationException {
+        DynamicType.Builder<CompiledDispatcher> builder = new ByteBuddy(ClassFileVersion.JAVA_V8)
+                .subclass(CompiledDispatcher.class);
+
+        Implementation.Composable implementation = null;
+        for (int i = 0; i < subscriptions.length; i++) {
+            builder = builder.defineField(field(i), Subscription.class, Visibility.PUBLIC);
+
+            MethodCall call = MethodCall.invoke(ON).onField(field(i)).withArgument(0);
+            implementation = implementation == null
+                    ? call
+                    : implementation.andThen(MethodCall.invoke(ADVANCE).onArgument(1)).andThen(call);
+        }
+
+        Class<? extends CompiledDispatcher> generatedClass = builder
+                .method(named("dispatch"))
+                .intercept(implementation)
+                .make()
+                .load(CompiledDispatcher.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+
+        CompiledDispatcher<E> dispatcher = generatedClass.getConstructor().newInstance();
+        for (int i = 0; i < subscriptions.length; i++) {
+            generatedClass.getField(field(i)).set(dispatcher, subscriptions[i]);
+        }
+
+        return dispatcher;
+    }
+
+    private static String field(int index) {
+        return "subscription" + index;
+    }
+
+}
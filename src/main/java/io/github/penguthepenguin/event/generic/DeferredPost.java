@@ -0,0 +1,79 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.collect.ImmutableMap;
+import io.github.penguthepenguin.event.PostResult;
+import io.github.penguthepenguin.event.Subscription;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of a post that still has subscriptions waiting to run in other {@link ExecutionContext}s.
+ * Its future completes once every part of the post has run.
+ */
+@Getter
+public final class DeferredPost<E> {
+
+    private final E event;
+    private final CompletableFuture<PostResult<E>> future = new CompletableFuture<>();
+
+    private final Map<Subscription<? super E>, Throwable> exceptions = new ConcurrentHashMap<>();
+    private final AtomicInteger remaining;
+
+    public DeferredPost(E event, @NonNull Map<Subscription<? super E>, Throwable> exceptions, int parts) {
+        this.event = event;
+        this.exceptions.putAll(exceptions);
+        this.remaining = new AtomicInteger(parts);
+    }
+
+    /**
+     * Records an exception thrown by a subscription of this post.
+     *
+     * @param subscription the subscription that failed.
+     * @param exception the exception it threw.
+     */
+    public void fail(@NonNull Subscription<? super E> subscription, @NonNull Throwable exception) {
+        this.exceptions.put(subscription, exception);
+    }
+
+    /**
+     * Marks one part of this post as done, completing the future if it was the last.
+     */
+    public void completePart() {
+        if (this.remaining.decrementAndGet() == 0) {
+            this.future.complete(this.exceptions.isEmpty()
+                    ? PostResult.of(this.event)
+                    : PostResult.of(this.event, ImmutableMap.copyOf(this.exceptions))
+            );
+        }
+    }
+
+}
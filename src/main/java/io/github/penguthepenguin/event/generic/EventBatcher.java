@@ -0,0 +1,205 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.penguthepenguin.event.EventHandler;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Accumulates events into batches without locking, delivering a batch once it is full or its delay has passed.
+ * <p>
+ * Posting threads claim a slot of the current batch, and the thread claiming the last slot swaps in a new batch
+ * and delivers the full one. A batch that isn't full in time is closed and delivered by the shared timer thread,
+ * and its failure is kept until the next event arrives.
+ */
+final class EventBatcher<E> implements EventHandler<E> {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("event-batch-timer").setDaemon(true).build()
+    );
+
+    private final EventHandler<? super List<E>> handler;
+    private final int maxSize;
+    private final long maxDelay;
+
+    private final AtomicReference<Batch> current;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    EventBatcher(@NonNull EventHandler<? super List<E>> handler, int maxSize, long maxDelay) {
+        this.handler = handler;
+        this.maxSize = maxSize;
+        this.maxDelay = maxDelay;
+        this.current = new AtomicReference<>(new Batch(maxSize));
+    }
+
+    /**
+     * Adds an event to the current batch, delivering it if the event filled it.
+     *
+     * @param event the event to add.
+     * @throws Throwable if the batch filled failed, or a delayed batch failed since the last event.
+     */
+    @Override
+    public void handle(@NonNull E event) throws Throwable {
+        Throwable failure = null;
+
+        while (true) {
+            Batch batch = this.current.get();
+            int index = batch.claimed.getAndIncrement();
+
+            if (index >= this.maxSize) {
+                // full or closed, the thread that did so may not have swapped it yet
+                this.current.compareAndSet(batch, new Batch(this.maxSize));
+                continue;
+            }
+
+            batch.events[index] = event;
+            batch.written.incrementAndGet();
+
+            if (index == 0 && this.maxDelay > 0 && this.maxSize > 1) {
+                batch.timer = TIMER.schedule(() -> this.flushDelayed(batch), this.maxDelay, TimeUnit.NANOSECONDS);
+            }
+
+            if (index == this.maxSize - 1) {
+                this.current.compareAndSet(batch, new Batch(this.maxSize));
+
+                Future<?> timer = batch.timer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+
+                try {
+                    this.deliver(batch, this.maxSize);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+
+            break;
+        }
+
+        Throwable delayed = this.failure.getAndSet(null);
+        if (delayed != null) {
+            if (failure == null) {
+                failure = delayed;
+            } else {
+                failure.addSuppressed(delayed);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Delivers the current batch right away, if it has any events.
+     *
+     * @throws Throwable if the batch failed, or a delayed batch failed since the last event.
+     */
+    void flush() throws Throwable {
+        Throwable delayed = this.failure.getAndSet(null);
+
+        try {
+            this.close(this.current.get());
+        } catch (Throwable e) {
+            if (delayed != null) {
+                e.addSuppressed(delayed);
+            }
+
+            throw e;
+        }
+
+        if (delayed != null) {
+            throw delayed;
+        }
+    }
+
+    private void flushDelayed(Batch batch) {
+        try {
+            this.close(batch);
+        } catch (Throwable e) {
+            Throwable failure = this.failure.getAndSet(e);
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+        }
+    }
+
+    /**
+     * Closes a batch to further events, delivering the events it has unless it was full or closed already.
+     */
+    private void close(Batch batch) throws Throwable {
+        int claimed = batch.claimed.getAndAdd(this.maxSize);
+        this.current.compareAndSet(batch, new Batch(this.maxSize));
+
+        Future<?> timer = batch.timer;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+
+        // a full batch is delivered by the thread that filled it
+        if (claimed > 0 && claimed < this.maxSize) {
+            this.deliver(batch, claimed);
+        }
+    }
+
+    private void deliver(Batch batch, int size) throws Throwable {
+        // a slot is claimed before it is written, so the last writers may still be storing their event
+        while (batch.written.get() < size) {
+            Thread.yield();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<E> events = (List<E>) Collections.unmodifiableList(Arrays.asList(batch.events).subList(0, size));
+        this.handler.handle(events);
+    }
+
+    private static final class Batch {
+
+        private final Object[] events;
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicInteger written = new AtomicInteger();
+
+        private volatile @Nullable Future<?> timer;
+
+        private Batch(int size) {
+            this.events = new Object[size];
+        }
+
+    }
+
+}
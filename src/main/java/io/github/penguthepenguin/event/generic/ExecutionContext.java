@@ -0,0 +1,118 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A named context that subscriptions can be bound to, such as a game's main tick thread.
+ * <p>
+ * Posts from any other thread are queued for the context, and run in batches by its thread when it drains them.
+ */
+@Getter
+public final class ExecutionContext {
+
+    private final String name;
+
+    /**
+     * Subscriptions waiting to be run, produced by any thread and consumed only by the bound thread.
+     */
+    private final Deque<PendingDispatch<?>> queue = new ConcurrentLinkedDeque<>();
+
+    private volatile @Nullable Thread thread;
+
+    public ExecutionContext(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns if the calling thread is the one bound to this context.
+     *
+     * @return {@code true} if subscriptions of this context can run inline.
+     */
+    public boolean isCurrentThread() {
+        return this.thread == Thread.currentThread();
+    }
+
+    /**
+     * Binds the calling thread to this context, subscriptions bound to it will then run inline when posted from it.
+     *
+     * @throws IllegalStateException if another thread is already bound to this context.
+     */
+    public synchronized void bind() {
+        Thread current = Thread.currentThread();
+        Preconditions.checkState(this.thread == null || this.thread == current,
+                "Context %s is already bound to thread %s.", this.name, this.thread
+        );
+
+        this.thread = current;
+    }
+
+    /**
+     * Queues subscriptions to be run when this context is next drained.
+     *
+     * @param dispatch the subscriptions to run.
+     */
+    public void enqueue(@NonNull PendingDispatch<?> dispatch) {
+        this.queue.add(dispatch);
+    }
+
+    /**
+     * Runs queued subscriptions in the order they were posted, binding the calling thread if none is yet.
+     *
+     * @param budget the most subscriptions to run.
+     * @return the amount of subscriptions that were run.
+     */
+    public int drain(int budget) {
+        if (!this.isCurrentThread()) {
+            this.bind();
+        }
+
+        int ran = 0;
+
+        PendingDispatch<?> dispatch;
+        while (ran < budget && (dispatch = this.queue.poll()) != null) {
+            ran += dispatch.run(this, budget - ran);
+
+            // handed off last, as the next context's thread may run it right away
+            ExecutionContext next = dispatch.takeHandOff();
+            if (next != null) {
+                next.enqueue(dispatch);
+            } else if (!dispatch.isDone()) {
+                this.queue.addFirst(dispatch);
+                break;
+            }
+        }
+
+        return ran;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.gen.EventFilter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A subscription that only handles the events matching an {@link EventFilter}.
+ * Subscriptions with the same filter share it, so it is only evaluated once per post of a generated event.
+ */
+public class FilteredSubscription<E> extends SimpleSubscription<E> {
+
+    private final EventFilter filter;
+
+    public FilteredSubscription(int order, @NonNull EventBus<E> bus, @NonNull Class<? extends E> eventClass, @NonNull EventFilter filter,
+                                @NonNull EventHandler<? super E> handler, boolean acceptsCancelled, @Nullable String context) {
+        super(order, bus, eventClass, handler, acceptsCancelled, context);
+        this.filter = filter;
+    }
+
+    /**
+     * Handles the event if it matches the filter.
+     *
+     * @param event the event ({@link E}) to be handled.
+     */
+    @Override
+    public void on(@NonNull E event) throws Throwable {
+        if (this.filter.test(event)) {
+            super.on(event);
+        }
+    }
+
+    public @NonNull EventFilter getFilter() {
+        return this.filter;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.data.Acceptor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * The rest of a post, from the first subscription bound to an {@link ExecutionContext} other than the posting thread's.
+ * <p>
+ * Subscriptions run in their order on the thread of the context the post is queued in. Unbound subscriptions run there too,
+ * and once a subscription bound to yet another context is reached, the post hands itself off to that context,
+ * so a subscription never runs before one of an earlier order.
+ * The acceptor is asked when each subscription is about to run, so cancellation by subscriptions that ran before it is respected.
+ */
+public final class PendingDispatch<E> {
+
+    private final DeferredPost<E> post;
+    private final Subscription<? super E>[] subscriptions;
+    private final Function<String, ExecutionContext> contexts;
+
+    private final Class<E> eventType;
+    private final Acceptor<E> acceptor;
+
+    // only touched by the thread of the context this is queued in, and handed over with the queue
+    private int index;
+    private @Nullable ExecutionContext handOff;
+
+    /**
+     * Creates the rest of a post.
+     *
+     * @param post the post the subscriptions are part of.
+     * @param subscriptions the subscriptions of the post, in order.
+     * @param index the first subscription still to run.
+     * @param contexts the execution contexts of the bus by their name.
+     * @param eventType the type of event of the bus.
+     * @param acceptor the acceptor of the bus.
+     */
+    public PendingDispatch(@NonNull DeferredPost<E> post, @NonNull Subscription<? super E>[] subscriptions, int index,
+                           @NonNull Function<String, ExecutionContext> contexts, @NonNull Class<E> eventType, @NonNull Acceptor<E> acceptor) {
+        this.post = post;
+        this.subscriptions = subscriptions;
+        this.index = index;
+        this.contexts = contexts;
+        this.eventType = eventType;
+        this.acceptor = acceptor;
+    }
+
+    /**
+     * Runs the next subscriptions of this post, until one is bound to another context.
+     *
+     * @param context the context running this.
+     * @param budget the most subscriptions to run.
+     * @return the amount of subscriptions that were run.
+     */
+    public int run(@NonNull ExecutionContext context, int budget) {
+        E event = this.post.getEvent();
+
+        int ran = 0;
+        while (ran < budget && this.index < this.subscriptions.length) {
+            Subscription<? super E> subscription = this.subscriptions[this.index];
+            if (subscription == null) {
+                this.index++;
+                continue;
+            }
+
+            String bound = subscription.getContext();
+            if (bound != null) {
+                ExecutionContext next = this.contexts.apply(bound);
+
+                if (next != context && !next.isCurrentThread()) {
+                    this.handOff = next;
+                    return ran;
+                }
+            }
+
+            this.index++;
+            ran++;
+
+            if (!this.acceptor.accepts(this.eventType, event, subscription)) continue;
+
+            try {
+                subscription.on(event);
+            } catch (Throwable e) {
+                this.post.fail(subscription, e);
+            }
+        }
+
+        if (this.isDone()) {
+            this.post.completePart();
+        }
+
+        return ran;
+    }
+
+    /**
+     * Takes the context that the last run reached a subscription of, which the rest of the post must be queued in.
+     *
+     * @return the next context, or {@code null} if the post stays where it is.
+     */
+    public @Nullable ExecutionContext takeHandOff() {
+        ExecutionContext handOff = this.handOff;
+        this.handOff = null;
+        return handOff;
+    }
+
+    /**
+     * Returns if every subscription has run.
+     *
+     * @return {@code true} if there is nothing left to run.
+     */
+    public boolean isDone() {
+        return this.index == this.subscriptions.length;
+    }
+
+}
@@ -0,0 +1,365 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import io.github.penguthepenguin.event.*;
+import io.github.penguthepenguin.event.data.Subscribe;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * An {@link EventBus} that partitions event types across independent {@link SimpleEventBus} shards,
+ * so registration and posting of different event types don't contend with each other.
+ * <p>
+ * Every event type always lands in the same shard. A shard may have its own executor to post on,
+ * which should run tasks in order to keep events of a type posted in the order they were given.
+ * <p>
+ * The shards share their execution contexts, so subscriptions queued for a context run in the order
+ * they were posted whichever shard posted them.
+ */
+@Getter
+public class ShardedEventBus<E> implements EventBus<E> {
+
+    private final Class<E> eventType;
+
+    private final SimpleEventBus<E>[] shards;
+    private final @Nullable Executor[] executors;
+
+    public ShardedEventBus(Class<E> eventType, int shards) {
+        this(SimpleEventBus.builder(eventType), shards, shard -> null);
+    }
+
+    public ShardedEventBus(Class<E> eventType, int shards, IntFunction<@Nullable Executor> executors) {
+        this(SimpleEventBus.builder(eventType), shards, executors);
+    }
+
+    /**
+     * Creates a sharded bus.
+     *
+     * @param shard the builder each shard is built from.
+     * @param shards the amount of shards.
+     * @param executors the executor that each shard posts on by its index, or {@code null} to post on the calling thread.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedEventBus(SimpleEventBus.Builder<E> shard, int shards, IntFunction<@Nullable Executor> executors) {
+        Preconditions.checkArgument(shards > 0, "A sharded bus needs at least 1 shard, given %s", shards);
+
+        this.shards = new SimpleEventBus[shards];
+        this.executors = new Executor[shards];
+
+        Map<String, ExecutionContext> contexts = Maps.newConcurrentMap();
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = shard.contexts(contexts).build();
+            this.executors[i] = executors.apply(i);
+        }
+        shard.contexts(null);
+
+        this.eventType = this.shards[0].getEventType();
+    }
+
+    /**
+     * Gets the index of the shard responsible for an event type.
+     *
+     * @param eventType the type of event.
+     * @return the index of its shard.
+     */
+    public int shardIndex(@NonNull Class<?> eventType) {
+        int hash = eventType.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), this.shards.length);
+    }
+
+    /**
+     * Gets the shard responsible for an event type.
+     *
+     * @param eventType the type of event.
+     * @return the bus of its shard.
+     */
+    public @NonNull SimpleEventBus<E> shard(@NonNull Class<?> eventType) {
+        return this.shards[this.shardIndex(eventType)];
+    }
+
+    /**
+     * Gets a {@link Map} of the event type and the {@link Subscriptions} registered, across all shards.
+     *
+     * @return a snapshot of the subscriptions of every shard.
+     */
+    @Override
+    public @NonNull Map<Class<? extends E>, Subscriptions<E>> getSubscriptions() {
+        ImmutableMap.Builder<Class<? extends E>, Subscriptions<E>> subscriptions = ImmutableMap.builder();
+        for (SimpleEventBus<E> shard : this.shards) {
+            subscriptions.putAll(shard.getSubscriptions());
+        }
+
+        return subscriptions.build();
+    }
+
+    /**
+     * Registers all of a {@link Class}'s static methods that are annotated with @{@link Subscribe}.
+     *
+     * @param subscriber the subscriber to register
+     */
+    @Override
+    public void register(@NonNull Class<?> subscriber) {
+        for (Method method : subscriber.getMethods()) {
+            SimpleSubscription<E> subscription = SimpleEventBus.generateSubscription(this, method, null, this.shards[0].getAdaptiveOffload());
+
+            if (subscription != null) {
+                this.register(subscription.getEventClass(), subscription);
+            }
+        }
+    }
+
+    /**
+     * Registers all of a {@link Object}'s methods that are annotated with @{@link Subscribe}.
+     *
+     * @param subscriber the subscriber to register
+     */
+    @Override
+    public void register(@NonNull Object subscriber) {
+        Set<Method> methods = new HashSet<>(); // fetching all public / private methods
+        methods.addAll(Arrays.asList(subscriber.getClass().getMethods()));
+        methods.addAll(Arrays.asList(subscriber.getClass().getDeclaredMethods()));
+
+        for (Method method : methods) {
+            SimpleSubscription<E> subscription = SimpleEventBus.generateSubscription(this, method, subscriber, this.shards[0].getAdaptiveOffload());
+
+            if (subscription != null) {
+                this.register(subscription.getEventClass(), subscription);
+            }
+        }
+    }
+
+    /**
+     * Registers an event handler with a given post order.
+     *
+     * @param eventType the type of event to subscribe to.
+     * @param handler   the handler to be registered.
+     * @param order     the order in which the handler should be called.
+     * @param ignoreCancelled weather this handler should ignore cancelled events.
+     * @return the subscription that was generated.
+     */
+    @Override
+    public @NonNull SimpleSubscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
+        return this.register(eventType, handler, order, ignoreCancelled, null);
+    }
+
+    /**
+     * Registers an event handler with a given post order.
+     *
+     * @param eventType the type of event to subscribe to.
+     * @param handler   the handler to be registered.
+     * @param order     the order in which the handler should be called.
+     * @param ignoreCancelled weather this handler should ignore cancelled events.
+     * @param context   the execution context the handler must run in, or {@code null} to run on the posting thread.
+     * @return the subscription that was generated.
+     */
+    @Override
+    public @NonNull SimpleSubscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        SimpleSubscription<E> subscription = new SimpleSubscription<>(order, this, eventType, handler, !ignoreCancelled, context);
+        this.register(eventType, subscription);
+
+        return subscription;
+    }
+
+    /**
+     * Register a subscription for a specific event type, in the shard of that type.
+     *
+     * @param eventType    the type of event that the subscription is interested in.
+     * @param subscription the subscription to register.
+     */
+    @Override
+    public void register(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
+        this.shard(eventType).register(eventType, subscription);
+    }
+
+    /**
+     * Gets the last posted events of a sticky event type, from the shard of that type.
+     *
+     * @param eventType the exact type of event.
+     * @return the events kept, one per key in the order they were posted.
+     */
+    public @NonNull List<E> getSticky(@NonNull Class<? extends E> eventType) {
+        return this.shard(eventType).getSticky(eventType);
+    }
+
+    /**
+     * Forgets the last posted events of a sticky event type, in the shard of that type.
+     *
+     * @param eventType the exact type of event.
+     */
+    public void clearSticky(@NonNull Class<? extends E> eventType) {
+        this.shard(eventType).clearSticky(eventType);
+    }
+
+    /**
+     * Forgets the last posted event of a key of a keyed sticky event type, in the shard of that type.
+     *
+     * @param eventType the exact type of event.
+     * @param key the key of the event.
+     * @return {@code true} if an event was kept for the key.
+     */
+    public boolean clearSticky(@NonNull Class<? extends E> eventType, @NonNull Object key) {
+        return this.shard(eventType).clearSticky(eventType, key);
+    }
+
+    /**
+     * Post an event to all registered subscriptions, on the executor of its shard if it has one.
+     *
+     * @param event the event to post.
+     * @return a CompletableFuture encapsulating its PostResult.
+     */
+    @Override
+    public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event) {
+        int index = this.shardIndex(event.getClass());
+
+        SimpleEventBus<E> shard = this.shards[index];
+        Executor executor = this.executors[index];
+
+        if (executor == null) {
+            return shard.post(event);
+        }
+
+        return CompletableFuture.supplyAsync(() -> shard.<T>post(event), executor).thenCompose(future -> future);
+    }
+
+    /**
+     * Binds the calling thread to an execution context, which is shared by every shard.
+     *
+     * @param context the name of the execution context.
+     */
+    @Override
+    public void bindContext(@NonNull String context) {
+        this.shards[0].bindContext(context);
+    }
+
+    /**
+     * Runs subscriptions that were queued for an execution context by any shard, in the order they were posted.
+     *
+     * @param context the name of the execution context.
+     * @param budget the most subscriptions to run.
+     * @return the amount of subscriptions that were run.
+     */
+    @Override
+    public int drain(@NonNull String context, int budget) {
+        return this.shards[0].drain(context, budget);
+    }
+
+    /**
+     * Unregister a subscription from the event bus.
+     *
+     * @param subscription the subscription to unregister.
+     */
+    @Override
+    public void unregister(@NonNull Subscription<E> subscription) {
+        if (subscription instanceof SimpleSubscription) {
+            this.shard(((SimpleSubscription<E>) subscription).getEventClass()).unregister(subscription);
+        } else {
+            this.unregisterIf(sub -> sub == subscription);
+        }
+    }
+
+    /**
+     * Unregister all subscriptions that match the given {@link Predicate}, across all shards.
+     *
+     * @param predicate the predicate to test the subscription should be removed.
+     */
+    @Override
+    public void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
+        for (SimpleEventBus<E> shard : this.shards) {
+            shard.unregisterIf(predicate);
+        }
+    }
+
+    /**
+     * Unregister all the registered subscriptions, across all shards.
+     */
+    @Override
+    public void unregisterAll() {
+        for (SimpleEventBus<E> shard : this.shards) {
+            shard.unregisterAll();
+        }
+    }
+
+    /**
+     * Closes every shard, flushing their pending batches of events.
+     *
+     * @throws IllegalStateException if any batch failed, with the failures of the other shards suppressed.
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+
+        for (SimpleEventBus<E> shard : this.shards) {
+            try {
+                shard.close();
+            } catch (IllegalStateException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns if the given event type is currently subscribed to.
+     *
+     * @param eventType The type of event you want to check is subscribed.
+     * @return if the event is subscribed.
+     */
+    @Override
+    public boolean isSubscribed(@NonNull Class<?> eventType) {
+        return this.shard(eventType).isSubscribed(eventType);
+    }
+
+    /**
+     * Gets an {@link Array} of all registered {@link Subscription}'s based on its event type.
+     *
+     * @param eventType the type of event.
+     * @return All registered subscriptions.
+     */
+    @Override
+    public @Nullable Subscription<? super E>[] getSubscriptions(@NonNull Class<?> eventType) {
+        return this.shard(eventType).getSubscriptions(eventType);
+    }
+
+}
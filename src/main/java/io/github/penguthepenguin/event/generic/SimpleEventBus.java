@@ -27,36 +27,198 @@ package io.github.penguthepenguin.event.generic;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import io.github.penguthepenguin.event.*;
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.data.Sticky;
 import io.github.penguthepenguin.event.data.Subscribe;
+import io.github.penguthepenguin.event.gen.EventFilter;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import io.github.penguthepenguin.event.jfr.BusRecorder;
+import io.github.penguthepenguin.event.trace.EventTracer;
+import lombok.AccessLevel;
 import lombok.Getter;
 import io.github.penguthepenguin.event.data.Acceptor;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Predicate;
 
 @Getter
 public class SimpleEventBus<E> implements EventBus<E> {
 
+    private static final Acceptor<?> DEFAULT_ACCEPTOR = Acceptor.nonCancelingWhenNotAcceptingCancelled();
+
+    private static final SimpleEventBus<?>[] NO_CHILDREN = new SimpleEventBus[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SimpleEventBus, SimpleEventBus[]> CHILDREN =
+            AtomicReferenceFieldUpdater.newUpdater(SimpleEventBus.class, SimpleEventBus[].class, "children");
+
     private final Class<E> eventType;
     private final Acceptor<E> acceptor;
 
     private final Map<Class<? extends E>, Subscriptions<E>> subscriptions;
+    private final Map<String, ExecutionContext> contexts;
+
+    /**
+     * The registered {@link BatchingSubscription}s, whose pending batches are flushed once they are unregistered.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<BatchingSubscription<E>> batching;
+
+    /**
+     * If the acceptor is the default one, posting can use the partitioned arrays of {@link BakedSubscriptions}
+     * instead of asking the acceptor about every subscription.
+     */
+    @Getter(AccessLevel.NONE)
+    private final boolean partitioned;
+
+    /**
+     * If registration only marks subscriptions as dirty, baking them on the next post.
+     */
+    private final boolean lazyBaking;
+
+    /**
+     * The most posts a single top level post may queue from inside its subscriptions,
+     * or {@code 0} if re-entrant posts are dispatched right away.
+     */
+    private final int maxCascade;
+
+    /**
+     * How slow {@link Subscribe#deferrable()} subscribers are moved off the posting thread, or {@code null} if they aren't.
+     */
+    private final @Nullable AdaptiveOffload adaptiveOffload;
+
+    @Getter(AccessLevel.NONE)
+    private final @Nullable ThreadLocal<Trampoline<E>> trampolines;
+
+    /**
+     * The tracer that posts and subscriptions are recorded to, or {@code null} if they aren't traced.
+     */
+    private final @Nullable EventTracer tracer;
+
+    /**
+     * The bus that posts its events to this one, or {@code null} if this isn't a child bus.
+     */
+    private final @Nullable SimpleEventBus<E> parent;
+
+    /**
+     * The open child buses, copied on every change so a post only reads the field once.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile SimpleEventBus<E>[] children;
 
     public SimpleEventBus(Class<E> eventType) {
-        this(eventType, Acceptor.nonCancelingWhenNotAcceptingCancelled());
+        this(builder(eventType));
     }
 
     public SimpleEventBus(Class<E> eventType, Acceptor<E> acceptor) {
-        this.eventType = eventType;
-        this.acceptor = acceptor;
+        this(builder(eventType).acceptor(acceptor));
+    }
+
+    protected SimpleEventBus(Builder<E> builder) {
+        this.eventType = builder.eventType;
+        this.acceptor = builder.acceptor;
         this.subscriptions = Maps.newConcurrentMap();
+        this.contexts = builder.contexts != null ? builder.contexts : Maps.newConcurrentMap();
+        this.batching = Sets.newConcurrentHashSet();
+        this.partitioned = builder.acceptor == DEFAULT_ACCEPTOR;
+        this.lazyBaking = builder.lazyBaking;
+        this.maxCascade = builder.maxCascade;
+        this.adaptiveOffload = builder.adaptiveOffload;
+        this.trampolines = this.maxCascade > 0 ? ThreadLocal.withInitial(Trampoline::new) : null;
+        this.tracer = builder.tracer;
+        this.parent = builder.parent;
+        this.children = noChildren();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> SimpleEventBus<E>[] noChildren() {
+        return (SimpleEventBus<E>[]) NO_CHILDREN;
+    }
+
+    /**
+     * Creates a builder for a bus by its event type.
+     *
+     * @param eventType the type of event that the bus will handle.
+     * @return the builder created.
+     */
+    public static <E> @NonNull Builder<E> builder(@NonNull Class<E> eventType) {
+        return new Builder<>(eventType);
+    }
+
+    /**
+     * Creates a child bus, with the same configuration, that receives every event posted to this one.
+     * <p>
+     * Subscriptions registered to the child stay in it, and events posted to the child aren't posted to this bus.
+     * Closing the child detaches it and drops all of its subscriptions at once, without touching this bus's subscriptions.
+     *
+     * @return the child bus created.
+     */
+    public @NonNull SimpleEventBus<E> child() {
+        Builder<E> builder = builder(this.eventType)
+                .acceptor(this.acceptor)
+                .lazyBaking(this.lazyBaking);
+        if (this.maxCascade > 0) {
+            builder.queuedReentrancy(this.maxCascade);
+        }
+        if (this.adaptiveOffload != null) {
+            builder.adaptiveOffload(this.adaptiveOffload);
+        }
+        if (this.tracer != null) {
+            builder.tracer(this.tracer);
+        }
+
+        builder.parent = this;
+        SimpleEventBus<E> child = builder.build();
+
+        SimpleEventBus<E>[] children;
+        SimpleEventBus<E>[] updated;
+        do {
+            children = this.children;
+            updated = Arrays.copyOf(children, children.length + 1);
+            updated[children.length] = child;
+        } while (!CHILDREN.compareAndSet(this, children, updated));
+
+        return child;
+    }
+
+    /**
+     * Gets the open child buses.
+     *
+     * @return the child buses, in the order they were created.
+     */
+    public @NonNull List<SimpleEventBus<E>> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(this.children));
+    }
+
+    private void detach(SimpleEventBus<E> child) {
+        SimpleEventBus<E>[] children;
+        SimpleEventBus<E>[] updated;
+        do {
+            children = this.children;
+
+            int index = Arrays.asList(children).indexOf(child);
+            if (index < 0) return;
+
+            if (children.length == 1) {
+                updated = noChildren();
+            } else {
+                updated = Arrays.copyOf(children, children.length - 1);
+                System.arraycopy(children, index + 1, updated, index, children.length - index - 1);
+            }
+        } while (!CHILDREN.compareAndSet(this, children, updated));
     }
 
     /**
@@ -103,6 +265,31 @@ public class SimpleEventBus<E> implements EventBus<E> {
      * @return the generated {@link SimpleSubscription}.
      */
     public SimpleSubscription<E> generateSubscription(Method method, Object target) {
+        return generateSubscription(this, method, target, this.adaptiveOffload);
+    }
+
+    /**
+     * Generates a subscription for a bus based off a method, and it's containing class.
+     *
+     * @param bus the bus that the subscription will belong to.
+     * @param method the method that is annotated with @Subscribe
+     * @param target the object that contains the method that will be invoked when the event is fired.
+     * @return the generated {@link SimpleSubscription}, or {@code null} if the method isn't a subscriber for the bus.
+     */
+    public static <E> @Nullable SimpleSubscription<E> generateSubscription(@NonNull EventBus<E> bus, @NonNull Method method, @Nullable Object target) {
+        return generateSubscription(bus, method, target, null);
+    }
+
+    /**
+     * Generates a subscription for a bus based off a method, and it's containing class.
+     *
+     * @param bus the bus that the subscription will belong to.
+     * @param method the method that is annotated with @Subscribe
+     * @param target the object that contains the method that will be invoked when the event is fired.
+     * @param offload how the subscription is offloaded if it is deferrable, or {@code null} to always run it inline.
+     * @return the generated {@link SimpleSubscription}, or {@code null} if the method isn't a subscriber for the bus.
+     */
+    public static <E> @Nullable SimpleSubscription<E> generateSubscription(@NonNull EventBus<E> bus, @NonNull Method method, @Nullable Object target, @Nullable AdaptiveOffload offload) {
         method.setAccessible(true);
         if (!method.isAnnotationPresent(Subscribe.class)
                 || target == null != Modifier.isStatic(method.getModifiers())) return null;
@@ -114,16 +301,71 @@ public class SimpleEventBus<E> implements EventBus<E> {
         );
 
         Class<?> eventType = parameters[0];
-        if (!eventType.isAssignableFrom(this.eventType)) return null;
+        boolean batching = eventType == List.class;
+
+        if (batching) {
+            Type list = method.getGenericParameterTypes()[0];
+            Type element = list instanceof ParameterizedType ? ((ParameterizedType) list).getActualTypeArguments()[0] : null;
+            Preconditions.checkArgument(element instanceof Class,
+                    "Method %s takes a batch of events, but its list doesn't name the event type.", method
+            );
+
+            eventType = (Class<?>) element;
+        }
 
-        Class<? extends E> event = eventType.asSubclass(this.eventType);
+        if (!bus.getEventType().isAssignableFrom(eventType)) return null;
+
+        Class<? extends E> event = eventType.asSubclass(bus.getEventType());
         Subscribe subscribe = method.getAnnotation(Subscribe.class);
 
+        Preconditions.checkArgument(subscribe.filter().isEmpty() || !batching && !(subscribe.deferrable() && offload != null),
+                "Method %s has a filter, which only applies to subscribers of single events that aren't deferred.", method
+        );
+
+        if (batching) {
+            Preconditions.checkArgument(subscribe.context().isEmpty(),
+                    "Method %s takes a batch of events, which can't be bound to an execution context.", method
+            );
+
+            return new BatchingSubscription<>(
+                    subscribe.order(), bus, event, (EventHandler<List<E>>) events -> invoke(method, target, events),
+                    subscribe.maxBatchSize(), subscribe.maxBatchDelay(), TimeUnit.MILLISECONDS, !subscribe.ignoreCancelled()
+            );
+        }
+
+        if (subscribe.deferrable() && offload != null) {
+            Preconditions.checkArgument(subscribe.context().isEmpty(),
+                    "Method %s is deferrable, which can't be bound to an execution context.", method
+            );
+
+            return new AdaptiveSubscription<>(
+                    subscribe.order(), bus, event, (EventHandler<E>) argument -> invoke(method, target, argument),
+                    !subscribe.ignoreCancelled(), offload
+            );
+        }
+
+        if (!subscribe.filter().isEmpty()) {
+            return new FilteredSubscription<>(
+                    subscribe.order(), bus, event, EventFilter.compile(event, subscribe.filter()),
+                    (EventHandler<E>) argument -> method.invoke(target, argument), !subscribe.ignoreCancelled(),
+                    subscribe.context().isEmpty() ? null : subscribe.context()
+            );
+        }
+
         return new SimpleSubscription<>(
-                subscribe.order(), this, event, target, method, !subscribe.ignoreCancelled()
+                subscribe.order(), bus, event, target, method, !subscribe.ignoreCancelled(),
+                subscribe.context().isEmpty() ? null : subscribe.context()
         );
     }
 
+    private static void invoke(Method method, @Nullable Object target, Object argument) throws Throwable {
+        try {
+            method.invoke(target, argument);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * Registers an event handler with a given post order.
      *
@@ -135,7 +377,22 @@ public class SimpleEventBus<E> implements EventBus<E> {
      */
     @Override
     public @NonNull SimpleSubscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
-        SimpleSubscription<E> subscription = new SimpleSubscription<>(order, this, eventType, handler, !ignoreCancelled);
+        return this.register(eventType, handler, order, ignoreCancelled, null);
+    }
+
+    /**
+     * Registers an event handler with a given post order.
+     *
+     * @param eventType the type of event to subscribe to.
+     * @param handler   the handler to be registered.
+     * @param order     the order in which the handler should be called.
+     * @param ignoreCancelled weather this handler should ignore cancelled events.
+     * @param context   the execution context the handler must run in, or {@code null} to run on the posting thread.
+     * @return the subscription that was generated.
+     */
+    @Override
+    public @NonNull SimpleSubscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        SimpleSubscription<E> subscription = new SimpleSubscription<>(order, this, eventType, handler, !ignoreCancelled, context);
         this.register(eventType, subscription);
 
         return subscription;
@@ -149,11 +406,100 @@ public class SimpleEventBus<E> implements EventBus<E> {
      */
     @Override
     public void register(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
-        Preconditions.checkState(eventType.isAssignableFrom(this.eventType),
+        this.registerReplaying(eventType, subscription);
+    }
+
+    /**
+     * Register a subscription for a specific event type, delivering it the events kept if the type is {@link Sticky}.
+     *
+     * @param eventType    the type of event that the subscription is interested in.
+     * @param subscription the subscription to register.
+     * @return the results of the events delivered, in the order they were posted, which completes once they have all run
+     * in the subscription's execution context. Empty if the type isn't sticky or no event was kept.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public @NonNull CompletableFuture<List<PostResult<? super E>>> registerReplaying(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
+        Preconditions.checkState(this.eventType.isAssignableFrom(eventType),
                 "Class %s doesn't implement the event type %s.", eventType, this.eventType
         );
 
-        this.subscriptions.computeIfAbsent(eventType, clazz -> new SimpleSubscriptions<>()).register(subscription);
+        if (subscription instanceof BatchingSubscription) {
+            this.batching.add((BatchingSubscription<E>) subscription);
+        }
+
+        Subscriptions<E> subscriptions = this.subscriptions.computeIfAbsent(eventType, this::newSubscriptions);
+        if (!isSticky(subscriptions)) {
+            subscriptions.register(subscription);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        // posts of the type take their snapshot under the same lock, so each event reaches the subscription
+        // either through a post or through this replay, and the handlers run outside of it
+        List<E> replay;
+        synchronized (subscriptions) {
+            subscriptions.register(subscription);
+            replay = ((SimpleSubscriptions<E>) subscriptions).getSticky();
+        }
+
+        CompletableFuture<PostResult<? super E>>[] results = new CompletableFuture[replay.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = this.postAccepted(replay.get(i), new Subscription[]{subscription});
+        }
+
+        return CompletableFuture.allOf(results).thenApply(ignored -> {
+            List<PostResult<? super E>> replayed = new ArrayList<>(results.length);
+            for (CompletableFuture<PostResult<? super E>> result : results) {
+                replayed.add(result.join());
+            }
+
+            return replayed;
+        });
+    }
+
+    private Subscriptions<E> newSubscriptions(Class<? extends E> eventType) {
+        return new SimpleSubscriptions<>(eventType, this.lazyBaking);
+    }
+
+    private static boolean isSticky(Subscriptions<?> subscriptions) {
+        return subscriptions instanceof SimpleSubscriptions && ((SimpleSubscriptions<?>) subscriptions).isSticky();
+    }
+
+    /**
+     * Gets the last posted events of a {@link Sticky} event type, that are delivered to subscriptions registered later.
+     *
+     * @param eventType the exact type of event.
+     * @return the events kept, one per key in the order they were posted.
+     */
+    @SuppressWarnings("unchecked")
+    public @NonNull List<E> getSticky(@NonNull Class<? extends E> eventType) {
+        Subscriptions<E> subscriptions = this.subscriptions.get(eventType);
+        return isSticky(subscriptions) ? ((SimpleSubscriptions<E>) subscriptions).getSticky() : Collections.emptyList();
+    }
+
+    /**
+     * Forgets the last posted events of a {@link Sticky} event type.
+     *
+     * @param eventType the exact type of event.
+     */
+    @SuppressWarnings("unchecked")
+    public void clearSticky(@NonNull Class<? extends E> eventType) {
+        Subscriptions<E> subscriptions = this.subscriptions.get(eventType);
+        if (isSticky(subscriptions)) {
+            ((SimpleSubscriptions<E>) subscriptions).clearSticky();
+        }
+    }
+
+    /**
+     * Forgets the last posted event of a key of a keyed {@link Sticky} event type, so the events kept don't grow with every key ever posted.
+     *
+     * @param eventType the exact type of event.
+     * @param key the key of the event, as returned by the method named in {@link Sticky#key()}.
+     * @return {@code true} if an event was kept for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean clearSticky(@NonNull Class<? extends E> eventType, @NonNull Object key) {
+        Subscriptions<E> subscriptions = this.subscriptions.get(eventType);
+        return isSticky(subscriptions) && ((SimpleSubscriptions<E>) subscriptions).clearSticky(key);
     }
 
     /**
@@ -163,32 +509,307 @@ public class SimpleEventBus<E> implements EventBus<E> {
      * @return a CompletableFuture encapsulating its PostResult.
      */
     @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event) {
-        ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+        if (this.trampolines == null) {
+            return this.dispatch(event);
+        }
 
-        Subscription<? super E>[] subscriptions = this.getSubscriptions(event.getClass());
-        if (subscriptions != null) {
+        if (this.tracer != null) {
+            this.tracer.queue(event);
+        }
 
-            for (Subscription<? super E> subscription : subscriptions) {
-                if (subscription == null || !this.acceptor.accepts(eventType, event, subscription)) continue;
+        return (CompletableFuture) this.trampolines.get().post(event, this.maxCascade, this::dispatch);
+    }
 
-                try {
-                    subscription.on(event);
-                } catch (Throwable e) {
-                    if (exceptions == null) {
-                        exceptions = ImmutableMap.builder();
-                    }
+    /**
+     * Posts an event to all registered subscriptions right away, then to the child buses.
+     */
+    private <T extends E> CompletableFuture<PostResult<? super T>> dispatch(E event) {
+        Object recording = BusRecorder.beginPost();
+        CompletableFuture<PostResult<? super T>> result;
 
-                    exceptions.put(subscription, e);
+        if (this.tracer != null && this.tracer.beginPost(event)) {
+            try {
+                result = this.dispatchLocal(event);
+            } finally {
+                this.tracer.endPost();
+            }
+        } else {
+            result = this.dispatchLocal(event);
+        }
+
+        SimpleEventBus<E>[] children = this.children;
+        if (children.length != 0) {
+            result = fanOut(event, result, children);
+        }
+
+        if (recording != null) {
+            Subscription<? super E>[] subscriptions = this.getSubscriptions(event.getClass());
+            BusRecorder.endPost(recording, event.getClass(), subscriptions == null ? 0 : subscriptions.length);
+        }
+
+        return result;
+    }
+
+    /**
+     * Posts an event to every child bus, combining their results with the result of this bus.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E, T extends E> CompletableFuture<PostResult<? super T>> fanOut(E event, CompletableFuture<PostResult<? super T>> result, SimpleEventBus<E>[] children) {
+        CompletableFuture<PostResult<? super T>>[] results = new CompletableFuture[children.length + 1];
+        results[0] = result;
+
+        for (int i = 0; i < children.length; i++) {
+            results[i + 1] = children[i].dispatch(event);
+        }
+
+        // already complete unless a subscription was queued for an execution context
+        return CompletableFuture.allOf(results).thenApply(ignored -> {
+            ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+
+            for (CompletableFuture<PostResult<? super T>> future : results) {
+                Map<Subscription, Throwable> failures = (Map) future.join().getExceptions();
+                if (failures.isEmpty()) continue;
+
+                if (exceptions == null) {
+                    exceptions = ImmutableMap.builder();
                 }
+
+                exceptions.putAll((Map) failures);
+            }
+
+            return (PostResult) (exceptions == null
+                    ? PostResult.of(event)
+                    : PostResult.of(event, exceptions.build())
+            );
+        });
+    }
+
+    /**
+     * Posts an event to the subscriptions registered to this bus.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends E> CompletableFuture<PostResult<? super T>> dispatchLocal(E event) {
+        Subscriptions<E> subscriptions = this.subscriptions.get(event.getClass());
+
+        // sticky events are kept even without subscriptions, other types only pay for this check while unsubscribed
+        if (subscriptions == null && StickyEvents.isSticky(event.getClass())) {
+            subscriptions = this.subscriptions.computeIfAbsent((Class<? extends E>) event.getClass(), this::newSubscriptions);
+        }
+
+        if (subscriptions != null && isSticky(subscriptions)) {
+            SimpleSubscriptions<E> sticky = (SimpleSubscriptions<E>) subscriptions;
+            BakedSubscriptions<E> baked;
+
+            // the same lock registrations replay under, so each subscription gets the event exactly once
+            synchronized (sticky) {
+                sticky.putSticky(event);
+                baked = sticky.getBaked();
             }
 
+            return this.partitioned ? this.dispatch(event, baked) : this.postAccepted(event, baked.getSubscriptions());
+        }
+
+        return this.dispatch(event, subscriptions);
+    }
+
+    /**
+     * Posts an event to the subscriptions of its type.
+     */
+    private <T extends E> CompletableFuture<PostResult<? super T>> dispatch(E event, @Nullable Subscriptions<E> subscriptions) {
+        if (subscriptions == null) {
+            return completed(event, null);
+        }
+
+        if (this.partitioned && subscriptions instanceof SimpleSubscriptions && ((SimpleSubscriptions<E>) subscriptions).getEventType() != null) {
+            return this.dispatch(event, ((SimpleSubscriptions<E>) subscriptions).getBaked());
+        }
+
+        return this.postAccepted(event, subscriptions.getRegisteredSubscriptions());
+    }
+
+    /**
+     * Posts an event to a baked snapshot of the subscriptions of its type.
+     */
+    private <T extends E> CompletableFuture<PostResult<? super T>> dispatch(E event, BakedSubscriptions<E> baked) {
+        if (baked.isAffine()) {
+            return this.postAccepted(event, baked.getSubscriptions());
         }
 
-        return CompletableFuture.completedFuture(exceptions == null
+        return completed(event, baked.isCancellable()
+                ? this.postCancellable(event, baked)
+                : this.postUnchecked(event, baked)
+        );
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E, T extends E> CompletableFuture<PostResult<? super T>> completed(E event, ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions) {
+        return CompletableFuture.completedFuture((PostResult) (exceptions == null
                 ? PostResult.of(event)
                 : PostResult.of(event, exceptions.build())
-        );
+        ));
+    }
+
+    /**
+     * Posts to every subscription, for event types that can't be cancelled.
+     * Hot subscription sets are posted through their {@link CompiledDispatcher}.
+     */
+    private ImmutableMap.Builder<Subscription<? super E>, Throwable> postUnchecked(E event, BakedSubscriptions<E> baked) {
+        ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+
+        Subscription<E>[] subscriptions = baked.getSubscriptions();
+        int index = 0;
+
+        // traced and recorded posts go through every subscription one by one, to time each of them
+        CompiledDispatcher<E> dispatcher = (this.tracer == null || !this.tracer.isTracing()) && !BusRecorder.isDispatchRecorded()
+                ? baked.getDispatcher()
+                : null;
+        if (dispatcher != null) {
+            DispatchCursor cursor = new DispatchCursor();
+
+            try {
+                dispatcher.dispatch(event, cursor);
+                return null;
+            } catch (Throwable e) {
+                index = cursor.getIndex();
+                exceptions = ImmutableMap.builder();
+                exceptions.put(subscriptions[index++], e);
+            }
+        }
+
+        while (index < subscriptions.length) {
+            exceptions = this.dispatch(event, subscriptions[index++], exceptions);
+        }
+
+        return exceptions;
+    }
+
+    /**
+     * Posts a cancellable event, jumping to the subscriptions that still receive it once it is cancelled.
+     */
+    private ImmutableMap.Builder<Subscription<? super E>, Throwable> postCancellable(E event, BakedSubscriptions<E> baked) {
+        ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+
+        Subscription<E>[] subscriptions = baked.getSubscriptions();
+        int[] nextReceivingCancelled = baked.getNextReceivingCancelled();
+        Cancellable cancellable = (Cancellable) event;
+
+        int index = cancellable.isCancelled() ? nextReceivingCancelled[0] : 0;
+        while (index < subscriptions.length) {
+            exceptions = this.dispatch(event, subscriptions[index++], exceptions);
+
+            // only a subscription can change the state, so it's only checked after one has been called
+            if (cancellable.isCancelled()) {
+                index = nextReceivingCancelled[index];
+            }
+        }
+
+        return exceptions;
+    }
+
+    /**
+     * Posts to every subscription that the acceptor accepts, until one is bound to an {@link ExecutionContext}
+     * that isn't the current thread's. That subscription and every one after it are queued in order for that context.
+     * The view of an {@link EventSlab} can't be queued, so its post stops there and fails at that subscription.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T extends E> CompletableFuture<PostResult<? super T>> postAccepted(E event, Subscription<? super E>[] subscriptions) {
+        ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+
+        for (int i = 0; i < subscriptions.length; i++) {
+            Subscription<? super E> subscription = subscriptions[i];
+            if (subscription == null) continue;
+
+            String context = subscription.getContext();
+            if (context != null) {
+                ExecutionContext executionContext = this.context(context);
+
+                if (!executionContext.isCurrentThread()) {
+                    try {
+                        EventSlab.checkNotView(event, "the execution context " + context);
+                    } catch (IllegalArgumentException e) {
+                        if (exceptions == null) {
+                            exceptions = ImmutableMap.builder();
+                        }
+
+                        exceptions.put(subscription, e);
+                        break;
+                    }
+
+                    DeferredPost<E> post = new DeferredPost<>(event, exceptions == null ? Collections.emptyMap() : exceptions.build(), 1);
+                    executionContext.enqueue(new PendingDispatch<>(post, subscriptions, i, this::context, this.eventType, this.acceptor));
+
+                    return (CompletableFuture) post.getFuture();
+                }
+            }
+
+            if (!this.acceptor.accepts(this.eventType, event, subscription)) continue;
+
+            exceptions = this.dispatch(event, subscription, exceptions);
+        }
+
+        return completed(event, exceptions);
+    }
+
+    private ImmutableMap.Builder<Subscription<? super E>, Throwable> dispatch(E event, Subscription<? super E> subscription,
+                                                                             ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions) {
+        Object recording = BusRecorder.beginDispatch();
+        if (this.tracer != null) {
+            this.tracer.beginSubscription(subscription);
+        }
+
+        try {
+            subscription.on(event);
+        } catch (Throwable e) {
+            if (exceptions == null) {
+                exceptions = ImmutableMap.builder();
+            }
+
+            exceptions.put(subscription, e);
+        } finally {
+            if (this.tracer != null) {
+                this.tracer.endSubscription();
+            }
+        }
+
+        if (recording != null) {
+            BusRecorder.endDispatch(recording, event.getClass(), subscription);
+        }
+
+        return exceptions;
+    }
+
+    /**
+     * Gets an execution context by its name, creating it if it doesn't exist.
+     *
+     * @param name the name of the execution context.
+     * @return the execution context.
+     */
+    public @NonNull ExecutionContext context(@NonNull String name) {
+        return this.contexts.computeIfAbsent(name, ExecutionContext::new);
+    }
+
+    /**
+     * Binds the calling thread to an execution context.
+     *
+     * @param context the name of the execution context.
+     */
+    @Override
+    public void bindContext(@NonNull String context) {
+        this.context(context).bind();
+    }
+
+    /**
+     * Runs subscriptions that were queued for an execution context.
+     *
+     * @param context the name of the execution context.
+     * @param budget the most subscriptions to run.
+     * @return the amount of subscriptions that were run.
+     */
+    @Override
+    public int drain(@NonNull String context, int budget) {
+        return this.context(context).drain(budget);
     }
 
     /**
@@ -203,22 +824,78 @@ public class SimpleEventBus<E> implements EventBus<E> {
 
     /**
      * Unregister all subscriptions that match the given {@link Predicate}
+     * The pending batch of a {@link BatchingSubscription} is delivered once it is unregistered.
      *
      * @param predicate the predicate to test the subscription should be removed.
+     * @throws IllegalStateException if any batch failed, with their failures suppressed.
      */
     @Override
     public void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
+        Set<BatchingSubscription<E>> batching = Collections.newSetFromMap(new IdentityHashMap<>());
+        Predicate<Subscription<E>> matching = subscription -> {
+            if (!predicate.test(subscription)) return false;
+
+            if (subscription instanceof BatchingSubscription) {
+                batching.add((BatchingSubscription<E>) subscription);
+            }
+            return true;
+        };
+
         for (Subscriptions<E> subscription : this.subscriptions.values()) {
-            subscription.unregisterIf(predicate);
+            subscription.unregisterIf(matching);
         }
+        this.batching.removeAll(batching);
+
+        List<Throwable> failures = new ArrayList<>();
+        flush(batching, failures);
+        throwFailures(failures);
     }
 
     /**
      * Unregister all the registered subscriptions.
+     * The pending batches of every {@link BatchingSubscription} are delivered once they are unregistered.
+     *
+     * @throws IllegalStateException if any batch failed, with their failures suppressed.
      */
     @Override
     public void unregisterAll() {
+        List<Throwable> failures = new ArrayList<>();
+        this.unregisterAll(failures);
+        throwFailures(failures);
+    }
+
+    private void unregisterAll(List<Throwable> failures) {
         this.subscriptions.clear();
+
+        // only the batching subscriptions are visited, not every registered one
+        List<BatchingSubscription<E>> batching = new ArrayList<>();
+        for (Iterator<BatchingSubscription<E>> iterator = this.batching.iterator(); iterator.hasNext(); ) {
+            batching.add(iterator.next());
+            iterator.remove();
+        }
+
+        flush(batching, failures);
+    }
+
+    /**
+     * Delivers the pending batches of unregistered subscriptions, so no event is left for the timer to deliver later.
+     */
+    private static <E> void flush(Collection<BatchingSubscription<E>> batching, List<Throwable> failures) {
+        for (BatchingSubscription<E> subscription : batching) {
+            try {
+                subscription.flush();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        }
+    }
+
+    private static void throwFailures(List<Throwable> failures) {
+        if (!failures.isEmpty()) {
+            IllegalStateException exception = new IllegalStateException("Failed to flush " + failures.size() + " batches of events");
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
     }
 
     /**
@@ -245,4 +922,127 @@ public class SimpleEventBus<E> implements EventBus<E> {
         return subscriptions == null ? null : subscriptions.getRegisteredSubscriptions();
     }
 
+    /**
+     * Closes the child buses, then unregisters all subscriptions, flushing the pending batches of every {@link BatchingSubscription}.
+     * A child bus is detached from its parent first, so it receives no events while closing.
+     *
+     * @throws IllegalStateException if any batch failed, with their failures suppressed.
+     */
+    @Override
+    public void close() {
+        List<Throwable> failures = new ArrayList<>();
+
+        if (this.parent != null) {
+            this.parent.detach(this);
+        }
+
+        for (SimpleEventBus<E> child : this.children) {
+            try {
+                child.close();
+            } catch (IllegalStateException e) {
+                Collections.addAll(failures, e.getSuppressed());
+            }
+        }
+
+        this.unregisterAll(failures);
+        throwFailures(failures);
+    }
+
+    public static final class Builder<E> {
+
+        private final Class<E> eventType;
+
+        @SuppressWarnings("unchecked")
+        private Acceptor<E> acceptor = (Acceptor<E>) DEFAULT_ACCEPTOR;
+        private boolean lazyBaking;
+        private int maxCascade;
+        private @Nullable AdaptiveOffload adaptiveOffload;
+        private @Nullable EventTracer tracer;
+        private @Nullable SimpleEventBus<E> parent;
+        private @Nullable Map<String, ExecutionContext> contexts;
+
+        private Builder(Class<E> eventType) {
+            this.eventType = eventType;
+        }
+
+        /**
+         * Sets the acceptor which will decide if a subscription's event should be handled.
+         *
+         * @param acceptor the acceptor to use.
+         * @return this builder.
+         */
+        public @NonNull Builder<E> acceptor(@NonNull Acceptor<E> acceptor) {
+            this.acceptor = acceptor;
+            return this;
+        }
+
+        /**
+         * Sets if subscriptions are baked lazily, once on the next post after any amount of registrations,
+         * rather than on every registration.
+         *
+         * @param lazyBaking whether to bake lazily.
+         * @return this builder.
+         */
+        public @NonNull Builder<E> lazyBaking(boolean lazyBaking) {
+            this.lazyBaking = lazyBaking;
+            return this;
+        }
+
+        /**
+         * Queues posts made from inside a subscription, dispatching them once the current dispatch
+         * on that thread finishes instead of recursing into them. Their futures complete when they are dispatched.
+         *
+         * @param maxCascade the most posts a single top level post may queue, further posts fail with an {@link IllegalStateException}.
+         * @return this builder.
+         */
+        public @NonNull Builder<E> queuedReentrancy(int maxCascade) {
+            Preconditions.checkArgument(maxCascade > 0, "The maximum cascade must be positive, given %s", maxCascade);
+            this.maxCascade = maxCascade;
+            return this;
+        }
+
+        /**
+         * Moves subscribers marked {@link Subscribe#deferrable()} to an executor while they are slow, and back once they speed up.
+         *
+         * @param adaptiveOffload the executor and threshold to offload at.
+         * @return this builder.
+         */
+        public @NonNull Builder<E> adaptiveOffload(@NonNull AdaptiveOffload adaptiveOffload) {
+            this.adaptiveOffload = adaptiveOffload;
+            return this;
+        }
+
+        /**
+         * Records every post and the subscriptions it calls as spans, linked to the span that posted them.
+         *
+         * @param tracer the tracer to record to, which may be shared by buses.
+         * @return this builder.
+         */
+        public @NonNull Builder<E> tracer(@NonNull EventTracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Shares execution contexts with other buses, so subscriptions of a context queued by any of them run in the order they were posted.
+         *
+         * @param contexts the execution contexts by their name, or {@code null} for the bus to have its own.
+         * @return this builder.
+         */
+        @NonNull Builder<E> contexts(@Nullable Map<String, ExecutionContext> contexts) {
+            this.contexts = contexts;
+            return this;
+        }
+
+        /**
+         * Creates the bus.
+         *
+         * @return the event bus created.
+         */
+        public @NonNull SimpleEventBus<E> build() {
+            return new SimpleEventBus<>(this);
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -24,11 +24,13 @@
 
 package io.github.penguthepenguin.event.generic;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import io.github.penguthepenguin.event.EventBus;
 import io.github.penguthepenguin.event.EventHandler;
 import io.github.penguthepenguin.event.Subscription;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.lang.reflect.Method;
 
@@ -41,17 +43,38 @@ public class SimpleSubscription<E> implements Subscription<E> {
     private final EventHandler<? super E> handler;
 
     private final boolean acceptsCancelled;
+    private final @Nullable String context;
+
+    /**
+     * The method called by the handler, only known for subscriptions of annotated methods.
+     */
+    @Getter(AccessLevel.NONE)
+    private final @Nullable Method method;
 
     public SimpleSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, Object target, Method method, boolean acceptsCancelled) {
-        this(order, bus, eventClass, event -> method.invoke(target, event), acceptsCancelled);
+        this(order, bus, eventClass, target, method, acceptsCancelled, null);
+    }
+
+    public SimpleSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, Object target, Method method, boolean acceptsCancelled, @Nullable String context) {
+        this(order, bus, eventClass, event -> method.invoke(target, event), acceptsCancelled, context, method);
     }
 
     public SimpleSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, EventHandler<? super E> handler, boolean acceptsCancelled) {
+        this(order, bus, eventClass, handler, acceptsCancelled, null);
+    }
+
+    public SimpleSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, EventHandler<? super E> handler, boolean acceptsCancelled, @Nullable String context) {
+        this(order, bus, eventClass, handler, acceptsCancelled, context, null);
+    }
+
+    private SimpleSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, EventHandler<? super E> handler, boolean acceptsCancelled, @Nullable String context, @Nullable Method method) {
         this.order = order;
         this.bus = bus;
         this.eventClass = eventClass;
         this.handler = handler;
         this.acceptsCancelled = acceptsCancelled;
+        this.context = context;
+        this.method = method;
     }
 
     /**
@@ -85,4 +108,13 @@ public class SimpleSubscription<E> implements Subscription<E> {
         this.bus.unregister(this);
     }
 
+    @Override
+    public String toString() {
+        String handler = this.method != null
+                ? this.method.getDeclaringClass().getSimpleName() + "#" + this.method.getName()
+                : this.handler.getClass().getName();
+
+        return this.getClass().getSimpleName() + "{" + this.eventClass.getSimpleName() + ", " + handler + ", order=" + this.order + "}";
+    }
+
 }
@@ -24,12 +24,19 @@
 
 package io.github.penguthepenguin.event.generic;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import io.github.penguthepenguin.event.Subscription;
 import io.github.penguthepenguin.event.Subscriptions;
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.data.Sticky;
+import io.github.penguthepenguin.event.jfr.BusRecorder;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -39,21 +46,59 @@ import java.util.function.Predicate;
 public class SimpleSubscriptions<E> implements Subscriptions<E> {
 
     private final Map<Integer, List<Subscription<E>>> subscriptions;
-    private Subscription<E>[] subscriptionsArray;
+    private final @Nullable Class<? extends E> eventType;
+    private final boolean cancellable;
+
+    /**
+     * The last posted events, if the event type is {@link Sticky}.
+     */
+    private final @Nullable StickyEvents<E> sticky;
+
+    /**
+     * If mutations only mark this as dirty, leaving the bake to the next read.
+     */
+    private final boolean lazy;
+
+    /**
+     * The last baked snapshot, {@code null} while a lazy instance is dirty.
+     * Posts read it without locking, the volatile write publishes the fully built array along with it.
+     */
+    private volatile BakedSubscriptions<E> baked;
+
+    private volatile long bakes;
+    private volatile long avoidedBakes;
 
     public SimpleSubscriptions() {
+        this(null);
+    }
+
+    public SimpleSubscriptions(@Nullable Class<? extends E> eventType) {
+        this(eventType, false);
+    }
+
+    public SimpleSubscriptions(@Nullable Class<? extends E> eventType, boolean lazy) {
         this.subscriptions = Maps.newConcurrentMap();
+        this.eventType = eventType;
+        this.cancellable = eventType != null && Cancellable.class.isAssignableFrom(eventType);
+        this.sticky = eventType != null && StickyEvents.isSticky(eventType) ? new StickyEvents<>(eventType) : null;
+        this.lazy = lazy;
         this.bake();
     }
 
     /**
      * Geta all subscriptions, by their priority.
+     * <p>
+     * The lists are only changed while holding this instance's lock, so they are copied under it
+     * rather than handed out to be read while another thread registers.
      *
-     * @return a {@link Map} of subscriptions.
+     * @return an immutable snapshot of the subscriptions.
      */
     @Override
-    public @NonNull Map<Integer, List<Subscription<E>>> getSubscriptions() {
-        return this.subscriptions;
+    public synchronized @NonNull Map<Integer, List<Subscription<E>>> getSubscriptions() {
+        ImmutableMap.Builder<Integer, List<Subscription<E>>> snapshot = ImmutableMap.builder();
+        this.subscriptions.forEach((order, subscriptions) -> snapshot.put(order, ImmutableList.copyOf(subscriptions)));
+
+        return snapshot.build();
     }
 
     /**
@@ -63,21 +108,154 @@ public class SimpleSubscriptions<E> implements Subscriptions<E> {
      */
     @Override
     public @NonNull Subscription<E>[] getRegisteredSubscriptions() {
-        return this.subscriptionsArray;
+        return this.getBaked().getSubscriptions();
+    }
+
+    /**
+     * Gets the current baked snapshot of the registered subscriptions, baking it first if it is dirty.
+     *
+     * @return the up-to-date {@link BakedSubscriptions}.
+     */
+    public @NonNull BakedSubscriptions<E> getBaked() {
+        BakedSubscriptions<E> baked = this.baked;
+        return baked != null ? baked : this.bakeIfDirty();
+    }
+
+    private synchronized BakedSubscriptions<E> bakeIfDirty() {
+        if (this.baked == null) {
+            this.bake();
+        }
+
+        return this.baked;
+    }
+
+    /**
+     * Returns if mutations are baked lazily, on the next read.
+     *
+     * @return {@code true} if baking is deferred.
+     */
+    public boolean isLazy() {
+        return this.lazy;
+    }
+
+    /**
+     * Gets how many times the subscriptions have been baked.
+     *
+     * @return the amount of bakes.
+     */
+    public long getBakeCount() {
+        return this.bakes;
+    }
+
+    /**
+     * Gets how many mutations didn't need their own bake, as they happened while this was already dirty.
+     *
+     * @return the amount of bakes avoided.
+     */
+    public long getAvoidedBakeCount() {
+        return this.avoidedBakes;
+    }
+
+    /**
+     * Gets the exact event type these subscriptions are registered to, if it is known.
+     *
+     * @return the event type, or {@code null} if this wasn't created for a specific type.
+     */
+    public @Nullable Class<? extends E> getEventType() {
+        return this.eventType;
+    }
+
+    /**
+     * Returns if this holds the subscriptions of a {@link Cancellable} event type.
+     *
+     * @return {@code true} if the event type is known to be cancellable.
+     */
+    public boolean isCancellable() {
+        return this.cancellable;
+    }
+
+    /**
+     * Returns if this holds the subscriptions of a {@link Sticky} event type.
+     * Posts and registrations of sticky types synchronize on this, so a subscription sees every event exactly once.
+     *
+     * @return {@code true} if the last posted events are kept.
+     */
+    public boolean isSticky() {
+        return this.sticky != null;
+    }
+
+    /**
+     * Gets the last posted events, one per key, in the order they were posted.
+     *
+     * @return a copy of the events kept, empty if the event type isn't sticky.
+     */
+    public synchronized @NonNull List<E> getSticky() {
+        return this.sticky == null ? Collections.emptyList() : this.sticky.values();
+    }
+
+    /**
+     * Keeps an event as the last one posted of its key.
+     *
+     * @param event the event being posted.
+     */
+    synchronized void putSticky(@NonNull E event) {
+        if (this.sticky != null) {
+            this.sticky.put(event);
+        }
+    }
+
+    /**
+     * Forgets the last posted events, so they won't be delivered to later subscriptions.
+     */
+    public synchronized void clearSticky() {
+        if (this.sticky != null) {
+            this.sticky.clear();
+        }
+    }
+
+    /**
+     * Forgets the last posted event of a key, so it won't be delivered to later subscriptions.
+     *
+     * @param key the key of the event, as returned by the method named in {@link Sticky#key()}.
+     * @return {@code true} if an event was kept for the key.
+     */
+    public synchronized boolean clearSticky(@NonNull Object key) {
+        return this.sticky != null && this.sticky.remove(key);
     }
 
     /**
      * Refresh currently registered subscriptions
      */
-    @SuppressWarnings({"unchecked"})
+    @SuppressWarnings({"unchecked", "NonAtomicOperationOnVolatileField"})
     public synchronized void bake() {
+        Object recording = BusRecorder.beginBake();
+
         List<Subscription<E>> entries = new ArrayList<>();
         for (Entry<Integer, List<Subscription<E>>> entry : this.subscriptions.entrySet()) {
             entries.addAll(entry.getValue());
         }
 
         entries.sort(Subscription.SUBSCRIPTION_COMPARATOR);
-        this.subscriptionsArray = entries.toArray(new Subscription[0]);
+        this.baked = new BakedSubscriptions<>(entries.toArray(new Subscription[0]), this.cancellable);
+        this.bakes++;
+
+        if (recording != null) {
+            BusRecorder.endBake(recording, this.eventType, entries.size());
+        }
+    }
+
+    /**
+     * Bakes after a mutation, or only marks this as dirty when baking lazily.
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    private void changed() {
+        if (!this.lazy) {
+            this.bake();
+        } else if (this.baked != null) {
+            this.baked = null;
+        } else {
+            this.avoidedBakes++;
+        }
     }
 
     /**
@@ -88,7 +266,9 @@ public class SimpleSubscriptions<E> implements Subscriptions<E> {
     @Override
     public synchronized void register(Subscription<E> subscription) {
         this.subscriptions.computeIfAbsent(subscription.getOrder(), integer -> new ArrayList<>()).add(subscription);
-        this.bake();
+        this.changed();
+
+        BusRecorder.registration(this.eventType, true, 1);
     }
 
     /**
@@ -108,19 +288,21 @@ public class SimpleSubscriptions<E> implements Subscriptions<E> {
      */
     @Override
     public synchronized void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
-        boolean changed = false;
+        int changed = 0;
 
         for (List<Subscription<E>> subscriptions : this.subscriptions.values()) {
             for (ListIterator<Subscription<E>> iterator = subscriptions.listIterator(); iterator.hasNext(); ) {
                 if (predicate.test(iterator.next())) {
                     iterator.remove();
-                    changed = true;
+                    changed++;
                 }
             }
         }
 
-        if (changed) {
-            this.bake();
+        if (changed != 0) {
+            this.changed();
+
+            BusRecorder.registration(this.eventType, false, changed);
         }
     }
 
@@ -0,0 +1,170 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.data.Sticky;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.annotation.Inherited;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+
+/**
+ * The last posted events of a {@link Sticky} event type, guarded by the lock of the {@link SimpleSubscriptions} holding them.
+ */
+final class StickyEvents<E> {
+
+    private static final ClassValue<Optional<Sticky>> STICKY = new ClassValue<Optional<Sticky>>() {
+        @Override
+        protected Optional<Sticky> computeValue(Class<?> eventType) {
+            return Optional.ofNullable(find(eventType));
+        }
+    };
+
+    private final @Nullable MethodHandle key;
+
+    private @Nullable E last;
+    private final Map<Object, E> keyed = new LinkedHashMap<>();
+
+    StickyEvents(@NonNull Class<?> eventType) {
+        String key = STICKY.get(eventType).orElseThrow(() -> new IllegalArgumentException(eventType + " isn't sticky")).key();
+
+        if (key.isEmpty()) {
+            this.key = null;
+        } else {
+            try {
+                this.key = MethodHandles.publicLookup().unreflect(eventType.getMethod(key))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Sticky event " + eventType + " has no public key method " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Returns if events of a type are sticky.
+     *
+     * @param eventType the exact type of event.
+     * @return {@code true} if the type, or a supertype, is annotated with @{@link Sticky}.
+     */
+    static boolean isSticky(@NonNull Class<?> eventType) {
+        return STICKY.get(eventType).isPresent();
+    }
+
+    /**
+     * Finds the @{@link Sticky} annotation of a type, on its superclasses first, then on the interfaces
+     * they implement breadth first, as {@link Inherited} annotations of interfaces aren't inherited.
+     *
+     * @param eventType the exact type of event.
+     * @return the annotation found, or {@code null} if the type isn't sticky.
+     */
+    private static @Nullable Sticky find(Class<?> eventType) {
+        Sticky sticky = eventType.getAnnotation(Sticky.class);
+        if (sticky != null) {
+            return sticky;
+        }
+
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+
+        Set<Class<?>> seen = new HashSet<>();
+        Class<?> type;
+        while ((type = interfaces.poll()) != null) {
+            if (!seen.add(type)) {
+                continue;
+            }
+
+            sticky = type.getAnnotation(Sticky.class);
+            if (sticky != null) {
+                return sticky;
+            }
+
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+
+        return null;
+    }
+
+    /**
+     * Keeps an event, replacing the last one of its key.
+     *
+     * @param event the event posted.
+     * @throws IllegalArgumentException if the event is the view of an {@link EventSlab}.
+     */
+    void put(@NonNull E event) {
+        EventSlab.checkNotView(event, "a sticky event type");
+
+        if (this.key == null) {
+            this.last = event;
+            return;
+        }
+
+        Object key;
+        try {
+            key = (Object) this.key.invokeExact((Object) event);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to get the sticky key of " + event, e);
+        }
+
+        // re-inserted, so the events stay in the order they were last posted
+        this.keyed.remove(key);
+        this.keyed.put(key, event);
+    }
+
+    /**
+     * Gets the events kept, in the order they were posted.
+     *
+     * @return a copy of the events kept.
+     */
+    @NonNull List<E> values() {
+        if (this.key == null) {
+            return this.last == null ? Collections.emptyList() : Collections.singletonList(this.last);
+        }
+
+        return new ArrayList<>(this.keyed.values());
+    }
+
+    /**
+     * Forgets the event kept for a key.
+     *
+     * @param key the key of the event.
+     * @return {@code true} if an event was kept for the key.
+     */
+    boolean remove(@NonNull Object key) {
+        return this.keyed.remove(key) != null;
+    }
+
+    void clear() {
+        this.last = null;
+        this.keyed.clear();
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.PostResult;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * The per-thread state of a bus that queues re-entrant posts, so a post from inside a subscription
+ * runs after the current dispatch finishes instead of recursing into it.
+ */
+final class Trampoline<E> {
+
+    private final Queue<Pending<E>> queue = new ArrayDeque<>();
+
+    private boolean dispatching;
+    private int cascade;
+
+    /**
+     * Posts an event, queueing it if this thread is already dispatching.
+     *
+     * @param event the event to post.
+     * @param maxCascade the most events a single top level post may queue.
+     * @param post the function that dispatches an event right away.
+     * @return a future that completes once the event has been dispatched.
+     */
+    CompletableFuture<PostResult<? super E>> post(@NonNull E event, int maxCascade,
+                                                  @NonNull Function<E, CompletableFuture<PostResult<? super E>>> post) {
+        if (this.dispatching) {
+            if (this.cascade >= maxCascade) {
+                CompletableFuture<PostResult<? super E>> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException(
+                        "Cascade of " + event.getClass().getName() + " exceeds the maximum of " + maxCascade + " queued posts."
+                ));
+
+                return future;
+            }
+
+            Pending<E> pending = new Pending<>(event);
+            this.queue.add(pending);
+            this.cascade++;
+
+            return pending.future;
+        }
+
+        this.dispatching = true;
+        try {
+            CompletableFuture<PostResult<? super E>> result = post.apply(event);
+
+            Pending<E> pending;
+            while ((pending = this.queue.poll()) != null) {
+                CompletableFuture<PostResult<? super E>> future = pending.future;
+
+                try {
+                    post.apply(pending.event).whenComplete((value, exception) -> {
+                        if (exception != null) {
+                            future.completeExceptionally(exception);
+                        } else {
+                            future.complete(value);
+                        }
+                    });
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            return result;
+        } finally {
+            this.dispatching = false;
+            this.cascade = 0;
+
+            // only left behind if dispatching itself failed
+            Pending<E> pending;
+            while ((pending = this.queue.poll()) != null) {
+                pending.future.completeExceptionally(new IllegalStateException("Dispatch of the cascade was interrupted."));
+            }
+        }
+    }
+
+    private static final class Pending<E> {
+
+        private final E event;
+        private final CompletableFuture<PostResult<? super E>> future = new CompletableFuture<>();
+
+        private Pending(E event) {
+            this.event = event;
+        }
+
+    }
+
+}
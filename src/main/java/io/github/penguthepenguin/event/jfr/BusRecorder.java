@@ -0,0 +1,139 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.jfr;
+
+import io.github.penguthepenguin.event.Subscription;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Records the activity of buses as JDK Flight Recorder events.
+ * <p>
+ * This is the Java 8 version, where every method does nothing, so the JIT removes the calls entirely.
+ * The jar also holds a Java 11 version under {@code META-INF/versions/11} that emits the events,
+ * where the {@code begin} methods return {@code null} unless a recording has their event enabled.
+ * Callers only call the matching {@code end} method if they got a recording back.
+ */
+public final class BusRecorder {
+
+    private BusRecorder() {
+    }
+
+    /**
+     * Starts timing a post.
+     *
+     * @return the recording, or {@code null} if posts aren't recorded.
+     */
+    public static @Nullable Object beginPost() {
+        return null;
+    }
+
+    /**
+     * Commits a post.
+     *
+     * @param recording the recording returned by {@link #beginPost()}.
+     * @param eventType the class of the event posted.
+     * @param subscriptions the amount of subscriptions of its class.
+     */
+    public static void endPost(Object recording, Class<?> eventType, int subscriptions) {
+    }
+
+    /**
+     * Starts timing a single subscription.
+     *
+     * @return the recording, or {@code null} if slow subscriptions aren't recorded.
+     */
+    public static @Nullable Object beginDispatch() {
+        return null;
+    }
+
+    /**
+     * Returns if a recording has single subscriptions enabled, so they must be called one by one to be timed.
+     *
+     * @return {@code true} if slow subscriptions are recorded.
+     */
+    public static boolean isDispatchRecorded() {
+        return false;
+    }
+
+    /**
+     * Commits a subscription if it took longer than the threshold of the recording.
+     *
+     * @param recording the recording returned by {@link #beginDispatch()}.
+     * @param eventType the class of the event posted.
+     * @param subscription the subscription called.
+     */
+    public static void endDispatch(Object recording, Class<?> eventType, Subscription<?> subscription) {
+    }
+
+    /**
+     * Starts timing the bake of the subscriptions of an event type.
+     *
+     * @return the recording, or {@code null} if bakes aren't recorded.
+     */
+    public static @Nullable Object beginBake() {
+        return null;
+    }
+
+    /**
+     * Commits a bake.
+     *
+     * @param recording the recording returned by {@link #beginBake()}.
+     * @param eventType the event type baked, or {@code null} if it isn't known.
+     * @param subscriptions the amount of subscriptions baked.
+     */
+    public static void endBake(Object recording, @Nullable Class<?> eventType, int subscriptions) {
+    }
+
+    /**
+     * Records a subscription being registered or unregistered.
+     *
+     * @param eventType the event type of the subscriptions, or {@code null} if it isn't known.
+     * @param registered {@code true} if subscriptions were registered, {@code false} if they were unregistered.
+     * @param changed the amount of subscriptions registered or unregistered.
+     */
+    public static void registration(@Nullable Class<?> eventType, boolean registered, int changed) {
+    }
+
+    /**
+     * Starts timing the generation of an event class.
+     *
+     * @return the recording, or {@code null} if generations aren't recorded.
+     */
+    public static @Nullable Object beginGeneration() {
+        return null;
+    }
+
+    /**
+     * Commits the generation of an event class.
+     *
+     * @param recording the recording returned by {@link #beginGeneration()}.
+     * @param eventType the abstract event type.
+     * @param generatedClass the class generated for it.
+     * @param cached if the class was defined from cached bytecode rather than generated.
+     */
+    public static void endGeneration(Object recording, Class<?> eventType, Class<?> generatedClass, boolean cached) {
+    }
+
+}
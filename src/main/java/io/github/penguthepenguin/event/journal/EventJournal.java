@@ -0,0 +1,297 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.journal;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An append-only log of generated events, split into memory-mapped segments of a fixed size.
+ * <p>
+ * Every event is written by its generated {@link EventCodec}, and read back by the codec of its event type
+ * as generated by an {@link EventGeneratorCache}, so the journal survives restarts of the process.
+ * Appending is synchronized, and replaying only reads up to what was appended when it began.
+ */
+public final class EventJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsync;
+
+    private final EventGeneratorCache<?, ?> generators;
+    private final ClassLoader classLoader;
+
+    private JournalSegment segment;
+    private boolean closed;
+
+    private EventJournal(Builder builder) throws IOException {
+        this.directory = Files.createDirectories(builder.directory);
+        this.segmentSize = builder.segmentSize;
+        this.fsync = builder.fsync;
+        this.generators = builder.generators;
+        this.classLoader = builder.classLoader;
+
+        List<Path> segments = this.segments();
+        long index = segments.isEmpty() ? 0 : JournalSegment.index(segments.get(segments.size() - 1));
+        this.segment = JournalSegment.open(this.directory, index, this.segmentSize);
+    }
+
+    /**
+     * Creates a builder for a journal.
+     *
+     * @param directory the directory of the journal's segments.
+     * @param generators the cache that events are regenerated by when replaying.
+     * @return the builder created.
+     */
+    public static @NonNull Builder builder(@NonNull Path directory, @NonNull EventGeneratorCache<?, ?> generators) {
+        return new Builder(directory, generators);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public FsyncPolicy getFsync() {
+        return this.fsync;
+    }
+
+    /**
+     * Appends a generated event.
+     *
+     * @param event the event to append.
+     * @return {@code false} if the event wasn't generated, so it can't be journaled.
+     * @throws Throwable if the event couldn't be encoded or written.
+     */
+    public boolean append(@NonNull Object event) throws Throwable {
+        GeneratedEvent<?, ?> generated = GeneratedEvent.forGenerated(event.getClass());
+        if (generated == null) {
+            return false;
+        }
+
+        this.append(generated, event);
+        return true;
+    }
+
+    /**
+     * Appends a generated event.
+     *
+     * @param generated the generated event that the event is an instance of.
+     * @param event the event to append.
+     * @throws IllegalArgumentException if the event doesn't fit in an empty segment.
+     * @throws Throwable if the event couldn't be encoded or written.
+     */
+    public synchronized void append(@NonNull GeneratedEvent<?, ?> generated, @NonNull Object event) throws Throwable {
+        Preconditions.checkState(!this.closed, "The journal is closed.");
+
+        if (!this.segment.append(generated, event)) {
+            this.roll();
+
+            if (!this.segment.append(generated, event)) {
+                throw new IllegalArgumentException("Event " + event + " doesn't fit in a segment of " + this.segmentSize + " bytes.");
+            }
+        }
+
+        if (this.fsync == FsyncPolicy.ALWAYS) {
+            this.segment.force();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (this.fsync != FsyncPolicy.NEVER) {
+            this.segment.force();
+        }
+
+        this.segment = JournalSegment.open(this.directory, this.segment.getIndex() + 1, this.segmentSize);
+    }
+
+    /**
+     * Forces every appended event to disk, whatever the fsync policy.
+     */
+    public synchronized void flush() {
+        this.segment.force();
+    }
+
+    /**
+     * Reads every event back in the order they were appended, streaming through one segment at a time.
+     *
+     * @param consumer the consumer of the events.
+     * @return the amount of events read.
+     * @throws IOException if the journal couldn't be read, or holds an event that can't be regenerated.
+     */
+    public long replay(@NonNull Consumer<Object> consumer) throws IOException {
+        long last;
+        int end;
+        ByteBuffer current;
+
+        synchronized (this) {
+            Preconditions.checkState(!this.closed, "The journal is closed.");
+
+            last = this.segment.getIndex();
+            end = this.segment.getPosition();
+            current = this.segment.view();
+        }
+
+        long count = 0;
+        for (Path path : this.segments()) {
+            long index = JournalSegment.index(path);
+            if (index > last) break;
+
+            ByteBuffer buffer = index == last ? current : JournalSegment.read(path);
+            count += this.replay(buffer, index == last ? end : buffer.capacity(), consumer);
+        }
+
+        return count;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private long replay(ByteBuffer buffer, int limit, Consumer<Object> consumer) throws IOException {
+        List<EventCodec> codecs = new ArrayList<>();
+        Object instance = this.generators.getInstance();
+
+        // the payload of each record is sliced from its own view, leaving the segment to be walked
+        ByteBuffer payload = buffer.duplicate();
+
+        long count = 0;
+        int position = 0;
+        for (int length; (length = JournalSegment.length(buffer, position, limit)) != 0; position += length) {
+            int tag = buffer.getInt(position + 4);
+
+            payload.limit(position + length);
+            payload.position(position + JournalSegment.HEADER);
+
+            if (tag < 0) {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+
+                try {
+                    Class type = Class.forName(name, false, this.classLoader);
+                    codecs.add(((EventGeneratorCache) this.generators).generate(type).getCodec());
+                } catch (ClassNotFoundException | RuntimeException e) {
+                    throw new IOException("Event " + name + " in the journal can't be regenerated.", e);
+                }
+                continue;
+            }
+
+            consumer.accept(codecs.get(tag).decode(instance, payload));
+            count++;
+        }
+
+        return count;
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory, JournalSegment::isSegment)) {
+            entries.forEach(segments::add);
+        }
+
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Closes this journal, forcing its events to disk unless the fsync policy is {@link FsyncPolicy#NEVER}.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.closed) return;
+
+        if (this.fsync != FsyncPolicy.NEVER) {
+            this.segment.force();
+        }
+        this.closed = true;
+    }
+
+    public static final class Builder {
+
+        private final Path directory;
+        private final EventGeneratorCache<?, ?> generators;
+
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private FsyncPolicy fsync = FsyncPolicy.SEGMENT;
+        private ClassLoader classLoader = EventJournal.class.getClassLoader();
+
+        private Builder(Path directory, EventGeneratorCache<?, ?> generators) {
+            this.directory = directory;
+            this.generators = generators;
+        }
+
+        /**
+         * Sets the size of each segment, which bounds the size of an event.
+         *
+         * @param segmentSize the size of a segment in bytes, {@link #DEFAULT_SEGMENT_SIZE} by default.
+         * @return this builder.
+         */
+        public Builder segmentSize(int segmentSize) {
+            Preconditions.checkArgument(segmentSize > JournalSegment.HEADER, "A segment needs more than %s bytes, given %s", JournalSegment.HEADER, segmentSize);
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets when appended events are forced to disk.
+         *
+         * @param fsync the fsync policy, {@link FsyncPolicy#SEGMENT} by default.
+         * @return this builder.
+         */
+        public Builder fsync(@NonNull FsyncPolicy fsync) {
+            this.fsync = fsync;
+            return this;
+        }
+
+        /**
+         * Sets the class loader that event types are loaded from when replaying.
+         *
+         * @param classLoader the class loader of the event types.
+         * @return this builder.
+         */
+        public Builder classLoader(@NonNull ClassLoader classLoader) {
+            this.classLoader = classLoader;
+            return this;
+        }
+
+        public EventJournal build() throws IOException {
+            return new EventJournal(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.journal;
+
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A memory-mapped segment of an {@link EventJournal}.
+ * <p>
+ * A segment is a sequence of records, each being an {@code int} length that includes its header,
+ * an {@code int} tag and a payload. A tag of {@code n >= 0} is an event of the n-th type defined in the segment,
+ * and a tag of {@code -n - 1} defines the n-th type by its UTF-8 name. A length of 0 marks the end of the segment.
+ * <p>
+ * The header of a record is written after its payload, and the header after it is zeroed first,
+ * so a torn append is never read back.
+ */
+final class JournalSegment {
+
+    static final int HEADER = 8;
+
+    private static final String PREFIX = "segment-";
+    private static final String EXTENSION = ".log";
+
+    private final long index;
+    private final MappedByteBuffer buffer;
+
+    // types defined in this segment, by name, so a type is defined once per segment
+    private final Map<String, Integer> types = new HashMap<>();
+    private int position;
+
+    private JournalSegment(long index, MappedByteBuffer buffer) {
+        this.index = index;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a segment, creating it if it doesn't exist, and recovers where to append to it.
+     */
+    static JournalSegment open(Path directory, long index, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(directory, index), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            JournalSegment segment = new JournalSegment(index, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size())));
+
+            ByteBuffer buffer = segment.buffer;
+            int position = 0;
+            for (int length; (length = length(buffer, position, buffer.capacity())) != 0; position += length) {
+                int tag = buffer.getInt(position + 4);
+                if (tag < 0) {
+                    segment.types.put(segment.name(position, length), -tag - 1);
+                }
+            }
+
+            segment.position = position;
+            return segment;
+        }
+    }
+
+    /**
+     * Maps a segment to be read.
+     */
+    static MappedByteBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Reads the length of a record.
+     *
+     * @return the length of the record including its header, or 0 if there is no complete record at the position.
+     */
+    static int length(ByteBuffer buffer, int position, int limit) {
+        if (position + HEADER > limit) {
+            return 0;
+        }
+
+        int length = buffer.getInt(position);
+        return length < HEADER || length > limit - position ? 0 : length;
+    }
+
+    static Path path(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, index, EXTENSION));
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(EXTENSION);
+    }
+
+    static long index(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+    }
+
+    long getIndex() {
+        return this.index;
+    }
+
+    int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Gets a view of this segment to be read, independent of appends.
+     */
+    ByteBuffer view() {
+        return this.buffer.duplicate();
+    }
+
+    /**
+     * Appends an event, defining its type first if this segment hasn't yet.
+     *
+     * @return {@code false} if the event doesn't fit in the rest of this segment, leaving it unchanged.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    boolean append(GeneratedEvent<?, ?> generated, Object event) throws Throwable {
+        EventCodec codec = generated.getCodec();
+        String name = generated.getEventType().getName();
+        Integer type = this.types.get(name);
+        boolean define = type == null;
+        int start = this.position;
+
+        try {
+            if (define) {
+                type = this.types.size();
+
+                this.buffer.position(start + HEADER);
+                this.buffer.put(name.getBytes(StandardCharsets.UTF_8));
+                this.commit(start, -type - 1);
+            }
+
+            int record = this.position;
+            this.buffer.position(record + HEADER);
+            codec.encode((GeneratedEventData<?>) event, this.buffer);
+            this.commit(record, type);
+        } catch (Throwable e) {
+            // ends the segment where it was, dropping the definition of the type if it was just written
+            if (start + 4 <= this.buffer.capacity()) {
+                this.buffer.putInt(start, 0);
+            }
+            this.position = start;
+
+            if (e instanceof BufferOverflowException || e instanceof IllegalArgumentException) {
+                return false;
+            }
+            throw e;
+        }
+
+        if (define) {
+            this.types.put(name, type);
+        }
+        return true;
+    }
+
+    /**
+     * Publishes the record whose payload was just written, ending at the position of the buffer.
+     */
+    private void commit(int record, int tag) {
+        int end = this.buffer.position();
+        if (end + 4 <= this.buffer.capacity()) {
+            this.buffer.putInt(end, 0);
+        }
+
+        this.buffer.putInt(record + 4, tag);
+        this.buffer.putInt(record, end - record);
+        this.position = end;
+    }
+
+    void force() {
+        this.buffer.force();
+    }
+
+    String name(int record, int length) {
+        byte[] bytes = new byte[length - HEADER];
+        ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(record + HEADER);
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
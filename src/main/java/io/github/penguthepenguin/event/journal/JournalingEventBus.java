@@ -0,0 +1,188 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.journal;
+
+import io.github.penguthepenguin.event.*;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * An {@link EventBus} that appends posted events to an {@link EventJournal} before dispatching them,
+ * so the state built by its subscribers can be recovered by {@link #replay() replaying} the journal.
+ * <p>
+ * Only generated events can be journaled, any other event is dispatched as is. An event that fails to be appended
+ * isn't dispatched either, and its post completes exceptionally.
+ */
+public class JournalingEventBus<E> implements EventBus<E> {
+
+    private final EventBus<E> bus;
+    private final EventJournal journal;
+    private final Predicate<Class<?>> journaled;
+
+    public JournalingEventBus(@NonNull EventBus<E> bus, @NonNull EventJournal journal) {
+        this(bus, journal, eventType -> true);
+    }
+
+    /**
+     * Creates a journaling bus.
+     *
+     * @param bus the bus that events are dispatched by.
+     * @param journal the journal that events are appended to, which is closed along with this bus.
+     * @param journaled whether events of a type should be journaled, given the type that declares their properties.
+     */
+    public JournalingEventBus(@NonNull EventBus<E> bus, @NonNull EventJournal journal, @NonNull Predicate<Class<?>> journaled) {
+        this.bus = bus;
+        this.journal = journal;
+        this.journaled = journaled;
+    }
+
+    public EventBus<E> getBus() {
+        return this.bus;
+    }
+
+    public EventJournal getJournal() {
+        return this.journal;
+    }
+
+    /**
+     * Posts every journaled event again, in the order they were posted, without journaling them twice.
+     *
+     * @return the amount of events replayed.
+     * @throws IOException if the journal couldn't be read.
+     */
+    @SuppressWarnings("unchecked")
+    public long replay() throws IOException {
+        return this.journal.replay(event -> this.bus.post((E) event));
+    }
+
+    @Override
+    public @NonNull Class<E> getEventType() {
+        return this.bus.getEventType();
+    }
+
+    @Override
+    public @NonNull Map<Class<? extends E>, Subscriptions<E>> getSubscriptions() {
+        return this.bus.getSubscriptions();
+    }
+
+    @Override
+    public void register(@NonNull Class<?> subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public void register(@NonNull Object subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled, context);
+    }
+
+    @Override
+    public void register(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
+        this.bus.register(eventType, subscription);
+    }
+
+    /**
+     * Appends an event to the journal if it is journaled, then posts it to all registered subscriptions.
+     *
+     * @param event the event to post.
+     * @return a CompletableFuture encapsulating its PostResult, completed exceptionally if the event couldn't be appended.
+     */
+    @Override
+    public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event) {
+        GeneratedEvent<?, ?> generated = GeneratedEvent.forGenerated(event.getClass());
+
+        if (generated != null && this.journaled.test(generated.getEventType())) {
+            try {
+                this.journal.append(generated, event);
+            } catch (Throwable e) {
+                CompletableFuture<PostResult<? super T>> future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
+        return this.bus.post(event);
+    }
+
+    @Override
+    public void bindContext(@NonNull String context) {
+        this.bus.bindContext(context);
+    }
+
+    @Override
+    public int drain(@NonNull String context, int budget) {
+        return this.bus.drain(context, budget);
+    }
+
+    @Override
+    public void unregister(@NonNull Subscription<E> subscription) {
+        this.bus.unregister(subscription);
+    }
+
+    @Override
+    public void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
+        this.bus.unregisterIf(predicate);
+    }
+
+    @Override
+    public void unregisterAll() {
+        this.bus.unregisterAll();
+    }
+
+    @Override
+    public boolean isSubscribed(@NonNull Class<?> eventType) {
+        return this.bus.isSubscribed(eventType);
+    }
+
+    @Override
+    public @Nullable Subscription<? super E>[] getSubscriptions(@NonNull Class<?> eventType) {
+        return this.bus.getSubscriptions(eventType);
+    }
+
+    /**
+     * Closes the bus, then the journal.
+     */
+    @Override
+    public void close() {
+        this.bus.close();
+        this.journal.close();
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.replay;
+
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An event read back from a recorded stream.
+ */
+final class RecordedEvent {
+
+    /**
+     * The type of the event, the type declaring the properties of generated events,
+     * or {@code null} if it couldn't be loaded.
+     */
+    final @Nullable Class<?> type;
+    final @Nullable GeneratedEvent<?, ?> generated;
+
+    /**
+     * When the event was posted, in nanoseconds since the first event.
+     */
+    final long offset;
+    final byte flags;
+    final byte @Nullable [] payload;
+
+    RecordedEvent(@Nullable Class<?> type, @Nullable GeneratedEvent<?, ?> generated, long offset, byte flags, byte @Nullable [] payload) {
+        this.type = type;
+        this.generated = generated;
+        this.offset = offset;
+        this.flags = flags;
+        this.payload = payload;
+    }
+
+    boolean isCancelled() {
+        return (this.flags & EventStream.CANCELLED) != 0;
+    }
+
+}
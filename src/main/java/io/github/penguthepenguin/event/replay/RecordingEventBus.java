@@ -0,0 +1,294 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.replay;
+
+import io.github.penguthepenguin.event.*;
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * An {@link EventBus} that records every posted event to a stream, to be replayed by a {@link ReplayHarness}.
+ * <p>
+ * An event is recorded with its type, when it was posted, whether it ended up cancelled or failed, and for generated events
+ * the values of their @{@link io.github.penguthepenguin.event.data.Index} properties, captured before they are dispatched.
+ * Events are recorded once their post completes. A failure to write stops the recording, and is thrown by {@link #close()}.
+ */
+public class RecordingEventBus<E> implements EventBus<E> {
+
+    private static final int INITIAL_PAYLOAD = 256;
+
+    private final EventBus<E> bus;
+    private final DataOutputStream out;
+
+    private final Map<Class<?>, Integer> types = new IdentityHashMap<>();
+    private final ThreadLocal<ByteBuffer> payloads = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_PAYLOAD));
+
+    private long last;
+    private long recorded;
+    private @Nullable IOException failure;
+
+    /**
+     * Creates a recording bus, writing to a new file.
+     *
+     * @param bus the bus that events are dispatched by.
+     * @param path the file to record to, replaced if it exists.
+     * @throws IOException if the file couldn't be created.
+     */
+    public RecordingEventBus(@NonNull EventBus<E> bus, @NonNull Path path) throws IOException {
+        this(bus, Files.newOutputStream(path));
+    }
+
+    /**
+     * Creates a recording bus.
+     *
+     * @param bus the bus that events are dispatched by.
+     * @param out the stream to record to, which is closed along with this bus.
+     * @throws IOException if the header couldn't be written.
+     */
+    public RecordingEventBus(@NonNull EventBus<E> bus, @NonNull OutputStream out) throws IOException {
+        this.bus = bus;
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.out.writeInt(EventStream.MAGIC);
+        this.out.writeByte(EventStream.VERSION);
+        this.last = System.nanoTime();
+    }
+
+    public EventBus<E> getBus() {
+        return this.bus;
+    }
+
+    /**
+     * Gets the amount of events recorded so far.
+     *
+     * @return the amount of events recorded.
+     */
+    public synchronized long getRecorded() {
+        return this.recorded;
+    }
+
+    /**
+     * Posts an event to all registered subscriptions, recording it once the post completes.
+     *
+     * @param event the event to post.
+     * @return a CompletableFuture encapsulating its PostResult.
+     * @throws IllegalArgumentException if the event is the view of an {@link EventSlab}.
+     */
+    @Override
+    public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event) {
+        EventSlab.checkNotView(event, "a recording");
+        long time = System.nanoTime();
+
+        GeneratedEvent<?, ?> generated = GeneratedEvent.forGenerated(event.getClass());
+        byte[] payload = generated == null ? null : this.encode(generated, event);
+
+        CompletableFuture<PostResult<? super T>> result = this.bus.post(event);
+        result.whenComplete((value, exception) -> {
+            byte flags = 0;
+            if (event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                flags |= EventStream.CANCELLED;
+            }
+            if (exception != null || !value.wasSuccessful()) {
+                flags |= EventStream.FAILED;
+            }
+
+            this.record(generated != null ? generated.getEventType() : event.getClass(), generated != null, time, flags, payload);
+        });
+
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private byte[] encode(GeneratedEvent generated, Object event) {
+        ByteBuffer buffer = this.payloads.get();
+
+        while (true) {
+            buffer.clear();
+
+            try {
+                generated.getCodec().encode((GeneratedEventData) event, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                this.payloads.set(buffer);
+            }
+        }
+
+        byte[] payload = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(payload);
+        return payload;
+    }
+
+    private synchronized void record(Class<?> type, boolean generated, long time, byte flags, byte @Nullable [] payload) {
+        if (this.failure != null) return;
+
+        try {
+            Integer id = this.types.get(type);
+            if (id == null) {
+                id = this.types.size();
+                this.types.put(type, id);
+
+                this.out.writeByte(EventStream.TYPE);
+                this.out.writeUTF(type.getName());
+                this.out.writeBoolean(generated);
+            }
+
+            this.out.writeByte(EventStream.EVENT);
+            EventStream.writeVarLong(this.out, id);
+            EventStream.writeZigZag(this.out, time - this.last);
+            this.out.writeByte(flags);
+
+            if (payload != null) {
+                EventStream.writeVarLong(this.out, payload.length);
+                this.out.write(payload);
+            }
+
+            this.last = time;
+            this.recorded++;
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Writes the events recorded so far through to the stream.
+     *
+     * @throws UncheckedIOException if the recording failed.
+     */
+    public synchronized void flush() {
+        try {
+            if (this.failure != null) throw this.failure;
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public @NonNull Class<E> getEventType() {
+        return this.bus.getEventType();
+    }
+
+    @Override
+    public @NonNull Map<Class<? extends E>, Subscriptions<E>> getSubscriptions() {
+        return this.bus.getSubscriptions();
+    }
+
+    @Override
+    public void register(@NonNull Class<?> subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public void register(@NonNull Object subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled, context);
+    }
+
+    @Override
+    public void register(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
+        this.bus.register(eventType, subscription);
+    }
+
+    @Override
+    public void bindContext(@NonNull String context) {
+        this.bus.bindContext(context);
+    }
+
+    @Override
+    public int drain(@NonNull String context, int budget) {
+        return this.bus.drain(context, budget);
+    }
+
+    @Override
+    public void unregister(@NonNull Subscription<E> subscription) {
+        this.bus.unregister(subscription);
+    }
+
+    @Override
+    public void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
+        this.bus.unregisterIf(predicate);
+    }
+
+    @Override
+    public void unregisterAll() {
+        this.bus.unregisterAll();
+    }
+
+    @Override
+    public boolean isSubscribed(@NonNull Class<?> eventType) {
+        return this.bus.isSubscribed(eventType);
+    }
+
+    @Override
+    public @Nullable Subscription<? super E>[] getSubscriptions(@NonNull Class<?> eventType) {
+        return this.bus.getSubscriptions(eventType);
+    }
+
+    /**
+     * Closes the underlying bus, then the recording.
+     *
+     * @throws UncheckedIOException if the recording failed, or couldn't be closed.
+     */
+    @Override
+    public void close() {
+        try {
+            this.bus.close();
+        } finally {
+            synchronized (this) {
+                try {
+                    this.out.close();
+                    if (this.failure != null) throw this.failure;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.replay;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.PostResult;
+import io.github.penguthepenguin.event.data.Cancellable;
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Replays a stream of events recorded by a {@link RecordingEventBus} into any bus, to load it the way production did,
+ * and reports its throughput and the latencies of its posts.
+ * <p>
+ * The stream is read once when the harness is built. Every replay creates its events again before posting the first one,
+ * generated events from their recorded properties and any other event by a factory, so the replay only measures posting.
+ */
+public final class ReplayHarness {
+
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final List<RecordedEvent> events;
+    private final EventGeneratorCache<?, ?> generators;
+    private final ReplaySpeed speed;
+    private final Function<Class<?>, @Nullable Object> factory;
+
+    private ReplayHarness(Builder builder) throws IOException {
+        this.generators = builder.generators;
+        this.speed = builder.speed;
+        this.factory = builder.factory;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(builder.path), 64 * 1024))) {
+            this.events = read(in, builder.generators, builder.classLoader);
+        }
+    }
+
+    /**
+     * Creates a builder for a harness.
+     *
+     * @param path the file recorded by a {@link RecordingEventBus}.
+     * @param generators the cache that generated events are created again by.
+     * @return the builder created.
+     */
+    public static @NonNull Builder builder(@NonNull Path path, @NonNull EventGeneratorCache<?, ?> generators) {
+        return new Builder(path, generators);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<RecordedEvent> read(DataInputStream in, EventGeneratorCache<?, ?> generators, ClassLoader classLoader) throws IOException {
+        if (in.readInt() != EventStream.MAGIC) {
+            throw new IOException("Not a recorded stream of events.");
+        }
+
+        byte version = in.readByte();
+        if (version != EventStream.VERSION) {
+            throw new IOException("Unsupported version " + version + " of a recorded stream of events.");
+        }
+
+        List<Class<?>> types = new ArrayList<>();
+        List<GeneratedEvent<?, ?>> generatedTypes = new ArrayList<>();
+        List<Boolean> generatedFlags = new ArrayList<>();
+
+        List<RecordedEvent> events = new ArrayList<>();
+        long offset = 0;
+
+        for (int tag; (tag = in.read()) != -1; ) {
+            switch (tag) {
+                case EventStream.TYPE:
+                    String name = in.readUTF();
+                    boolean generated = in.readBoolean();
+
+                    Class<?> type;
+                    try {
+                        type = Class.forName(name, false, classLoader);
+                    } catch (ClassNotFoundException e) {
+                        type = null;
+                    }
+
+                    types.add(type);
+                    generatedFlags.add(generated);
+                    generatedTypes.add(type != null && generated ? ((EventGeneratorCache) generators).generate(type) : null);
+                    break;
+                case EventStream.EVENT:
+                    int id = (int) EventStream.readVarLong(in);
+                    if (id >= types.size()) {
+                        throw new IOException("Event of undeclared type " + id + " in the recorded stream.");
+                    }
+
+                    // the first event is the start of the replay, however long after the recording started
+                    long delta = EventStream.readZigZag(in);
+                    offset = events.isEmpty() ? 0 : offset + delta;
+
+                    byte flags = in.readByte();
+
+                    byte[] payload = null;
+                    if (generatedFlags.get(id)) {
+                        payload = new byte[(int) EventStream.readVarLong(in)];
+                        in.readFully(payload);
+                    }
+
+                    events.add(new RecordedEvent(types.get(id), generatedTypes.get(id), offset, flags, payload));
+                    break;
+                default:
+                    throw new IOException("Unknown record " + tag + " in the recorded stream.");
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Gets the amount of events recorded in the stream.
+     *
+     * @return the amount of events recorded.
+     */
+    public int getRecordedEvents() {
+        return this.events.size();
+    }
+
+    public ReplaySpeed getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Replays every recorded event into a bus, waiting for every post to complete.
+     *
+     * @param bus the bus to post the events to.
+     * @return the report of the replay.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public @NonNull <E> ReplayReport replay(@NonNull EventBus<E> bus) {
+        Object instance = this.generators.getInstance();
+
+        Object[] events = new Object[this.events.size()];
+        long[] offsets = new long[events.length];
+        int count = 0;
+        int recordedCancelled = 0;
+
+        for (RecordedEvent recorded : this.events) {
+            if (recorded.type == null) continue;
+
+            Object event = recorded.generated != null
+                    ? ((EventCodec) recorded.generated.getCodec()).decode(instance, ByteBuffer.wrap(recorded.payload))
+                    : this.factory.apply(recorded.type);
+            if (event == null || !bus.getEventType().isInstance(event)) continue;
+
+            events[count] = event;
+            offsets[count++] = recorded.offset;
+
+            if (recorded.isCancelled()) {
+                recordedCancelled++;
+            }
+        }
+
+        long[] latencies = new long[count];
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long begin;
+
+            if (this.speed == ReplaySpeed.RECORDED) {
+                begin = start + offsets[i] - offsets[0];
+                waitUntil(begin);
+            } else {
+                begin = System.nanoTime();
+            }
+
+            CompletableFuture<PostResult<? super E>> result = bus.post((E) events[i]);
+
+            int index = i;
+            CompletableFuture<?> completed = result.whenComplete((value, exception) -> {
+                latencies[index] = System.nanoTime() - begin;
+
+                if (exception != null || !value.wasSuccessful()) {
+                    failed.incrementAndGet();
+                }
+            });
+
+            if (!completed.isDone()) {
+                pending.add(completed);
+            }
+        }
+
+        for (CompletableFuture<?> future : pending) {
+            future.handle((value, exception) -> null).join();
+        }
+
+        long duration = System.nanoTime() - start;
+
+        int replayedCancelled = 0;
+        for (int i = 0; i < count; i++) {
+            if (events[i] instanceof Cancellable && ((Cancellable) events[i]).isCancelled()) {
+                replayedCancelled++;
+            }
+        }
+
+        Arrays.sort(latencies);
+        return new ReplayReport(count, this.events.size() - count, duration, recordedCancelled, replayedCancelled, failed.get(), latencies);
+    }
+
+    private static void waitUntil(long time) {
+        long remaining;
+        while ((remaining = time - System.nanoTime()) > 0) {
+            // parking overshoots by tens of microseconds, so the end is spun
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Creates events that aren't generated with their public no argument constructor.
+     */
+    private static @Nullable Object construct(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static final class Builder {
+
+        private final Path path;
+        private final EventGeneratorCache<?, ?> generators;
+
+        private ReplaySpeed speed = ReplaySpeed.MAXIMUM;
+        private ClassLoader classLoader = ReplayHarness.class.getClassLoader();
+        private Function<Class<?>, @Nullable Object> factory = ReplayHarness::construct;
+
+        private Builder(Path path, EventGeneratorCache<?, ?> generators) {
+            this.path = path;
+            this.generators = generators;
+        }
+
+        /**
+         * Sets how fast events are posted.
+         *
+         * @param speed the speed, {@link ReplaySpeed#MAXIMUM} by default.
+         * @return this builder.
+         */
+        public Builder speed(@NonNull ReplaySpeed speed) {
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Sets the class loader that event types are loaded from.
+         *
+         * @param classLoader the class loader of the event types.
+         * @return this builder.
+         */
+        public Builder classLoader(@NonNull ClassLoader classLoader) {
+            this.classLoader = classLoader;
+            return this;
+        }
+
+        /**
+         * Sets how events that aren't generated are created, as only their type is recorded.
+         *
+         * @param factory the factory of events by their type, returning {@code null} to skip an event.
+         *                By default events are created by their public no argument constructor.
+         * @return this builder.
+         */
+        public Builder factory(@NonNull Function<Class<?>, @Nullable Object> factory) {
+            this.factory = factory;
+            return this;
+        }
+
+        /**
+         * Reads the recorded stream and creates the harness.
+         *
+         * @return the harness created.
+         * @throws IOException if the stream couldn't be read.
+         */
+        public ReplayHarness build() throws IOException {
+            return new ReplayHarness(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.replay;
+
+import com.google.common.base.Preconditions;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of replaying a recorded stream of events into a bus.
+ */
+@Getter
+public final class ReplayReport {
+
+    /**
+     * The amount of events posted.
+     */
+    private final int events;
+
+    /**
+     * The amount of recorded events that couldn't be created again, and weren't posted.
+     */
+    private final int skipped;
+
+    /**
+     * How long posting every event took, in nanoseconds.
+     */
+    private final long durationNanos;
+
+    /**
+     * The amount of events that were cancelled when they were recorded, and when they were replayed.
+     */
+    private final int recordedCancelled;
+    private final int replayedCancelled;
+
+    /**
+     * The amount of posts that completed with a failure.
+     */
+    private final int failed;
+
+    // sorted
+    @Getter(AccessLevel.NONE)
+    private final long[] latencies;
+
+    ReplayReport(int events, int skipped, long durationNanos, int recordedCancelled, int replayedCancelled, int failed, long[] latencies) {
+        this.events = events;
+        this.skipped = skipped;
+        this.durationNanos = durationNanos;
+        this.recordedCancelled = recordedCancelled;
+        this.replayedCancelled = replayedCancelled;
+        this.failed = failed;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Gets the amount of events posted per second.
+     *
+     * @return the throughput.
+     */
+    public double getThroughput() {
+        return this.durationNanos == 0 ? 0 : this.events * (double) TimeUnit.SECONDS.toNanos(1) / this.durationNanos;
+    }
+
+    /**
+     * Gets a percentile of the latencies of every post, from when it was posted until its future completed.
+     *
+     * @param percentile the percentile, such as {@code 99.9}.
+     * @return the latency in nanoseconds, or {@code 0} if no event was posted.
+     */
+    public long getLatency(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "The percentile must be between 0 and 100, given %s", percentile);
+        if (this.latencies.length == 0) return 0;
+
+        int index = (int) Math.ceil(percentile / 100 * this.latencies.length) - 1;
+        return this.latencies[Math.max(0, index)];
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return String.format("%d events in %.3f ms (%.0f/s), %d skipped, %d failed, cancelled %d recorded / %d replayed, "
+                        + "latency p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns",
+                this.events, this.durationNanos / 1e6, this.getThroughput(), this.skipped, this.failed,
+                this.recordedCancelled, this.replayedCancelled,
+                this.getLatency(50), this.getLatency(90), this.getLatency(99), this.getLatency(99.9), this.getLatency(100)
+        );
+    }
+
+}
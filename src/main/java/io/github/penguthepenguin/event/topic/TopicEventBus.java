@@ -0,0 +1,364 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.topic;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import io.github.penguthepenguin.event.*;
+import io.github.penguthepenguin.event.data.Acceptor;
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.generic.SimpleEventBus;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * An {@link EventBus} that also routes events by hierarchical topics, such as {@code region.eu.player.join}.
+ * <p>
+ * Subscriptions register a pattern of words separated by dots, where {@code *} matches exactly one word and
+ * {@code #} matches any amount of them, including none. The patterns are held in a trie, and the subscriptions
+ * matching a topic are cached along with the stamps of the trie nodes the topic went through, so posting to a known
+ * topic is a single lookup. Changing a pattern only moves the stamps of its own nodes, and just the topics that went
+ * through them are matched again the next time they are posted to, rather than every cached topic.
+ * <p>
+ * Events posted without a topic are routed by their class by the underlying bus.
+ */
+public class TopicEventBus<E> implements EventBus<E> {
+
+    public static final int DEFAULT_CACHE_SIZE = 64 * 1024;
+
+    private static final Splitter WORDS = Splitter.on('.');
+
+    private final EventBus<E> bus;
+    private final Acceptor<E> acceptor;
+
+    private final TopicTrie<E> trie = new TopicTrie<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final @Nullable Cache<String, TopicTrie.Match<E>> cache;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TopicEventBus(@NonNull EventBus<E> bus) {
+        this(bus, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a topic bus, that accepts events for topic subscriptions the way the underlying bus does
+     * if it is a {@link SimpleEventBus}.
+     *
+     * @param bus the bus that events without a topic are posted to.
+     * @param cacheSize the most topics whose subscriptions are cached, or {@code 0} to match every post against the trie.
+     */
+    public TopicEventBus(@NonNull EventBus<E> bus, int cacheSize) {
+        this(bus, cacheSize, bus instanceof SimpleEventBus
+                ? ((SimpleEventBus<E>) bus).getAcceptor()
+                : Acceptor.nonCancelingWhenNotAcceptingCancelled());
+    }
+
+    /**
+     * Creates a topic bus.
+     *
+     * @param bus the bus that events without a topic are posted to.
+     * @param cacheSize the most topics whose subscriptions are cached, or {@code 0} to match every post against the trie.
+     * @param acceptor the acceptor deciding if a topic subscription handles an event.
+     */
+    public TopicEventBus(@NonNull EventBus<E> bus, int cacheSize, @NonNull Acceptor<E> acceptor) {
+        Preconditions.checkArgument(cacheSize >= 0, "The cache size can't be negative, given %s", cacheSize);
+        this.bus = bus;
+        this.acceptor = acceptor;
+        this.cache = cacheSize == 0 ? null : CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    public EventBus<E> getBus() {
+        return this.bus;
+    }
+
+    /**
+     * Subscribes a handler to the topics matching a pattern.
+     *
+     * @param pattern the pattern of topics, words separated by dots that may be {@code *} or {@code #}.
+     * @param handler the handler to be registered.
+     * @return the subscription that was registered.
+     */
+    public @NonNull TopicSubscription<E> subscribe(@NonNull String pattern, @NonNull EventHandler<? super E> handler) {
+        return this.subscribe(pattern, handler, PostOrder.NORMAL, false);
+    }
+
+    /**
+     * Subscribes a handler to the topics matching a pattern.
+     *
+     * @param pattern the pattern of topics, words separated by dots that may be {@code *} or {@code #}.
+     * @param handler the handler to be registered.
+     * @param order the order in which the handler should be called.
+     * @param ignoreCancelled weather this handler should ignore cancelled events.
+     * @return the subscription that was registered.
+     */
+    public @NonNull TopicSubscription<E> subscribe(@NonNull String pattern, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
+        List<String> words = words(pattern);
+        for (String word : words) {
+            Preconditions.checkArgument(word.equals(TopicTrie.ONE) || word.equals(TopicTrie.ANY) || word.indexOf('*') < 0 && word.indexOf('#') < 0,
+                    "Wildcards must be whole words, given %s", pattern
+            );
+        }
+
+        TopicSubscription<E> subscription = new TopicSubscription<>(
+                order, this, this.getEventType(), handler, !ignoreCancelled, pattern, words, this.sequence.getAndIncrement()
+        );
+
+        this.lock.writeLock().lock();
+        try {
+            this.trie.add(subscription);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Posts an event to the subscriptions of every pattern matching a topic, in their order.
+     *
+     * @param topic the topic, words separated by dots.
+     * @param event the event to post.
+     * @return a CompletableFuture encapsulating its PostResult.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull String topic, @NonNull E event) {
+        ImmutableMap.Builder<Subscription<? super E>, Throwable> exceptions = null;
+
+        for (Subscription<E> subscription : this.getSubscriptions(topic)) {
+            if (!this.acceptor.accepts(this.getEventType(), event, subscription)) continue;
+
+            try {
+                subscription.on(event);
+            } catch (Throwable e) {
+                if (exceptions == null) {
+                    exceptions = ImmutableMap.builder();
+                }
+
+                exceptions.put(subscription, e);
+            }
+        }
+
+        return CompletableFuture.completedFuture((PostResult) (exceptions == null
+                ? PostResult.of(event)
+                : PostResult.of(event, exceptions.build())
+        ));
+    }
+
+    /**
+     * Gets the subscriptions of every pattern matching a topic.
+     *
+     * @param topic the topic, words separated by dots.
+     * @return the subscriptions, sorted by their order then by when they were registered.
+     */
+    public @NonNull Subscription<E>[] getSubscriptions(@NonNull String topic) {
+        Cache<String, TopicTrie.Match<E>> cache = this.cache;
+        if (cache != null) {
+            TopicTrie.Match<E> cached = cache.getIfPresent(topic);
+            if (cached != null && cached.isCurrent()) {
+                return cached.getSubscriptions();
+            }
+        }
+
+        List<String> words = words(topic);
+
+        // matched under the read lock, so the stamps it is cached with are the ones of the trie it matched
+        this.lock.readLock().lock();
+        try {
+            TopicTrie.Match<E> match = this.trie.match(words, cache != null);
+            if (cache != null) {
+                cache.put(topic, match);
+            }
+
+            return match.getSubscriptions();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the amount of subscribed patterns.
+     *
+     * @return the amount of topic subscriptions.
+     */
+    public int getTopicSubscriptionCount() {
+        this.lock.readLock().lock();
+        try {
+            return this.trie.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> words(String topic) {
+        List<String> words = WORDS.splitToList(topic);
+        Preconditions.checkArgument(!words.contains(""), "Topics can't have empty words, given %s", topic);
+        return words;
+    }
+
+    @Override
+    public @NonNull Class<E> getEventType() {
+        return this.bus.getEventType();
+    }
+
+    @Override
+    public @NonNull Map<Class<? extends E>, Subscriptions<E>> getSubscriptions() {
+        return this.bus.getSubscriptions();
+    }
+
+    @Override
+    public void register(@NonNull Class<?> subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public void register(@NonNull Object subscriber) {
+        this.bus.register(subscriber);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled);
+    }
+
+    @Override
+    public @NonNull Subscription<E> register(@NonNull Class<? extends E> eventType, @NonNull EventHandler<? super E> handler, int order, boolean ignoreCancelled, @Nullable String context) {
+        return this.bus.register(eventType, handler, order, ignoreCancelled, context);
+    }
+
+    @Override
+    public void register(@NonNull Class<? extends E> eventType, @NonNull Subscription<E> subscription) {
+        this.bus.register(eventType, subscription);
+    }
+
+    /**
+     * Post an event to the subscriptions of its class, ignoring topics.
+     *
+     * @param event the event to post.
+     * @return a CompletableFuture encapsulating its PostResult.
+     */
+    @Override
+    public @NonNull <T extends E> CompletableFuture<PostResult<? super T>> post(@NonNull E event) {
+        return this.bus.post(event);
+    }
+
+    @Override
+    public void bindContext(@NonNull String context) {
+        this.bus.bindContext(context);
+    }
+
+    @Override
+    public int drain(@NonNull String context, int budget) {
+        return this.bus.drain(context, budget);
+    }
+
+    /**
+     * Unregister a subscription, from the topics or the underlying bus.
+     *
+     * @param subscription the subscription to unregister.
+     */
+    @Override
+    public void unregister(@NonNull Subscription<E> subscription) {
+        if (!(subscription instanceof TopicSubscription)) {
+            this.bus.unregister(subscription);
+            return;
+        }
+
+        TopicSubscription<E> topicSubscription = (TopicSubscription<E>) subscription;
+
+        this.lock.writeLock().lock();
+        try {
+            this.trie.remove(topicSubscription);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unregister all subscriptions that match the given {@link Predicate}, from the topics and the underlying bus.
+     *
+     * @param predicate the predicate to test the subscription should be removed.
+     */
+    @Override
+    public void unregisterIf(@NonNull Predicate<? super Subscription<E>> predicate) {
+        this.bus.unregisterIf(predicate);
+
+        this.lock.writeLock().lock();
+        try {
+            this.trie.removeIf(predicate);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unregister all the registered subscriptions, from the topics and the underlying bus.
+     */
+    @Override
+    public void unregisterAll() {
+        this.bus.unregisterAll();
+
+        this.lock.writeLock().lock();
+        try {
+            this.trie.clear();
+            if (this.cache != null) {
+                this.cache.invalidateAll();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isSubscribed(@NonNull Class<?> eventType) {
+        return this.bus.isSubscribed(eventType);
+    }
+
+    @Override
+    public @Nullable Subscription<? super E>[] getSubscriptions(@NonNull Class<?> eventType) {
+        return this.bus.getSubscriptions(eventType);
+    }
+
+    /**
+     * Unregisters every topic subscription, then closes the underlying bus.
+     */
+    @Override
+    public void close() {
+        this.unregisterAll();
+        this.bus.close();
+    }
+
+}
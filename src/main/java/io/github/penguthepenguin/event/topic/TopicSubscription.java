@@ -0,0 +1,76 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.topic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.generic.SimpleSubscription;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A subscription to the events posted to the topics matching a pattern.
+ */
+public class TopicSubscription<E> extends SimpleSubscription<E> {
+
+    /**
+     * Orders subscriptions by their order, then by when they were registered.
+     */
+    static final Comparator<TopicSubscription<?>> COMPARATOR = Comparator.<TopicSubscription<?>>comparingInt(TopicSubscription::getOrder)
+            .thenComparingLong(subscription -> subscription.sequence);
+
+    private final String pattern;
+    private final List<String> words;
+    private final long sequence;
+
+    TopicSubscription(int order, EventBus<E> bus, Class<? extends E> eventClass, EventHandler<? super E> handler, boolean acceptsCancelled,
+                      String pattern, List<String> words, long sequence) {
+        super(order, bus, eventClass, handler, acceptsCancelled);
+        this.pattern = pattern;
+        this.words = words;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the pattern of topics this is subscribed to.
+     *
+     * @return the pattern.
+     */
+    public @NonNull String getPattern() {
+        return this.pattern;
+    }
+
+    List<String> getWords() {
+        return this.words;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicSubscription{" + this.pattern + ", order=" + this.getOrder() + "}";
+    }
+
+}
@@ -0,0 +1,335 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.topic;
+
+import io.github.penguthepenguin.event.Subscription;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A trie of topic patterns, split into their words, where {@code *} matches a single word and {@code #} any amount of them.
+ * <p>
+ * Not thread safe, {@link TopicEventBus} guards it by a read / write lock. A {@link Match} may still be checked
+ * without the lock: the nodes only change their children through concurrent maps and volatile fields, and every
+ * node has a stamp of its own that moves whenever its subscriptions change or it is pruned.
+ */
+final class TopicTrie<E> {
+
+    static final String ONE = "*";
+    static final String ANY = "#";
+
+    private final Node<E> root = new Node<>(null, null);
+    private int size;
+
+    void add(TopicSubscription<E> subscription) {
+        Node<E> node = this.root;
+        for (String word : subscription.getWords()) {
+            node = node.child(word);
+        }
+
+        node.subscriptions.add(subscription);
+        node.stamp++;
+        this.size++;
+    }
+
+    boolean remove(TopicSubscription<E> subscription) {
+        Node<E> node = this.root;
+        for (String word : subscription.getWords()) {
+            node = node.get(word);
+            if (node == null) return false;
+        }
+
+        if (!node.subscriptions.remove(subscription)) return false;
+
+        node.stamp++;
+        this.size--;
+        node.prune();
+        return true;
+    }
+
+    /**
+     * Removes every subscription that matches a predicate.
+     *
+     * @return {@code true} if any subscription was removed.
+     */
+    boolean removeIf(Predicate<? super TopicSubscription<E>> predicate) {
+        int size = this.size;
+        this.removeIf(this.root, predicate);
+        return this.size != size;
+    }
+
+    private void removeIf(Node<E> node, Predicate<? super TopicSubscription<E>> predicate) {
+        for (Iterator<TopicSubscription<E>> iterator = node.subscriptions.iterator(); iterator.hasNext(); ) {
+            if (predicate.test(iterator.next())) {
+                iterator.remove();
+                node.stamp++;
+                this.size--;
+            }
+        }
+
+        for (Node<E> child : node.children()) {
+            this.removeIf(child, predicate);
+        }
+
+        node.prune();
+    }
+
+    void clear() {
+        for (Node<E> child : this.root.children()) {
+            child.pruned = true;
+        }
+
+        this.root.words.clear();
+        this.root.one = null;
+        this.root.any = null;
+        this.root.subscriptions.clear();
+        this.root.stamp++;
+        this.size = 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the subscriptions matching a topic.
+     *
+     * @param topic the words of the topic.
+     * @param tracked if the match should remember what it went through, so that {@link Match#isCurrent()} can tell
+     *                when a change to the trie affects it.
+     * @return the match, whose subscriptions are sorted by their order then by when they were registered.
+     */
+    @SuppressWarnings("unchecked")
+    Match<E> match(List<String> topic, boolean tracked) {
+        Set<TopicSubscription<E>> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        Match<E> match = new Match<>(tracked);
+        match(this.root, topic, 0, matches, match);
+
+        TopicSubscription<E>[] subscriptions = matches.toArray(new TopicSubscription[0]);
+        Arrays.sort(subscriptions, TopicSubscription.COMPARATOR);
+        match.subscriptions = subscriptions;
+        return match;
+    }
+
+    private static <E> void match(Node<E> node, List<String> topic, int index, Set<TopicSubscription<E>> matches, Match<E> match) {
+        Node<E> any = node.any;
+        if (any != null) {
+            // any amount of words, none included
+            for (int i = index; i <= topic.size(); i++) {
+                match(any, topic, i, matches, match);
+            }
+        } else {
+            match.missed(node, ANY);
+        }
+
+        if (index == topic.size()) {
+            matches.addAll(node.subscriptions);
+            match.matched(node);
+            return;
+        }
+
+        match.passed(node);
+
+        String word = topic.get(index);
+        Node<E> child = node.words.get(word);
+        if (child != null) {
+            match(child, topic, index + 1, matches, match);
+        } else {
+            match.missed(node, word);
+        }
+
+        Node<E> one = node.one;
+        if (one != null) {
+            match(one, topic, index + 1, matches, match);
+        } else {
+            match.missed(node, ONE);
+        }
+    }
+
+    /**
+     * The subscriptions matching a topic, along with the nodes it went through.
+     * <p>
+     * A change to a pattern can only affect the topics that ended on its node, or that looked for one of the nodes
+     * it created, so only those stop being current.
+     */
+    static final class Match<E> {
+
+        private final boolean tracked;
+        private Subscription<E>[] subscriptions;
+
+        // the nodes the topic ended on, with their stamps
+        private final List<Node<E>> matched;
+        private final List<Long> stamps;
+        // the nodes the topic went through, which must not have been pruned
+        private final List<Node<E>> passed;
+        // the nodes missing a child the topic looked for, which must still be missing
+        private final List<Node<E>> missing;
+        private final List<String> missingWords;
+
+        private Match(boolean tracked) {
+            this.tracked = tracked;
+            this.matched = tracked ? new ArrayList<>(2) : Collections.emptyList();
+            this.stamps = tracked ? new ArrayList<>(2) : Collections.emptyList();
+            this.passed = tracked ? new ArrayList<>(4) : Collections.emptyList();
+            this.missing = tracked ? new ArrayList<>(8) : Collections.emptyList();
+            this.missingWords = tracked ? new ArrayList<>(8) : Collections.emptyList();
+        }
+
+        Subscription<E>[] getSubscriptions() {
+            return this.subscriptions;
+        }
+
+        /**
+         * Returns if no change to the trie affected this match since it was made, without holding its lock.
+         *
+         * @return {@code true} if the subscriptions are still the ones matching the topic.
+         */
+        boolean isCurrent() {
+            if (!this.tracked) return false;
+
+            for (int i = 0; i < this.matched.size(); i++) {
+                if (this.matched.get(i).stamp != this.stamps.get(i)) return false;
+            }
+
+            for (Node<E> node : this.passed) {
+                if (node.pruned) return false;
+            }
+
+            for (int i = 0; i < this.missing.size(); i++) {
+                if (this.missing.get(i).find(this.missingWords.get(i)) != null) return false;
+            }
+
+            return true;
+        }
+
+        private void matched(Node<E> node) {
+            if (this.tracked) {
+                this.matched.add(node);
+                this.stamps.add(node.stamp);
+            }
+        }
+
+        private void passed(Node<E> node) {
+            if (this.tracked) {
+                this.passed.add(node);
+            }
+        }
+
+        // the wildcards are passed as the constants, so that they can't be mistaken for the same words of a topic
+        private void missed(Node<E> node, String word) {
+            if (this.tracked) {
+                this.missing.add(node);
+                this.missingWords.add(word);
+            }
+        }
+
+    }
+
+    private static final class Node<E> {
+
+        private final Node<E> parent;
+        private final String word;
+
+        private final Map<String, Node<E>> words = new ConcurrentHashMap<>(4);
+        private volatile Node<E> one;
+        private volatile Node<E> any;
+
+        private final List<TopicSubscription<E>> subscriptions = new ArrayList<>(1);
+
+        // only changed under the write lock, and read by matches without it
+        private volatile long stamp;
+        private volatile boolean pruned;
+
+        private Node(Node<E> parent, String word) {
+            this.parent = parent;
+            this.word = word;
+        }
+
+        private Node<E> get(String word) {
+            switch (word) {
+                case ONE:
+                    return this.one;
+                case ANY:
+                    return this.any;
+                default:
+                    return this.words.get(word);
+            }
+        }
+
+        /**
+         * Finds a child a match looked for, where the wildcards are only the constants.
+         */
+        @SuppressWarnings("StringEquality")
+        private @Nullable Node<E> find(String word) {
+            if (word == ONE) return this.one;
+            if (word == ANY) return this.any;
+            return this.words.get(word);
+        }
+
+        private Node<E> child(String word) {
+            switch (word) {
+                case ONE:
+                    return this.one != null ? this.one : (this.one = new Node<>(this, word));
+                case ANY:
+                    return this.any != null ? this.any : (this.any = new Node<>(this, word));
+                default:
+                    return this.words.computeIfAbsent(word, key -> new Node<>(this, key));
+            }
+        }
+
+        private List<Node<E>> children() {
+            List<Node<E>> children = new ArrayList<>(this.words.values());
+            if (this.one != null) children.add(this.one);
+            if (this.any != null) children.add(this.any);
+            return children;
+        }
+
+        /**
+         * Removes this from its parent while it is empty, and then its parent.
+         */
+        private void prune() {
+            Node<E> node = this;
+
+            while (node.parent != null && node.subscriptions.isEmpty() && node.words.isEmpty() && node.one == null && node.any == null) {
+                Node<E> parent = node.parent;
+                if (node == parent.one) {
+                    parent.one = null;
+                } else if (node == parent.any) {
+                    parent.any = null;
+                } else {
+                    parent.words.remove(node.word);
+                }
+
+                node.pruned = true;
+                node = parent;
+            }
+        }
+
+    }
+
+}
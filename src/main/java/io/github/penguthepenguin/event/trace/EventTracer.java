@@ -0,0 +1,460 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.trace;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.Subscription;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Traces the posts of a bus and the subscriptions they call as spans, linked to the span that caused them.
+ * <p>
+ * Every thread records into its own ring of entries, allocated once when it first posts, so tracing takes no lock
+ * and allocates nothing but for posts queued from inside a subscription. Once a ring is full, its oldest entries are
+ * overwritten. The rings can be written as Chrome Trace Event JSON, to be opened in a trace viewer such as Perfetto.
+ * Entries recorded while writing may be torn, so traces are best written once the posts of interest are done.
+ * <p>
+ * The end of a subscription shares its timestamp with whatever is recorded next on its thread, which is the begin of
+ * the next subscription or the end of the post, so a post of {@code n} subscriptions reads the clock {@code n + 2} times.
+ * A tracer can also sample only some of the posts that aren't caused by another: the rest aren't recorded at all,
+ * and are posted through the {@link io.github.penguthepenguin.event.generic.CompiledDispatcher} like untraced posts.
+ * <p>
+ * Sampling is the way to trace a busy bus. A traced post costs its clock reads, tens of nanoseconds each, and
+ * gives up the compiled dispatch, which for subscriptions that do little makes it over ten times slower than an
+ * untraced one. Sampling one post in 64 keeps the overhead to a few percent, as posts that aren't sampled only count
+ * down on their thread, and the subscriptions they call don't look up the thread's ring while no thread is tracing.
+ * <p>
+ * The ring of a thread that died is dropped once it has been written out.
+ */
+public class EventTracer {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private static final byte POST = 0;
+    private static final byte QUEUED_POST = 1;
+    private static final byte SUBSCRIPTION = 2;
+    private static final byte END = 3;
+    private static final byte QUEUE = 4;
+
+    /**
+     * The most queued posts remembered per thread, in case some are never dispatched.
+     */
+    private static final int MAX_QUEUED = 1024;
+
+    private final int capacity;
+    private final int sampleEvery;
+    private final long origin = System.nanoTime();
+
+    private final ThreadLocal<Ring> rings;
+    private final Queue<Ring> allRings = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threads = new AtomicInteger();
+    // the threads inside a traced span, so that threads outside of one can tell without looking up their ring
+    private final AtomicInteger active = new AtomicInteger();
+
+    public EventTracer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a tracer that traces every post, which is best kept to debugging as it slows down every post.
+     * See {@link #EventTracer(int, int)} to sample posts instead.
+     *
+     * @param capacity the entries kept per thread, a power of two. Every span takes two entries.
+     */
+    public EventTracer(int capacity) {
+        this(capacity, 1);
+    }
+
+    /**
+     * Creates a tracer that samples posts.
+     *
+     * @param capacity the entries kept per thread, a power of two. Every span takes two entries.
+     * @param sampleEvery the posts out of which one is traced on every thread, counting only posts that aren't
+     *                    caused by a traced span. Posts caused by a traced span are always traced.
+     */
+    public EventTracer(int capacity, int sampleEvery) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                "The capacity must be a positive power of two, given %s", capacity
+        );
+        Preconditions.checkArgument(sampleEvery > 0, "Posts must be sampled at least once in every %s", sampleEvery);
+
+        this.capacity = capacity;
+        this.sampleEvery = sampleEvery;
+        this.rings = ThreadLocal.withInitial(() -> {
+            Ring ring = new Ring(this.capacity, this.threads.incrementAndGet(), Thread.currentThread());
+            this.allRings.add(ring);
+            return ring;
+        });
+    }
+
+    /**
+     * Records that an event is being posted, and may be queued to run later on this thread. If it is posted from
+     * inside a span, such as a subscription, the span of its post will be linked to it once it runs.
+     *
+     * @param event the event being posted.
+     */
+    public void queue(@NonNull Object event) {
+        if (this.active.get() == 0) return;
+
+        Ring ring = this.rings.get();
+        if (ring.depth == 0) return;
+
+        long id = ++ring.lastId;
+        long parent = ring.stack[ring.depth - 1];
+        if (ring.queued == null) {
+            ring.queued = new IdentityHashMap<>();
+        } else if (ring.queued.size() >= MAX_QUEUED) {
+            ring.queued.clear();
+        }
+
+        ring.queued.put(event, new long[]{id, parent});
+        ring.write(QUEUE, ring.now(), id, parent, null);
+    }
+
+    /**
+     * Begins the span of a post, unless it isn't sampled.
+     *
+     * @param event the event posted.
+     * @return {@code true} if the post is traced, and {@link #endPost()} must be called once it is done.
+     */
+    public boolean beginPost(@NonNull Object event) {
+        Ring ring = this.rings.get();
+
+        long[] queued = ring.queued == null || ring.queued.isEmpty() ? null : ring.queued.remove(event);
+        if (queued != null) {
+            this.enter(ring);
+            ring.begin(QUEUED_POST, queued[0], queued[1], event.getClass());
+            return true;
+        }
+
+        if (ring.depth == 0) {
+            if (ring.unsampled > 0) {
+                ring.unsampled--;
+                return false;
+            }
+
+            ring.unsampled = this.sampleEvery - 1;
+        }
+
+        this.enter(ring);
+        ring.begin(POST, ++ring.lastId, ring.parent(), event.getClass());
+        return true;
+    }
+
+    private void enter(Ring ring) {
+        if (ring.depth == 0) {
+            this.active.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns if the current thread is inside a traced span, so the subscriptions it calls are recorded.
+     *
+     * @return {@code true} if the current thread is tracing.
+     */
+    public boolean isTracing() {
+        return this.active.get() != 0 && this.rings.get().depth != 0;
+    }
+
+    /**
+     * Ends the span of the current post.
+     */
+    public void endPost() {
+        Ring ring = this.rings.get();
+        ring.end();
+
+        if (ring.depth == 0) {
+            this.active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Begins the span of a subscription handling an event, if the post calling it is traced.
+     *
+     * @param subscription the subscription called.
+     */
+    public void beginSubscription(@NonNull Subscription<?> subscription) {
+        if (this.active.get() == 0) return;
+
+        Ring ring = this.rings.get();
+        if (ring.depth == 0) return;
+
+        ring.begin(SUBSCRIPTION, ++ring.lastId, ring.parent(), subscription);
+    }
+
+    /**
+     * Ends the span of the current subscription, at the time of whatever is recorded next on this thread.
+     */
+    public void endSubscription() {
+        if (this.active.get() == 0) return;
+
+        Ring ring = this.rings.get();
+        if (ring.depth == 0) return;
+
+        ring.pendingEnd = ring.stack[--ring.depth];
+    }
+
+    /**
+     * Writes the recorded spans of every thread as Chrome Trace Event JSON.
+     *
+     * @param out where to write the trace.
+     * @throws IOException if writing failed.
+     */
+    public void writeChromeTrace(@NonNull Appendable out) throws IOException {
+        out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+        boolean first = true;
+
+        for (Iterator<Ring> iterator = this.allRings.iterator(); iterator.hasNext(); ) {
+            Ring ring = iterator.next();
+            first = this.writeChromeTrace(ring, out, first);
+
+            // it will never record anything new
+            Thread thread = ring.thread.get();
+            if (thread == null || !thread.isAlive()) {
+                iterator.remove();
+            }
+        }
+
+        out.append("\n]}\n");
+    }
+
+    /**
+     * Writes the recorded spans of every thread as Chrome Trace Event JSON to a file.
+     *
+     * @param path the file to write the trace to.
+     * @throws UncheckedIOException if the file couldn't be written.
+     */
+    public void writeChromeTrace(@NonNull Path path) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            this.writeChromeTrace(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean writeChromeTrace(Ring ring, Appendable out, boolean first) throws IOException {
+        long tid = ring.ordinal;
+        first = separate(out, first);
+        out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(Long.toString(tid))
+                .append(",\"args\":{\"name\":");
+        quote(out, ring.threadName);
+        out.append("}}");
+
+        long end = ring.position;
+        long start = Math.max(0, end - this.capacity);
+
+        // spans whose begin was overwritten are left out, as are links to queues that were
+        Set<Long> begun = new HashSet<>();
+        Set<Long> queued = new HashSet<>();
+
+        for (long position = start; position < end; position++) {
+            int index = (int) (position & ring.mask);
+            byte kind = ring.kinds[index];
+            long id = ring.ids[index];
+
+            String ts = formatMicros(ring.times[index] - this.origin);
+
+            switch (kind) {
+                case POST:
+                case QUEUED_POST:
+                case SUBSCRIPTION:
+                    begun.add(id);
+                    first = separate(out, first);
+                    out.append("{\"name\":");
+                    Object name = ring.names[index];
+                    quote(out, name instanceof Class ? ((Class<?>) name).getName() : String.valueOf(name));
+                    out.append(",\"cat\":\"").append(kind == SUBSCRIPTION ? "subscription" : "post")
+                            .append("\",\"ph\":\"B\",\"ts\":").append(ts)
+                            .append(",\"pid\":1,\"tid\":").append(Long.toString(tid))
+                            .append(",\"args\":{\"id\":").append(Long.toString(id))
+                            .append(",\"parent\":").append(Long.toString(ring.parents[index])).append("}}");
+
+                    if (kind == QUEUED_POST && queued.contains(id)) {
+                        first = separate(out, first);
+                        flow(out, "f", id, ts, tid);
+                    }
+                    break;
+                case END:
+                    if (!begun.contains(id)) break;
+
+                    first = separate(out, first);
+                    out.append("{\"ph\":\"E\",\"ts\":").append(ts)
+                            .append(",\"pid\":1,\"tid\":").append(Long.toString(tid)).append("}");
+                    break;
+                case QUEUE:
+                    queued.add(id);
+                    first = separate(out, first);
+                    flow(out, "s", id, ts, tid);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown trace entry " + kind);
+            }
+        }
+
+        return first;
+    }
+
+    private static void flow(Appendable out, String phase, long id, String ts, long tid) throws IOException {
+        out.append("{\"name\":\"queued\",\"cat\":\"cascade\",\"ph\":\"").append(phase).append('"');
+        if (phase.equals("f")) {
+            out.append(",\"bp\":\"e\"");
+        }
+
+        out.append(",\"id\":").append(Long.toString(id)).append(",\"ts\":").append(ts)
+                .append(",\"pid\":1,\"tid\":").append(Long.toString(tid)).append("}");
+    }
+
+    private static boolean separate(Appendable out, boolean first) throws IOException {
+        out.append(first ? "\n" : ",\n");
+        return false;
+    }
+
+    private static String formatMicros(long nanos) {
+        return (nanos / 1000) + "." + String.format("%03d", nanos % 1000);
+    }
+
+    private static void quote(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * The entries of a single thread, as parallel arrays. Only written by its thread.
+     */
+    private static final class Ring {
+
+        private static final AtomicLongFieldUpdater<Ring> POSITION = AtomicLongFieldUpdater.newUpdater(Ring.class, "position");
+
+        private final long ordinal;
+        private final String threadName;
+        private final WeakReference<Thread> thread;
+        private final int mask;
+
+        private final byte[] kinds;
+        private final long[] times;
+        private final long[] ids;
+        private final long[] parents;
+        private final Object[] names;
+
+        private volatile long position;
+
+        // the ids of the spans open on this thread
+        private long[] stack = new long[32];
+        private int depth;
+
+        private long lastId;
+        private IdentityHashMap<Object, long[]> queued;
+
+        // the span that ended without a timestamp, written along with the next entry
+        private long pendingEnd;
+        // the posts still to skip before the next one is sampled
+        private int unsampled;
+
+        private Ring(int capacity, int ordinal, Thread thread) {
+            this.ordinal = ordinal;
+            this.threadName = thread.getName();
+            this.thread = new WeakReference<>(thread);
+            this.mask = capacity - 1;
+            this.kinds = new byte[capacity];
+            this.times = new long[capacity];
+            this.ids = new long[capacity];
+            this.parents = new long[capacity];
+            this.names = new Object[capacity];
+
+            // ids are unique across threads, so parents can be told apart in the trace
+            this.lastId = (long) ordinal << 40;
+        }
+
+        private long parent() {
+            return this.depth == 0 ? 0 : this.stack[this.depth - 1];
+        }
+
+        private void begin(byte kind, long id, long parent, Object name) {
+            if (this.depth == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+            }
+
+            this.stack[this.depth++] = id;
+            this.write(kind, this.now(), id, parent, name);
+        }
+
+        private void end() {
+            this.write(END, this.now(), this.stack[--this.depth], 0, null);
+        }
+
+        /**
+         * Reads the clock for a new entry, ending the pending span at the same time.
+         */
+        private long now() {
+            long time = System.nanoTime();
+
+            if (this.pendingEnd != 0) {
+                this.write(END, time, this.pendingEnd, 0, null);
+                this.pendingEnd = 0;
+            }
+
+            return time;
+        }
+
+        private void write(byte kind, long time, long id, long parent, Object name) {
+            long position = this.position;
+            int index = (int) (position & this.mask);
+
+            this.kinds[index] = kind;
+            this.times[index] = time;
+            this.ids[index] = id;
+            this.parents[index] = parent;
+            this.names[index] = name;
+
+            // ordered, so a reader on another thread sees the entry before its position
+            POSITION.lazySet(this, position + 1);
+        }
+
+    }
+
+}
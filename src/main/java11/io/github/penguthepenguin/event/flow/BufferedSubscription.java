@@ -0,0 +1,345 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.flow;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The buffer and demand of one subscriber of an {@link EventPublisher}.
+ * <p>
+ * Posts add to the buffer under its lock, and schedule a drain if there is demand for it.
+ * The drain runs on the publisher's executor, and is the only place the subscriber is signalled from,
+ * so its signals are never concurrent.
+ */
+final class BufferedSubscription<T> implements Flow.Subscription, EventHandler<Object>, Runnable {
+
+    private final EventPublisher<T> publisher;
+    private final Flow.Subscriber<? super T> subscriber;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = this.lock.newCondition();
+
+    // guarded by the lock
+    private final Object[] buffer;
+    private int head;
+    private int count;
+    private long demand;
+    private @Nullable Throwable error;
+    private boolean completed;
+    private boolean cancelled;
+
+    // drains requested since the running drain began, one drain runs while this is positive
+    private final AtomicInteger drains = new AtomicInteger(1);
+
+    // only touched by the drain
+    private boolean subscribed;
+    private boolean terminated;
+
+    private volatile @Nullable Subscription<?> subscription;
+    private volatile @Nullable EventBus<?> bus;
+
+    BufferedSubscription(EventPublisher<T> publisher, Flow.Subscriber<? super T> subscriber) {
+        this.publisher = publisher;
+        this.subscriber = subscriber;
+        this.buffer = new Object[publisher.getBufferSize()];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void subscribe(EventBus<?> bus, Class<? extends T> eventType, int order) {
+        this.bus = bus;
+        this.subscription = ((EventBus) bus).register(eventType, this, order);
+    }
+
+    /**
+     * Runs the first drain, that signals {@link Flow.Subscriber#onSubscribe(Flow.Subscription)}.
+     */
+    void start() {
+        this.execute();
+    }
+
+    /**
+     * Buffers an event posted to the bus.
+     */
+    @Override
+    public void handle(Object event) throws Throwable {
+        if (this.offer(event)) {
+            this.signal();
+        }
+    }
+
+    /**
+     * Adds an event to the buffer, as the overflow policy allows.
+     *
+     * @return {@code true} if the subscriber should be signalled.
+     */
+    private boolean offer(Object event) throws InterruptedException {
+        this.lock.lock();
+        try {
+            if (this.cancelled || this.completed || this.error != null) return false;
+
+            if (this.count == this.buffer.length) {
+                switch (this.publisher.getOverflow()) {
+                    case DROP_OLDEST:
+                        this.buffer[this.head] = null;
+                        this.head = (this.head + 1) % this.buffer.length;
+                        this.count--;
+                        this.publisher.dropped();
+                        break;
+                    case DROP_NEWEST:
+                        this.publisher.dropped();
+                        return false;
+                    case BLOCK:
+                        while (this.count == this.buffer.length) {
+                            this.notFull.await();
+                            if (this.cancelled || this.completed || this.error != null) return false;
+                        }
+                        break;
+                    case ERROR:
+                        this.error = new IllegalStateException("The buffer of " + this.buffer.length + " events overflowed");
+                        this.clear();
+                        return true;
+                }
+            }
+
+            this.buffer[(this.head + this.count) % this.buffer.length] = event;
+            this.count++;
+            return this.demand > 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        this.lock.lock();
+        try {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("A subscriber must request a positive amount of events, requested " + n);
+                this.clear();
+            } else {
+                long demand = this.demand + n;
+                this.demand = demand < 0 ? Long.MAX_VALUE : demand;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.signal();
+    }
+
+    @Override
+    public void cancel() {
+        this.lock.lock();
+        try {
+            this.cancelled = true;
+            this.clear();
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.signal();
+    }
+
+    /**
+     * Completes the subscriber once its buffer is drained.
+     */
+    void complete() {
+        this.lock.lock();
+        try {
+            this.completed = true;
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.signal();
+    }
+
+    // under the lock
+    private void clear() {
+        for (int i = 0; i < this.count; i++) {
+            this.buffer[(this.head + i) % this.buffer.length] = null;
+        }
+
+        this.head = 0;
+        this.count = 0;
+        this.notFull.signalAll();
+    }
+
+    private void signal() {
+        if (this.drains.getAndIncrement() == 0) {
+            this.execute();
+        }
+    }
+
+    private void execute() {
+        try {
+            this.publisher.getExecutor().execute(this);
+        } catch (RejectedExecutionException e) {
+            this.lock.lock();
+            try {
+                this.error = e;
+                this.clear();
+            } finally {
+                this.lock.unlock();
+            }
+
+            // nothing can signal the subscriber now, so it is only unsubscribed
+            this.drains.set(0);
+            this.unsubscribe();
+        }
+    }
+
+    /**
+     * Drains the buffer as far as the subscriber's demand goes.
+     */
+    @Override
+    public void run() {
+        int drains = 1;
+
+        do {
+            if (!this.terminated) {
+                this.drain();
+            }
+
+            drains = this.drains.addAndGet(-drains);
+        } while (drains != 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        if (!this.subscribed) {
+            this.subscribed = true;
+
+            try {
+                this.subscriber.onSubscribe(this);
+            } catch (Throwable e) {
+                this.fail(e);
+                return;
+            }
+        }
+
+        while (true) {
+            T event;
+            Throwable error;
+
+            this.lock.lock();
+            try {
+                if (this.cancelled) {
+                    this.terminate();
+                    return;
+                }
+
+                error = this.error;
+                if (error == null) {
+                    if (this.count == 0) {
+                        if (!this.completed) return;
+                    } else if (this.demand == 0) {
+                        return;
+                    }
+                }
+
+                if (error != null || this.count == 0) {
+                    this.terminate();
+                    event = null;
+                } else {
+                    event = (T) this.buffer[this.head];
+                    this.buffer[this.head] = null;
+                    this.head = (this.head + 1) % this.buffer.length;
+                    this.count--;
+
+                    if (this.demand != Long.MAX_VALUE) {
+                        this.demand--;
+                    }
+
+                    this.notFull.signal();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+
+            try {
+                if (event != null) {
+                    this.subscriber.onNext(event);
+                } else if (error != null) {
+                    this.subscriber.onError(error);
+                    return;
+                } else {
+                    this.subscriber.onComplete();
+                    return;
+                }
+            } catch (Throwable e) {
+                if (event == null) return; // already terminated, nothing left to signal
+
+                this.cancel();
+                this.fail(e);
+                return;
+            }
+        }
+    }
+
+    // the subscriber broke the specification by throwing, it is cancelled and signalled once
+    private void fail(Throwable e) {
+        this.terminate();
+
+        try {
+            this.subscriber.onError(e);
+        } catch (Throwable ignored) {
+            // nothing left to signal
+        }
+    }
+
+    private void terminate() {
+        if (!this.terminated) {
+            this.terminated = true;
+            this.unsubscribe();
+        }
+    }
+
+    private void unsubscribe() {
+        Subscription<?> subscription = this.subscription;
+        EventBus<?> bus = this.bus;
+        if (subscription != null && bus != null) {
+            this.unregister(bus, subscription);
+        }
+
+        this.publisher.terminated(this);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void unregister(EventBus bus, Subscription subscription) {
+        bus.unregister(subscription);
+    }
+
+}
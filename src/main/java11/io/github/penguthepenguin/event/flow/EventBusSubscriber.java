@@ -0,0 +1,109 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.flow;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.EventBus;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Subscriber} that posts every item it receives to a bus, needing Java 9 or later.
+ * <p>
+ * It keeps at most a fixed amount of items requested, requesting another as each post completes,
+ * so posts that are deferred to an execution context hold back the publisher.
+ */
+public final class EventBusSubscriber<E> implements Flow.Subscriber<E> {
+
+    private final EventBus<E> bus;
+    private final int prefetch;
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile Flow.@Nullable Subscription subscription;
+
+    /**
+     * Creates a subscriber posting to a bus.
+     *
+     * @param bus the bus to post to.
+     * @param prefetch the most items requested that haven't been posted yet.
+     */
+    public EventBusSubscriber(@NonNull EventBus<E> bus, int prefetch) {
+        Preconditions.checkArgument(prefetch > 0, "The prefetch must be positive, given %s", prefetch);
+        this.bus = bus;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void onSubscribe(Flow.@NonNull Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(this.prefetch);
+    }
+
+    @Override
+    public void onNext(@NonNull E item) {
+        Flow.Subscription subscription = this.subscription;
+        this.bus.post(item).whenComplete((result, e) -> subscription.request(1));
+    }
+
+    @Override
+    public void onError(@NonNull Throwable throwable) {
+        this.completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        this.completion.complete(null);
+    }
+
+    /**
+     * Cancels the subscription, posting no more items.
+     */
+    public void cancel() {
+        Flow.Subscription subscription = this.subscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+
+        this.completion.cancel(false);
+    }
+
+    /**
+     * Gets a future completed once the publisher completes, or completed exceptionally if it fails.
+     *
+     * @return the completion of the subscription.
+     */
+    public @NonNull CompletableFuture<Void> getCompletion() {
+        return this.completion;
+    }
+
+}
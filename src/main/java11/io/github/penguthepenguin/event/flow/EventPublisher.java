@@ -0,0 +1,228 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.flow;
+
+import com.google.common.base.Preconditions;
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.data.PostOrder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Flow.Publisher} of the events of a type posted to a bus, needing Java 9 or later.
+ * <p>
+ * Every subscriber gets its own bounded buffer, that posts only add to. Buffered events are delivered on an executor
+ * as the subscriber requests them, so a slow subscriber never stalls posting unless its {@link OverflowPolicy} blocks.
+ * Events are taken by a subscription on the bus, so cancelled events aren't published.
+ */
+public final class EventPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    private final EventBus<?> bus;
+    private final Class<? extends T> eventType;
+
+    private final int bufferSize;
+    private final OverflowPolicy overflow;
+    private final int order;
+    private final Executor executor;
+
+    private final Set<BufferedSubscription<T>> subscriptions = new CopyOnWriteArraySet<>();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean closed;
+
+    private EventPublisher(Builder<T> builder) {
+        this.bus = builder.bus;
+        this.eventType = builder.eventType;
+        this.bufferSize = builder.bufferSize;
+        this.overflow = builder.overflow;
+        this.order = builder.order;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Creates a builder for a publisher of an event type.
+     *
+     * @param bus the bus the events are posted to.
+     * @param eventType the exact type of event to publish.
+     * @return the builder created.
+     */
+    public static <E, T extends E> @NonNull Builder<T> builder(@NonNull EventBus<E> bus, @NonNull Class<T> eventType) {
+        return new Builder<>(bus, eventType);
+    }
+
+    /**
+     * Subscribes to the events posted from now on, until the subscriber cancels or this is closed.
+     *
+     * @param subscriber the subscriber to signal.
+     */
+    @Override
+    public void subscribe(Flow.@NonNull Subscriber<? super T> subscriber) {
+        Preconditions.checkNotNull(subscriber, "subscriber");
+
+        BufferedSubscription<T> subscription = new BufferedSubscription<>(this, subscriber);
+        if (this.closed) {
+            subscription.complete();
+        } else {
+            this.subscriptions.add(subscription);
+            subscription.subscribe(this.bus, this.eventType, this.order);
+
+            // closed while subscribing, the subscription might have been missed
+            if (this.closed) {
+                subscription.complete();
+            }
+        }
+
+        subscription.start();
+    }
+
+    /**
+     * Completes every subscriber once it has received the events buffered for it.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+
+        for (BufferedSubscription<T> subscription : this.subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    void terminated(BufferedSubscription<T> subscription) {
+        this.subscriptions.remove(subscription);
+    }
+
+    void dropped() {
+        this.dropped.increment();
+    }
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    public @NonNull OverflowPolicy getOverflow() {
+        return this.overflow;
+    }
+
+    @NonNull Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Gets the amount of current subscribers.
+     *
+     * @return the subscribers that haven't cancelled or been terminated.
+     */
+    public int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    /**
+     * Gets how many events were dropped, across all subscribers.
+     *
+     * @return the amount of events dropped by {@link OverflowPolicy#DROP_OLDEST} and {@link OverflowPolicy#DROP_NEWEST}.
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public static final class Builder<T> {
+
+        private final EventBus<?> bus;
+        private final Class<? extends T> eventType;
+
+        private int bufferSize = Flow.defaultBufferSize();
+        private OverflowPolicy overflow = OverflowPolicy.DROP_OLDEST;
+        private int order = PostOrder.LAST;
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder(EventBus<?> bus, Class<? extends T> eventType) {
+            this.bus = bus;
+            this.eventType = eventType;
+        }
+
+        /**
+         * Sets the most events buffered for each subscriber, {@link Flow#defaultBufferSize()} by default.
+         *
+         * @param bufferSize the size of each subscriber's buffer.
+         * @return this builder.
+         */
+        public @NonNull Builder<T> bufferSize(int bufferSize) {
+            Preconditions.checkArgument(bufferSize > 0, "The buffer size must be positive, given %s", bufferSize);
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets what happens to events posted while a subscriber's buffer is full, {@link OverflowPolicy#DROP_OLDEST} by default.
+         *
+         * @param overflow the overflow policy.
+         * @return this builder.
+         */
+        public @NonNull Builder<T> overflow(@NonNull OverflowPolicy overflow) {
+            this.overflow = overflow;
+            return this;
+        }
+
+        /**
+         * Sets the order of the bus subscription buffering each subscriber's events, {@link PostOrder#LAST} by default.
+         *
+         * @param order the post order.
+         * @return this builder.
+         */
+        public @NonNull Builder<T> order(int order) {
+            this.order = order;
+            return this;
+        }
+
+        /**
+         * Sets the executor that subscribers are signalled on, {@link ForkJoinPool#commonPool()} by default.
+         * Every subscriber is only signalled by one of its threads at a time.
+         *
+         * @param executor the executor.
+         * @return this builder.
+         */
+        public @NonNull Builder<T> executor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Creates the publisher.
+         *
+         * @return the publisher created.
+         */
+        public @NonNull EventPublisher<T> build() {
+            return new EventPublisher<>(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.flow;
+
+/**
+ * What an {@link EventPublisher} does with an event when the buffer of a subscriber is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drops the oldest buffered event to make room, so the subscriber sees the most recent events.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drops the event being posted, so the subscriber sees the events it had buffered already.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Blocks the posting thread until the subscriber requests more, so no event is lost.
+     * Posting from the subscriber itself with a full buffer never returns.
+     */
+    BLOCK,
+
+    /**
+     * Cancels the subscription, signalling the subscriber an error.
+     */
+    ERROR
+
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.jfr;
+
+import io.github.penguthepenguin.event.Subscription;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Records the activity of buses as JDK Flight Recorder events.
+ * <p>
+ * This is the Java 11 version, loaded from {@code META-INF/versions/11} of the jar. An event is only allocated and timed
+ * while a recording has it enabled, otherwise the JIT removes the event object and only the enabled check is left.
+ */
+public final class BusRecorder {
+
+    private BusRecorder() {
+    }
+
+    public static @Nullable Object beginPost() {
+        PostEvent event = new PostEvent();
+        if (!event.isEnabled()) return null;
+
+        event.begin();
+        return event;
+    }
+
+    public static void endPost(Object recording, Class<?> eventType, int subscriptions) {
+        PostEvent event = (PostEvent) recording;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.subscriptions = subscriptions;
+            event.commit();
+        }
+    }
+
+    public static @Nullable Object beginDispatch() {
+        DispatchEvent event = new DispatchEvent();
+        if (!event.isEnabled()) return null;
+
+        event.begin();
+        return event;
+    }
+
+    public static boolean isDispatchRecorded() {
+        return new DispatchEvent().isEnabled();
+    }
+
+    public static void endDispatch(Object recording, Class<?> eventType, Subscription<?> subscription) {
+        DispatchEvent event = (DispatchEvent) recording;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.subscription = String.valueOf(subscription);
+            event.order = subscription.getOrder();
+            event.commit();
+        }
+    }
+
+    public static @Nullable Object beginBake() {
+        BakeEvent event = new BakeEvent();
+        if (!event.isEnabled()) return null;
+
+        event.begin();
+        return event;
+    }
+
+    public static void endBake(Object recording, @Nullable Class<?> eventType, int subscriptions) {
+        BakeEvent event = (BakeEvent) recording;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.subscriptions = subscriptions;
+            event.commit();
+        }
+    }
+
+    public static void registration(@Nullable Class<?> eventType, boolean registered, int changed) {
+        RegistrationEvent event = new RegistrationEvent();
+
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.registered = registered;
+            event.changed = changed;
+            event.commit();
+        }
+    }
+
+    public static @Nullable Object beginGeneration() {
+        GenerationEvent event = new GenerationEvent();
+        if (!event.isEnabled()) return null;
+
+        event.begin();
+        return event;
+    }
+
+    public static void endGeneration(Object recording, Class<?> eventType, Class<?> generatedClass, boolean cached) {
+        GenerationEvent event = (GenerationEvent) recording;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.generatedClass = generatedClass;
+            event.cached = cached;
+            event.commit();
+        }
+    }
+
+}
@@ -24,11 +24,29 @@
 
 package io.github.penguthepenguin.event;
 
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.data.Sticky;
 import io.github.penguthepenguin.event.data.Subscribe;
 import io.github.penguthepenguin.event.generic.AbstractCancellable;
+import io.github.penguthepenguin.event.generic.AdaptiveOffload;
+import io.github.penguthepenguin.event.generic.AdaptiveSubscription;
+import io.github.penguthepenguin.event.generic.AbstractVolatileCancellable;
+import io.github.penguthepenguin.event.generic.BakedSubscriptions;
+import io.github.penguthepenguin.event.generic.BatchingSubscription;
+import io.github.penguthepenguin.event.generic.CompiledDispatcher;
+import io.github.penguthepenguin.event.generic.SimpleEventBus;
+import io.github.penguthepenguin.event.generic.SimpleSubscriptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -89,6 +107,437 @@ class EventBusTest {
         assertEquals(1, testEvent.count);
     }
 
+    @Test
+    void testVolatileCancellableEvents() {
+        EventBus<VolatileTestEvent> bus = EventBus.of(VolatileTestEvent.class);
+
+        bus.register(VolatileTestEvent.class, (Subscription<VolatileTestEvent>) event -> event.count++);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> event.count++, true);
+
+        VolatileTestEvent testEvent = new VolatileTestEvent();
+        bus.post(testEvent).thenAccept(result -> assertTrue(result.wasSuccessful()));
+        assertEquals(2, testEvent.count);
+
+        assertFalse(testEvent.setCancelled(true));
+        assertTrue(testEvent.isCancelled());
+
+        // created on first use, and shared with the field from then on
+        AtomicBoolean state = testEvent.getCancellationState();
+        assertTrue(state.get());
+        assertSame(state, testEvent.getCancellationState());
+        state.set(false);
+        assertFalse(testEvent.isCancelled());
+        assertFalse(testEvent.setCancelled(true));
+        assertTrue(state.get());
+
+        bus.post(testEvent).thenAccept(result -> assertTrue(result.wasSuccessful()));
+        assertEquals(3, testEvent.count);
+    }
+
+    @Test
+    void testCancellationMidPost() {
+        EventBus<VolatileTestEvent> bus = EventBus.of(VolatileTestEvent.class);
+        StringBuilder calls = new StringBuilder();
+
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('a'), PostOrder.FIRST);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> {
+            calls.append('b');
+            event.setCancelled(true);
+        }, PostOrder.EARLY);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('c'), PostOrder.NORMAL);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('d'), PostOrder.LATE, true);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('e'), PostOrder.LAST);
+
+        bus.post(new VolatileTestEvent());
+        assertEquals("abd", calls.toString());
+
+        // a custom acceptor goes through the general path and sees every subscription
+        EventBus<VolatileTestEvent> acceptingBus = EventBus.of(VolatileTestEvent.class, (type, event, subscription) -> true);
+        for (Subscription<? super VolatileTestEvent> subscription : bus.getSubscriptions(VolatileTestEvent.class)) {
+            acceptingBus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) subscription::on);
+        }
+
+        calls.setLength(0);
+        acceptingBus.post(new VolatileTestEvent());
+        assertEquals("abcde", calls.toString());
+    }
+
+    @Test
+    void testCompiledDispatcher() throws InterruptedException {
+        EventBus<CountingEvent> bus = EventBus.of(CountingEvent.class);
+        IllegalStateException failure = new IllegalStateException();
+
+        for (int i = 0; i < CompiledDispatcher.MIN_SUBSCRIPTIONS; i++) {
+            int order = i;
+            bus.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> event.calls.append(order), order);
+        }
+        bus.register(CountingEvent.class, (Subscription<CountingEvent>) event -> {
+            throw failure;
+        });
+
+        for (int i = 0; i <= CompiledDispatcher.COMPILE_THRESHOLD; i++) {
+            bus.post(new CountingEvent());
+        }
+
+        // compiled off the posting thread
+        SimpleSubscriptions<CountingEvent> subscriptions = (SimpleSubscriptions<CountingEvent>) bus.getSubscriptions().get(CountingEvent.class);
+        for (int i = 0; i < 500 && subscriptions.getBaked().getCompilation() == BakedSubscriptions.Compilation.COMPILING; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(BakedSubscriptions.Compilation.COMPILED, subscriptions.getBaked().getCompilation());
+        assertNull(subscriptions.getBaked().getCompileFailure());
+        assertNotNull(subscriptions.getBaked().getDispatcher());
+
+        CountingEvent event = new CountingEvent();
+        bus.post(event).thenAccept(result -> {
+            assertFalse(result.wasSuccessful());
+            assertTrue(result.getExceptions().containsValue(failure));
+        });
+        assertEquals("0123", event.calls.toString());
+    }
+
+    @Test
+    void testLazyBaking() {
+        EventBus<CountingEvent> bus = EventBus.builder(CountingEvent.class).lazyBaking(true).build();
+
+        for (int i = 0; i < 500; i++) {
+            int order = i;
+            bus.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> event.calls.append(order % 10), -order);
+        }
+
+        SimpleSubscriptions<CountingEvent> subscriptions = (SimpleSubscriptions<CountingEvent>) bus.getSubscriptions().get(CountingEvent.class);
+        assertEquals(1, subscriptions.getBakeCount());
+        assertEquals(499, subscriptions.getAvoidedBakeCount());
+
+        CountingEvent event = new CountingEvent();
+        bus.post(event);
+        assertEquals(2, subscriptions.getBakeCount());
+        assertEquals(500, event.calls.length());
+        assertTrue(event.calls.toString().startsWith("9876543210"));
+
+        bus.post(new CountingEvent());
+        assertEquals(2, subscriptions.getBakeCount());
+    }
+
+    @Test
+    void testContextBoundSubscriptions() throws Exception {
+        EventBus<VolatileTestEvent> bus = EventBus.of(VolatileTestEvent.class);
+        bus.bindContext("main");
+
+        Thread main = Thread.currentThread();
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> event.count++, PostOrder.FIRST);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> {
+            assertSame(main, Thread.currentThread());
+            event.count += 10;
+            event.setCancelled(true);
+        }, PostOrder.NORMAL, false, "main");
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> event.count += 100, PostOrder.LATE, false, "main");
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> event.count += 1000, PostOrder.LAST, true, "main");
+
+        VolatileTestEvent inline = new VolatileTestEvent();
+        assertTrue(bus.post(inline).isDone());
+        assertEquals(1011, inline.count);
+
+        VolatileTestEvent queued = new VolatileTestEvent();
+        CompletableFuture<CompletableFuture<PostResult<? super VolatileTestEvent>>> posted = CompletableFuture.supplyAsync(() -> bus.post(queued));
+
+        CompletableFuture<PostResult<? super VolatileTestEvent>> result = posted.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queued.count);
+        assertFalse(result.isDone());
+
+        assertEquals(1, bus.drain("main", 1));
+        assertEquals(11, queued.count);
+        assertFalse(result.isDone());
+
+        assertEquals(2, bus.drain("main", 10));
+        assertEquals(1011, queued.count);
+        assertTrue(result.isDone());
+        assertTrue(result.get().wasSuccessful());
+    }
+
+    @Test
+    void testContextBoundSubscriptionsKeepTheirOrder() throws Exception {
+        EventBus<VolatileTestEvent> bus = EventBus.of(VolatileTestEvent.class);
+        bus.bindContext("main");
+
+        StringBuilder calls = new StringBuilder();
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('a'), PostOrder.FIRST);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> {
+            calls.append('b');
+            event.setCancelled(true);
+        }, PostOrder.EARLY, false, "main");
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('c'), PostOrder.NORMAL);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('d'), PostOrder.LATE, true, null);
+        bus.register(VolatileTestEvent.class, (EventHandler<VolatileTestEvent>) event -> calls.append('e'), PostOrder.LAST, true, "worker");
+
+        // the unbound subscriptions after a bound one wait for it, and see that it cancelled the event
+        CompletableFuture<PostResult<? super VolatileTestEvent>> result = CompletableFuture.supplyAsync(() -> bus.post(new VolatileTestEvent())).get(5, TimeUnit.SECONDS);
+        assertEquals("a", calls.toString());
+
+        assertEquals(3, bus.drain("main", 10));
+        assertEquals("abd", calls.toString());
+        assertFalse(result.isDone());
+
+        assertEquals(1, bus.drain("worker", 10));
+        assertEquals("abde", calls.toString());
+        assertTrue(result.isDone());
+        assertTrue(result.get().wasSuccessful());
+    }
+
+    @Test
+    void testQueuedReentrancy() {
+        EventBus<CountingEvent> bus = EventBus.builder(CountingEvent.class).queuedReentrancy(100).build();
+        StringBuilder calls = new StringBuilder();
+        List<CompletableFuture<PostResult<? super CountingEvent>>> nested = new ArrayList<>();
+
+        bus.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> {
+            calls.append('(');
+            nested.add(bus.post(new CountingEvent()));
+            calls.append(')');
+        });
+
+        bus.post(new CountingEvent());
+
+        // each nested post ran after the one before it finished, never inside it
+        assertEquals(101, calls.length() / 2);
+        assertTrue(calls.toString().matches("(\\(\\))+"));
+
+        assertEquals(101, nested.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(nested.get(i).isDone());
+            assertFalse(nested.get(i).isCompletedExceptionally());
+        }
+
+        // the cascade stopped at its maximum size
+        assertTrue(nested.get(100).isCompletedExceptionally());
+    }
+
+    @Test
+    void testStickyEvents() {
+        SimpleEventBus<Object> bus = SimpleEventBus.builder(Object.class).build();
+
+        // kept without any subscription, only the last one
+        StickyEvent first = new StickyEvent("a");
+        StickyEvent second = new StickyEvent("a");
+        bus.post(first);
+        bus.post(second);
+        bus.post(new CountingEvent());
+        assertEquals(Arrays.asList(second), bus.getSticky(StickyEvent.class));
+        assertTrue(bus.getSticky(CountingEvent.class).isEmpty());
+        assertFalse(bus.isSubscribed(StickyEvent.class));
+
+        List<StickyEvent> received = new ArrayList<>();
+        bus.register(StickyEvent.class, (EventHandler<Object>) event -> received.add((StickyEvent) event));
+        assertEquals(Arrays.asList(second), received);
+
+        // live posts still reach it once
+        StickyEvent third = new StickyEvent("a");
+        bus.post(third);
+        assertEquals(Arrays.asList(second, third), received);
+
+        // keyed events keep the last one of every key, in the order they were last posted
+        KeyedStickyEvent red = new KeyedStickyEvent("red");
+        KeyedStickyEvent blue = new KeyedStickyEvent("blue");
+        KeyedStickyEvent lastRed = new KeyedStickyEvent("red");
+        bus.post(red);
+        bus.post(blue);
+        bus.post(lastRed);
+
+        List<StickyEvent> keyed = new ArrayList<>();
+        bus.register(KeyedStickyEvent.class, (EventHandler<Object>) event -> keyed.add((StickyEvent) event));
+        assertEquals(Arrays.asList(blue, lastRed), keyed);
+
+        assertTrue(bus.clearSticky(KeyedStickyEvent.class, "blue"));
+        assertFalse(bus.clearSticky(KeyedStickyEvent.class, "blue"));
+        assertEquals(Arrays.asList(lastRed), bus.getSticky(KeyedStickyEvent.class));
+
+        // annotations of interfaces aren't inherited, the bus finds them itself
+        InterfaceStickyEvent green = new InterfaceStickyEvent("green");
+        bus.post(green);
+        assertEquals(Arrays.asList(green), bus.getSticky(InterfaceStickyEvent.class));
+
+        bus.clearSticky(KeyedStickyEvent.class);
+        List<StickyEvent> late = new ArrayList<>();
+        bus.register(KeyedStickyEvent.class, (EventHandler<Object>) event -> late.add((StickyEvent) event));
+        assertTrue(late.isEmpty());
+    }
+
+    @Test
+    void testStickyReplayOutsideTheLock() throws Exception {
+        SimpleEventBus<Object> bus = SimpleEventBus.builder(Object.class).build();
+        bus.post(new StickyEvent("a"));
+
+        // a replayed handler that waits on a post from another thread doesn't deadlock it
+        List<StickyEvent> received = new ArrayList<>();
+        Error failure = new Error();
+        CompletableFuture<List<PostResult<? super Object>>> replayed = bus.registerReplaying(StickyEvent.class, event -> {
+            received.add((StickyEvent) event);
+
+            if (received.size() == 1) {
+                CompletableFuture.runAsync(() -> bus.post(new StickyEvent("a"))).get(5, TimeUnit.SECONDS);
+                throw failure;
+            }
+        });
+
+        assertEquals(2, received.size());
+        assertTrue(replayed.isDone());
+        assertEquals(1, replayed.get().size());
+        assertSame(failure, replayed.get().get(0).getExceptions().values().iterator().next());
+    }
+
+    @Test
+    void testChildBuses() {
+        SimpleEventBus<CountingEvent> bus = SimpleEventBus.builder(CountingEvent.class).build();
+        bus.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> event.calls.append('p'));
+
+        SimpleEventBus<CountingEvent> match = bus.child();
+        SimpleEventBus<CountingEvent> round = match.child();
+        match.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> event.calls.append('m'));
+        round.register(CountingEvent.class, (EventHandler<CountingEvent>) event -> {
+            event.calls.append('r');
+            throw new Error("round");
+        });
+        assertEquals(Collections.singletonList(match), bus.getChildren());
+        assertEquals(1, bus.getSubscriptions(CountingEvent.class).length);
+
+        // the parent fans out to its children, with their failures in its result
+        CountingEvent event = new CountingEvent();
+        PostResult<?> result = bus.post(event).join();
+        assertEquals("pmr", event.calls.toString());
+        assertEquals(1, result.getExceptions().size());
+
+        // children don't post to their parent
+        event = new CountingEvent();
+        match.post(event);
+        assertEquals("mr", event.calls.toString());
+
+        // closing a child closes its own children, and leaves the parent's subscriptions
+        match.close();
+        assertTrue(bus.getChildren().isEmpty());
+        assertTrue(round.getChildren().isEmpty());
+        assertFalse(round.isSubscribed(CountingEvent.class));
+        assertTrue(bus.isSubscribed(CountingEvent.class));
+
+        event = new CountingEvent();
+        assertTrue(bus.post(event).join().wasSuccessful());
+        assertEquals("p", event.calls.toString());
+    }
+
+    @Test
+    void testBatchingSubscriber() throws Exception {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        BatchingSubscriber subscriber = new BatchingSubscriber();
+        bus.register(subscriber);
+
+        // full batches are delivered by the post that filled them
+        for (int i = 0; i < 7; i++) {
+            bus.post(new TestEvent());
+        }
+        assertEquals(Arrays.asList(3, 3), subscriber.sizes);
+
+        // the rest is delivered on close
+        bus.close();
+        assertEquals(Arrays.asList(3, 3, 1), subscriber.sizes);
+
+        // a failing batch is reported to the post that filled it
+        bus.register(subscriber);
+        subscriber.fail = true;
+        bus.post(new TestEvent());
+        bus.post(new TestEvent());
+
+        PostResult<? super TestEvent> result = bus.post(new TestEvent()).get();
+        assertFalse(result.wasSuccessful());
+        assertEquals(Arrays.asList(3, 3, 1, 3), subscriber.sizes);
+        bus.unregisterAll();
+
+        // a batch that isn't filled is delivered after its delay
+        DelayedBatchingSubscriber delayed = new DelayedBatchingSubscriber();
+        bus.register(delayed);
+        bus.post(new TestEvent());
+        bus.post(new TestEvent());
+
+        assertEquals(2, (int) delayed.batches.get(5, TimeUnit.SECONDS));
+
+        // a filter can't be applied to a batch
+        assertThrows(IllegalArgumentException.class, () -> bus.register(new FilteredBatchingSubscriber()));
+    }
+
+    @Test
+    void testUnregisteredBatchesAreFlushed() throws Exception {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        List<Integer> sizes = new ArrayList<>();
+        BatchingSubscription<TestEvent> subscription = new BatchingSubscription<>(
+                PostOrder.NORMAL, bus, TestEvent.class, events -> sizes.add(events.size()), 100, 60_000, TimeUnit.MILLISECONDS, false
+        );
+
+        // the partial batch is delivered on unregistering, not by the timer later
+        bus.register(TestEvent.class, subscription);
+        bus.post(new TestEvent());
+        bus.post(new TestEvent());
+        subscription.unsubscribe();
+        assertEquals(Collections.singletonList(2), sizes);
+
+        bus.register(TestEvent.class, subscription);
+        bus.post(new TestEvent());
+        bus.unregisterIf(other -> other == subscription);
+        assertEquals(Arrays.asList(2, 1), sizes);
+
+        bus.register(TestEvent.class, subscription);
+        bus.post(new TestEvent());
+        bus.unregisterAll();
+        assertEquals(Arrays.asList(2, 1, 1), sizes);
+
+        bus.post(new TestEvent());
+        assertEquals(Arrays.asList(2, 1, 1), sizes);
+    }
+
+    @Test
+    void testAdaptiveOffload() {
+        Queue<Runnable> offloaded = new ArrayDeque<>();
+        EventBus<TestEvent> bus = EventBus.builder(TestEvent.class)
+                .adaptiveOffload(new AdaptiveOffload(offloaded::add, 1, TimeUnit.MILLISECONDS))
+                .build();
+
+        SlowSubscriber subscriber = new SlowSubscriber();
+        bus.register(subscriber);
+
+        AdaptiveSubscription<?> subscription = (AdaptiveSubscription<?>) bus.getSubscriptions(TestEvent.class)[0];
+        assertEquals(AdaptiveSubscription.Placement.INLINE, subscription.getPlacement());
+
+        // consistently slow, so it is moved once it is measured enough
+        subscriber.delay = 2;
+        for (int i = 0; i < 8; i++) {
+            bus.post(new TestEvent());
+        }
+        assertEquals(8, subscriber.calls);
+        assertEquals(AdaptiveSubscription.Placement.OFFLOADED, subscription.getPlacement());
+
+        // now the post only hands it to the executor
+        subscriber.delay = 0;
+        bus.post(new TestEvent());
+        assertEquals(8, subscriber.calls);
+        assertEquals(1, offloaded.size());
+
+        // fast again, it moves back once the average drops under half of the threshold
+        while (subscription.getPlacement() == AdaptiveSubscription.Placement.OFFLOADED) {
+            assertFalse(offloaded.isEmpty());
+            offloaded.poll().run();
+            bus.post(new TestEvent());
+        }
+        offloaded.forEach(Runnable::run);
+
+        int calls = subscriber.calls;
+        bus.post(new TestEvent());
+        assertEquals(calls + 1, subscriber.calls);
+
+        List<AdaptiveSubscription.Decision> decisions = subscription.getDecisions();
+        assertEquals(2, decisions.size());
+        assertEquals(AdaptiveSubscription.Placement.OFFLOADED, decisions.get(0).getPlacement());
+        assertTrue(decisions.get(0).getAverageNanos() > TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(AdaptiveSubscription.Placement.INLINE, decisions.get(1).getPlacement());
+    }
+
     public static class TestEvent extends AbstractCancellable {
 
         public int count;
@@ -100,6 +549,112 @@ class EventBusTest {
 
     }
 
+    public static class VolatileTestEvent extends AbstractVolatileCancellable {
+
+        public int count;
+
+    }
+
+    public static class CountingEvent {
+
+        public final StringBuilder calls = new StringBuilder();
+
+    }
+
+    @Sticky
+    public static class StickyEvent {
+
+        private final String key;
+
+        public StickyEvent(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+    }
+
+    @Sticky(key = "getKey")
+    public static class KeyedStickyEvent extends StickyEvent {
+
+        public KeyedStickyEvent(String key) {
+            super(key);
+        }
+
+    }
+
+    @Sticky(key = "getKey")
+    public interface KeyedSticky {
+
+        String getKey();
+
+    }
+
+    public static class InterfaceStickyEvent implements KeyedSticky {
+
+        private final String key;
+
+        public InterfaceStickyEvent(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+    }
+
+    public static class BatchingSubscriber {
+
+        public final List<Integer> sizes = new ArrayList<>();
+        public boolean fail;
+
+        @Subscribe(maxBatchSize = 3, maxBatchDelay = 0)
+        private void onTestEvents(List<TestEvent> events) {
+            this.sizes.add(events.size());
+
+            if (this.fail) {
+                throw new IllegalStateException("Failed to write the batch");
+            }
+        }
+
+    }
+
+    public static class DelayedBatchingSubscriber {
+
+        public final CompletableFuture<Integer> batches = new CompletableFuture<>();
+
+        @Subscribe(maxBatchSize = 100, maxBatchDelay = 10)
+        private void onTestEvents(List<TestEvent> events) {
+            this.batches.complete(events.size());
+        }
+
+    }
+
+    public static class FilteredBatchingSubscriber {
+
+        @Subscribe(filter = "cancelled", maxBatchSize = 3)
+        private void onTestEvents(List<TestEvent> events) {
+        }
+
+    }
+
+    public static class SlowSubscriber {
+
+        public volatile long delay;
+        public volatile int calls;
+
+        @Subscribe(deferrable = true)
+        private void onTestEvent(TestEvent event) throws InterruptedException {
+            Thread.sleep(this.delay);
+            this.calls++;
+        }
+
+    }
+
     public static class TestSubscriber {
 
         @Subscribe(order = 1)
@@ -0,0 +1,86 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bursts of registrations followed by a post, with eager and lazy baking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BakeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean lazyBaking;
+
+    /**
+     * How many registrations happen between two posts.
+     */
+    @Param({"1", "10", "500"})
+    public int burst;
+
+    private EventBus<BenchmarkEvent> bus;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        this.bus = EventBus.builder(BenchmarkEvent.class).lazyBaking(this.lazyBaking).build();
+    }
+
+    @Benchmark
+    public void registerThenPost(Blackhole blackhole) {
+        for (int i = 0; i < this.burst; i++) {
+            this.bus.register(BenchmarkEvent.class, (EventHandler<BenchmarkEvent>) blackhole::consume, i % 5);
+        }
+
+        blackhole.consume(this.bus.post(new BenchmarkEvent()));
+    }
+
+    @Benchmark
+    public void churnWithPosts(Blackhole blackhole) {
+        for (int i = 0; i < this.burst; i++) {
+            Subscription<BenchmarkEvent> subscription = this.bus.register(BenchmarkEvent.class, (EventHandler<BenchmarkEvent>) blackhole::consume);
+            if ((i & 7) == 0) {
+                blackhole.consume(this.bus.post(new BenchmarkEvent()));
+            }
+            this.bus.unregister(subscription);
+        }
+    }
+
+    public static class BenchmarkEvent {
+
+    }
+
+}
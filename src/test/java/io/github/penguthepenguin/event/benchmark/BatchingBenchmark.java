@@ -0,0 +1,94 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.generic.BatchingSubscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting to a subscriber with a fixed cost per call, like a database round trip,
+ * delivered one event at a time against in batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingBenchmark {
+
+    private static final long CALL_COST = 2000;
+    private static final long EVENT_COST = 20;
+
+    /**
+     * The size of a batch, 1 being a plain subscription.
+     */
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private EventBus<BenchmarkEvent> bus;
+    private final BenchmarkEvent event = new BenchmarkEvent();
+
+    @Setup
+    public void setup() {
+        this.bus = EventBus.of(BenchmarkEvent.class);
+
+        if (this.batchSize == 1) {
+            this.bus.register(BenchmarkEvent.class, (EventHandler<BenchmarkEvent>) event -> {
+                Blackhole.consumeCPU(CALL_COST);
+                Blackhole.consumeCPU(EVENT_COST);
+            });
+        } else {
+            this.bus.register(BenchmarkEvent.class, new BatchingSubscription<>(
+                    PostOrder.NORMAL, this.bus, BenchmarkEvent.class, (EventHandler<List<BenchmarkEvent>>) events -> {
+                        Blackhole.consumeCPU(CALL_COST);
+                        Blackhole.consumeCPU(EVENT_COST * events.size());
+                    }, this.batchSize, 0, TimeUnit.MILLISECONDS, true
+            ));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.bus.close();
+    }
+
+    @Benchmark
+    public void post(Blackhole blackhole) {
+        blackhole.consume(this.bus.post(this.event));
+    }
+
+    public static class BenchmarkEvent {
+
+    }
+
+}
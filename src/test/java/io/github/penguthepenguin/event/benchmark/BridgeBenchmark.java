@@ -0,0 +1,187 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.bridge.EventBridgeReader;
+import io.github.penguthepenguin.event.bridge.EventBridgeWriter;
+import io.github.penguthepenguin.event.bridge.EventRing;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures events bridged over {@link EventRing}s, each side mapping the rings on its own as separate processes would.
+ * <p>
+ * {@link #roundTrip(RoundTrip)} mirrors a ping to a server bus, whose reader runs on its own thread and answers with a pong
+ * mirrored back, so one way takes about half of the score. It needs a core for each side, as both spin.
+ * {@link #postThenRead(Loop)} posts an event and reads it back on the same thread, the cost of the bridge without any hand-off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BridgeBenchmark {
+
+    private static final int CAPACITY = 1 << 20;
+
+    @Benchmark
+    public long roundTrip(RoundTrip state) throws Throwable {
+        long sequence = ++state.sequence;
+        state.client.post(state.ping.newInstance("instance", sequence));
+
+        while (state.pongs.get() != sequence) {
+            state.clientReader.poll(16);
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    public int postThenRead(Loop state) throws Throwable {
+        state.bus.post(state.ping.newInstance("instance", ++state.sequence));
+        return state.reader.poll(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventBus<GeneratedEventData<String>> bus() {
+        return EventBus.of((Class<GeneratedEventData<String>>) (Class<?>) GeneratedEventData.class);
+    }
+
+    private static void delete(Path directory, String... rings) throws IOException {
+        for (String ring : rings) {
+            Files.delete(directory.resolve(ring));
+        }
+        Files.delete(directory);
+    }
+
+    @State(Scope.Benchmark)
+    public static class RoundTrip {
+
+        private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+        private final AtomicLong pongs = new AtomicLong();
+
+        private Path directory;
+        private EventBus<GeneratedEventData<String>> client;
+        private EventBridgeReader clientReader;
+        private EventBridgeReader serverReader;
+        private Thread serverThread;
+
+        private GeneratedEvent<? extends GeneratedEventData<String>, String> ping;
+        private long sequence;
+
+        @Setup
+        public void setup() throws Throwable {
+            this.directory = Files.createTempDirectory("event-bridge");
+            this.ping = this.generators.generate(PingEvent.class);
+            GeneratedEvent<? extends GeneratedEventData<String>, String> pong = this.generators.generate(PongEvent.class);
+
+            EventBus<GeneratedEventData<String>> server = bus();
+            server.register(this.ping.getGeneratedClass(), (EventHandler<GeneratedEventData<String>>) event ->
+                    server.post(pong.newInstance("instance", ((PingEvent) event).getSequence())));
+            this.serverReader = new EventBridgeReader(EventRing.open(this.directory.resolve("pings"), CAPACITY), server, this.generators, Collections.singleton(PingEvent.class));
+            new EventBridgeWriter(EventRing.open(this.directory.resolve("pongs"), CAPACITY), server, this.generators, Collections.singleton(PongEvent.class));
+
+            this.client = bus();
+            this.client.register(pong.getGeneratedClass(), (EventHandler<GeneratedEventData<String>>) event -> this.pongs.lazySet(((PongEvent) event).getSequence()));
+            new EventBridgeWriter(EventRing.open(this.directory.resolve("pings"), CAPACITY), this.client, this.generators, Collections.singleton(PingEvent.class));
+            this.clientReader = new EventBridgeReader(EventRing.open(this.directory.resolve("pongs"), CAPACITY), this.client, this.generators, Collections.singleton(PongEvent.class));
+
+            this.serverThread = new Thread(this.serverReader, "bridge-server");
+            this.serverThread.setDaemon(true);
+            this.serverThread.start();
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException, IOException {
+            this.serverReader.close();
+            this.serverThread.join();
+            delete(this.directory, "pings", "pongs");
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Loop {
+
+        private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+
+        private Path directory;
+        private EventBus<GeneratedEventData<String>> bus;
+        private EventBridgeReader reader;
+
+        private GeneratedEvent<? extends GeneratedEventData<String>, String> ping;
+        private long sequence;
+
+        @Setup
+        public void setup() throws IOException {
+            this.directory = Files.createTempDirectory("event-bridge");
+            this.ping = this.generators.generate(PingEvent.class);
+
+            this.bus = bus();
+            new EventBridgeWriter(EventRing.open(this.directory.resolve("loop"), CAPACITY), this.bus, this.generators, Collections.singleton(PingEvent.class));
+            this.reader = new EventBridgeReader(EventRing.open(this.directory.resolve("loop"), CAPACITY), bus(), this.generators, Collections.singleton(PingEvent.class));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            delete(this.directory, "loop");
+        }
+
+    }
+
+    public static abstract class PingEvent extends GeneratedEventData<String> {
+
+        public PingEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract long getSequence();
+
+    }
+
+    public static abstract class PongEvent extends GeneratedEventData<String> {
+
+        public PongEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract long getSequence();
+
+    }
+
+}
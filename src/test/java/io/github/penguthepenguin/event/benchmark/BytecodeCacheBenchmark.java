@@ -0,0 +1,135 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.BytecodeCache;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.modifier.TypeManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a cold start generating every event type, compared to defining them from a warm {@link BytecodeCache}.
+ * <p>
+ * Every invocation loads the event types into a new class loader, as a restarted application would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class BytecodeCacheBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"50"})
+    public int eventTypes;
+
+    private Map<String, byte[]> definitions;
+    private BytecodeCache bytecodeCache;
+    private ClassLoader loader;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.definitions = new HashMap<>();
+
+        for (int i = 0; i < this.eventTypes; i++) {
+            this.definitions.put("benchmark.Event" + i, new ByteBuddy()
+                    .subclass(GeneratedEventData.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+                    .name("benchmark.Event" + i)
+                    .modifiers(Visibility.PUBLIC, TypeManifestation.ABSTRACT)
+                    .defineConstructor(Visibility.PUBLIC)
+                    .withParameters(String.class)
+                    .intercept(MethodCall.invoke(GeneratedEventData.class.getConstructor(Object.class)).withArgument(0))
+                    .defineMethod("getAmount", int.class, Visibility.PUBLIC)
+                    .withoutCode()
+                    .annotateMethod(AnnotationDescription.Builder.ofType(Index.class).define("value", 0).build())
+                    .defineMethod("getName", String.class, Visibility.PUBLIC)
+                    .withoutCode()
+                    .annotateMethod(AnnotationDescription.Builder.ofType(Index.class).define("value", 1).build())
+                    .make()
+                    .getBytes());
+        }
+
+        if (this.cached) {
+            this.bytecodeCache = new BytecodeCache(Files.createTempDirectory("event-bytecode"));
+
+            // populates the cache, as the previous start would have
+            this.setupLoader();
+            this.generateAll(null);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupLoader() {
+        this.loader = new ByteArrayClassLoader(BytecodeCacheBenchmark.class.getClassLoader(), this.definitions);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (this.bytecodeCache == null) return;
+
+        try (Stream<Path> entries = Files.list(this.bytecodeCache.getDirectory())) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.delete(entry);
+            }
+        }
+        Files.delete(this.bytecodeCache.getDirectory());
+    }
+
+    @Benchmark
+    public void generateAll(Blackhole blackhole) throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance", Long.MAX_VALUE, this.bytecodeCache);
+
+        for (int i = 0; i < this.eventTypes; i++) {
+            @SuppressWarnings("unchecked")
+            Class<? extends GeneratedEventData<String>> eventType = (Class<? extends GeneratedEventData<String>>) Class.forName("benchmark.Event" + i, false, this.loader);
+
+            GeneratedEventData<String> event = cache.generate(eventType).newInstance("instance", i, "name");
+            if (blackhole != null) {
+                blackhole.consume(event);
+            }
+        }
+    }
+
+}
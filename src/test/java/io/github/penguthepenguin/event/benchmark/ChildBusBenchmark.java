@@ -0,0 +1,115 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.generic.SimpleEventBus;
+import io.github.penguthepenguin.event.generic.SimpleSubscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lifecycle of a listener scope, registering its subscriptions and tearing them down,
+ * with the scope in the shared bus against in its own child bus, while many other scopes are open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildBusBenchmark {
+
+    private static final int SCOPES = 1000;
+    private static final int SUBSCRIPTIONS = 200;
+    private static final Class<?>[] TYPES = {A.class, B.class, C.class, D.class};
+
+    private SimpleEventBus<Object> shared;
+    private SimpleEventBus<Object> parent;
+    private EventHandler<Object> handler;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.handler = blackhole::consume;
+        this.shared = SimpleEventBus.builder(Object.class).lazyBaking(true).build();
+        this.parent = SimpleEventBus.builder(Object.class).lazyBaking(true).build();
+
+        for (int i = 0; i < SCOPES; i++) {
+            Scope scope = new Scope();
+            register(this.shared, scope);
+            register(this.parent.child(), scope);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void register(SimpleEventBus<Object> bus, Scope scope) {
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            bus.register((Class<Object>) TYPES[i % TYPES.length], new ScopedSubscription(bus, (Class<Object>) TYPES[i % TYPES.length], this.handler, scope));
+        }
+    }
+
+    @Benchmark
+    public void unregisterIf() {
+        Scope scope = new Scope();
+        register(this.shared, scope);
+        this.shared.unregisterIf(subscription -> ((ScopedSubscription) subscription).scope == scope);
+    }
+
+    @Benchmark
+    public void closeChild() {
+        SimpleEventBus<Object> child = this.parent.child();
+        register(child, new Scope());
+        child.close();
+    }
+
+    private static final class Scope {
+    }
+
+    private static final class ScopedSubscription extends SimpleSubscription<Object> {
+
+        private final Scope scope;
+
+        private ScopedSubscription(SimpleEventBus<Object> bus, Class<Object> type, EventHandler<Object> handler, Scope scope) {
+            super(0, bus, type, handler, true);
+            this.scope = scope;
+        }
+
+    }
+
+    public static class A {
+    }
+
+    public static class B {
+    }
+
+    public static class C {
+    }
+
+    public static class D {
+    }
+
+}
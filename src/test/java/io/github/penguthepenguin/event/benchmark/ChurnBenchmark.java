@@ -0,0 +1,83 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting while other threads register and unregister subscriptions of the posted type,
+ * with every mutation baked right away against baked lazily on the next post.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+    private static final int SUBSCRIPTIONS = 32;
+
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    private EventBus<Object> bus;
+    private EventHandler<Object> handler;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.handler = blackhole::consume;
+        this.bus = EventBus.builder(Object.class).lazyBaking(this.lazy).build();
+
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            this.bus.register(ChurnEvent.class, this.handler, i);
+        }
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(3)
+    public Object post() {
+        return this.bus.post(new ChurnEvent());
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void registerAndUnregister() {
+        Subscription<Object> subscription = this.bus.register(ChurnEvent.class, this.handler);
+        this.bus.unregister(subscription);
+    }
+
+    public static class ChurnEvent {
+    }
+
+}
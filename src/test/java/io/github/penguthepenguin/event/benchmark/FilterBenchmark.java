@@ -0,0 +1,103 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting to many subscribers that all only want the same events, filtering in every handler
+ * against sharing one {@link io.github.penguthepenguin.event.gen.EventFilter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final int SUBSCRIBERS = 32;
+    private static final String FILTER = "amount >= 100 && world == 'nether' && !flying";
+
+    @Param({"false", "true"})
+    public boolean shared;
+
+    private EventBus<BenchmarkEvent> bus;
+    private GeneratedEvent<? extends BenchmarkEvent, String> generated;
+    private final String nether = new String("nether".toCharArray());
+    private final String overworld = new String("overworld".toCharArray());
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Throwable {
+        GeneratedEvent<? extends BenchmarkEvent, String> generated = this.generated = new EventGeneratorCache<BenchmarkEvent, String>("instance").generate(BenchmarkEvent.class);
+
+        this.bus = EventBus.of(BenchmarkEvent.class);
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            if (this.shared) {
+                this.bus.register(generated.getGeneratedClass(), FILTER, (EventHandler<BenchmarkEvent>) blackhole::consume);
+            } else {
+                this.bus.register(generated.getGeneratedClass(), (EventHandler<BenchmarkEvent>) event -> {
+                    if (event.getAmount() < 100 || !"nether".equals(event.getWorld()) || event.isFlying()) return;
+                    blackhole.consume(event);
+                });
+            }
+        }
+    }
+
+    // new events every time, as a filter remembers its result in the events it tested, with worlds that aren't
+    // the interned literals, as if they were read from the network
+    @Benchmark
+    public void post(Blackhole blackhole) throws Throwable {
+        blackhole.consume(this.bus.post(this.generated.newInstance("instance", 150, this.nether, false)));
+        blackhole.consume(this.bus.post(this.generated.newInstance("instance", 150, this.overworld, false)));
+    }
+
+    public static abstract class BenchmarkEvent extends GeneratedEventData<String> {
+
+        public BenchmarkEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract String getWorld();
+
+        @Index(2)
+        public abstract boolean isFlying();
+
+    }
+
+}
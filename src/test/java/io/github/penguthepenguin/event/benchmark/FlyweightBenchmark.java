@@ -0,0 +1,110 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.EventSlab;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures producing a batch of events and reading it back, as generated events on the heap
+ * against slots of an off-heap slab read through one flyweight view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlyweightBenchmark {
+
+    private static final int EVENTS = 1024;
+
+    private GeneratedEvent<? extends MoveEvent, String> generated;
+    private MoveEvent[] events;
+    private EventSlab<? extends MoveEvent, String> slab;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.generated = new EventGeneratorCache<MoveEvent, String>("instance").generate(MoveEvent.class);
+        this.events = new MoveEvent[EVENTS];
+        this.slab = this.generated.getFlyweight().allocateSlab("instance", EVENTS);
+    }
+
+    @Benchmark
+    public long heap() throws Throwable {
+        for (int i = 0; i < EVENTS; i++) {
+            this.events[i] = this.generated.newInstance("instance", i, (long) i, i * 2D);
+        }
+
+        long sum = 0;
+        for (MoveEvent event : this.events) {
+            sum += event.getEntity() + event.getTick() + (long) event.getDistance();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long flyweight() {
+        EventSlab<? extends MoveEvent, String> slab = this.slab;
+        for (int i = 0; i < EVENTS; i++) {
+            slab.putInt(i, 0, i);
+            slab.putLong(i, 1, i);
+            slab.putDouble(i, 2, i * 2D);
+        }
+
+        long sum = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            MoveEvent event = slab.get(i);
+            sum += event.getEntity() + event.getTick() + (long) event.getDistance();
+        }
+
+        return sum;
+    }
+
+    public static abstract class MoveEvent extends GeneratedEventData<String> {
+
+        public MoveEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getEntity();
+
+        @Index(1)
+        public abstract long getTick();
+
+        @Index(2)
+        public abstract double getDistance();
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import io.github.penguthepenguin.event.journal.EventJournal;
+import io.github.penguthepenguin.event.journal.FsyncPolicy;
+import io.github.penguthepenguin.event.journal.JournalingEventBus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures appending posted events to an {@link EventJournal}, and replaying them back through a bus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int REPLAYED = 100_000;
+
+    @Param({"NEVER", "SEGMENT"})
+    public FsyncPolicy fsync;
+
+    private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+
+    private Path directory;
+    private JournalingEventBus<GeneratedEventData<String>> bus;
+    private BenchmarkEvent event;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup(Blackhole blackhole) throws Throwable {
+        this.directory = Files.createTempDirectory("event-journal");
+
+        EventJournal journal = EventJournal.builder(this.directory, this.generators)
+                .segmentSize(16 * 1024 * 1024)
+                .fsync(this.fsync)
+                .build();
+        this.bus = new JournalingEventBus<>(EventBus.of((Class<GeneratedEventData<String>>) (Class<?>) GeneratedEventData.class), journal);
+
+        GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(BenchmarkEvent.class);
+        this.event = generated.newInstance("instance", 42, 7L, "account");
+        this.bus.register(this.event.getClass(), (EventHandler<GeneratedEventData<String>>) blackhole::consume);
+
+        for (int i = 0; i < REPLAYED; i++) {
+            this.bus.post(generated.newInstance("instance", i, (long) i, "account"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.bus.close();
+
+        try (Stream<Path> segments = Files.list(this.directory)) {
+            for (Path segment : (Iterable<Path>) segments::iterator) {
+                Files.delete(segment);
+            }
+        }
+        Files.delete(this.directory);
+    }
+
+    @Benchmark
+    public Object append() {
+        return this.bus.post(this.event);
+    }
+
+    /**
+     * Replays a journal of {@link #REPLAYED} events, scored per event.
+     */
+    @Benchmark
+    @OperationsPerInvocation(REPLAYED)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long replay() throws IOException {
+        return this.bus.replay();
+    }
+
+    public static abstract class BenchmarkEvent extends GeneratedEventData<String> {
+
+        public BenchmarkEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract long getTimestamp();
+
+        @Index(2)
+        public abstract String getAccount();
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.generic.ShardedEventBus;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures registration churn and posting across many event types, comparing a single bus to a sharded one.
+ * <p>
+ * Running {@link #main(String[])} repeats the benchmark from 1 thread up to the amount of available processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedBenchmark {
+
+    private static final int EVENT_TYPES = 64;
+
+    /**
+     * The amount of shards, 0 being a plain {@link io.github.penguthepenguin.event.generic.SimpleEventBus}.
+     */
+    @Param({"0", "16"})
+    public int shards;
+
+    private EventBus<BenchmarkEvent> bus;
+    private Class<? extends BenchmarkEvent>[] eventTypes;
+    private BenchmarkEvent[] events;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        this.bus = this.shards == 0
+                ? EventBus.of(BenchmarkEvent.class)
+                : new ShardedEventBus<>(BenchmarkEvent.class, this.shards);
+
+        this.eventTypes = new Class[EVENT_TYPES];
+        this.events = new BenchmarkEvent[EVENT_TYPES];
+
+        for (int i = 0; i < EVENT_TYPES; i++) {
+            this.eventTypes[i] = new ByteBuddy()
+                    .subclass(BenchmarkEvent.class)
+                    .make()
+                    .load(BenchmarkEvent.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                    .getLoaded();
+            this.events[i] = this.eventTypes[i].getConstructor().newInstance();
+
+            for (int j = 0; j < 8; j++) {
+                this.bus.register(this.eventTypes[i], (EventHandler<BenchmarkEvent>) event -> {
+                });
+            }
+        }
+    }
+
+    @Benchmark
+    public void post(Blackhole blackhole) {
+        int type = ThreadLocalRandom.current().nextInt(EVENT_TYPES);
+        blackhole.consume(this.bus.post(this.events[type]));
+    }
+
+    @Benchmark
+    public void churn(Blackhole blackhole) {
+        int type = ThreadLocalRandom.current().nextInt(EVENT_TYPES);
+
+        Subscription<BenchmarkEvent> subscription = this.bus.register(this.eventTypes[type], (EventHandler<BenchmarkEvent>) blackhole::consume);
+        blackhole.consume(this.bus.post(this.events[type]));
+        this.bus.unregister(subscription);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(ShardedBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()
+            ).run();
+        }
+    }
+
+    public static class BenchmarkEvent {
+
+    }
+
+}
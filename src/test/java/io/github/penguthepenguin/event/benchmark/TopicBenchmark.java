@@ -0,0 +1,104 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.topic.TopicEventBus;
+import io.github.penguthepenguin.event.topic.TopicSubscription;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting to topics of a {@link TopicEventBus} with 100k subscribed patterns, with and without its cache,
+ * and the cost of subscribing and unsubscribing a pattern while it is in use, alone and between posts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicBenchmark {
+
+    private static final int PATTERNS = 100_000;
+    private static final int TOPICS = 1024;
+
+    @Param({"0", "65536"})
+    public int cacheSize;
+
+    private TopicEventBus<Object> bus;
+    private String[] topics;
+    private int next;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.bus = new TopicEventBus<>(EventBus.of(Object.class), this.cacheSize);
+
+        // region.<region>.server.<server>.<action>, a fifth of them with wildcards matching their neighbour
+        for (int i = 0; i < PATTERNS; i++) {
+            String pattern;
+            switch (i % 10) {
+                case 0:
+                    pattern = "region.*.server." + (i + 2) + "." + (i + 2) % 20;
+                    break;
+                case 1:
+                    pattern = "region." + (i + 1) % 50 + ".server." + (i + 1) + ".#";
+                    break;
+                default:
+                    pattern = "region." + i % 50 + ".server." + i + "." + i % 20;
+            }
+
+            this.bus.subscribe(pattern, blackhole::consume);
+        }
+
+        this.topics = new String[TOPICS];
+        for (int i = 0; i < TOPICS; i++) {
+            int server = i * 97 % PATTERNS / 10 * 10 + 2;
+            this.topics[i] = "region." + (server % 50) + ".server." + server + "." + (server % 20);
+        }
+    }
+
+    @Benchmark
+    public Object post() {
+        String topic = this.topics[this.next++ & (TOPICS - 1)];
+        return this.bus.post(topic, topic);
+    }
+
+    @Benchmark
+    public Object postWhileChurning(Blackhole blackhole) {
+        // a pattern that can't match any of the topics changes before every post
+        this.bus.unregister(this.bus.subscribe("lobby.*", blackhole::consume));
+        return this.post();
+    }
+
+    @Benchmark
+    public void churn(Blackhole blackhole) {
+        TopicSubscription<Object> subscription = this.bus.subscribe("region.7.server.*.3", blackhole::consume);
+        this.bus.unregister(subscription);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.benchmark;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.generic.SimpleEventBus;
+import io.github.penguthepenguin.event.trace.EventTracer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of tracing posts with an {@link EventTracer}, tracing every post or sampling them,
+ * for subscriptions that do little and ones that do some work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracerBenchmark {
+
+    private static final int SUBSCRIBERS = 4;
+
+    /**
+     * The posts out of which one is traced, or 0 for no tracer.
+     */
+    @Param({"0", "1", "64", "1024"})
+    public int sampleEvery;
+
+    @Param({"0", "4096"})
+    public int work;
+
+    private EventBus<Object> bus;
+    private final Object event = new Object();
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        SimpleEventBus.Builder<Object> builder = EventBus.builder(Object.class);
+        if (this.sampleEvery != 0) {
+            builder.tracer(new EventTracer(EventTracer.DEFAULT_CAPACITY, this.sampleEvery));
+        }
+
+        this.bus = builder.build();
+        int work = this.work;
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            this.bus.register(Object.class, (EventHandler<Object>) event -> {
+                Blackhole.consumeCPU(work);
+                blackhole.consume(event);
+            });
+        }
+    }
+
+    @Benchmark
+    public Object post() {
+        return this.bus.post(this.event);
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.bridge;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventCodec;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBridgeTest {
+
+    private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+    private final GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(ChatEvent.class);
+
+    @Test
+    void testBridge(@TempDir Path directory) throws Throwable {
+        // each side maps the ring on its own, as separate processes would
+        EventRing writerRing = EventRing.open(directory.resolve("ring"), 4096);
+        EventRing readerRing = EventRing.open(directory.resolve("ring"), 4096);
+
+        EventBus<GeneratedEventData<String>> proxy = this.bus();
+        EventBus<GeneratedEventData<String>> server = this.bus();
+        List<ChatEvent> received = this.collect(server);
+
+        try (EventBridgeWriter writer = new EventBridgeWriter(writerRing, proxy, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeReader reader = new EventBridgeReader(readerRing, server, this.generators, Collections.singleton(ChatEvent.class))) {
+
+            // many laps of the ring, read as they go
+            for (int i = 0; i < 1000; i++) {
+                proxy.post(this.generated.newInstance("instance", i, "message " + i));
+
+                if (i % 10 == 0) {
+                    reader.poll(Integer.MAX_VALUE);
+                }
+            }
+            reader.poll(Integer.MAX_VALUE);
+
+            assertEquals(0, reader.getOverruns());
+            assertEquals(1000, received.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, received.get(i).getSender());
+                assertEquals("message " + i, received.get(i).getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testLappedReaderCarriesOn(@TempDir Path directory) throws Throwable {
+        EventRing ring = EventRing.open(directory.resolve("ring"), 1024);
+        EventBus<GeneratedEventData<String>> proxy = this.bus();
+        EventBus<GeneratedEventData<String>> server = this.bus();
+        List<ChatEvent> received = this.collect(server);
+
+        try (EventBridgeWriter writer = new EventBridgeWriter(ring, proxy, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeReader reader = new EventBridgeReader(ring, server, this.generators, Collections.singleton(ChatEvent.class))) {
+
+            for (int i = 0; i < 500; i++) {
+                proxy.post(this.generated.newInstance("instance", i, "message"));
+            }
+            reader.poll(Integer.MAX_VALUE);
+            assertEquals(1, reader.getOverruns());
+            assertTrue(received.isEmpty());
+
+            proxy.post(this.generated.newInstance("instance", 500, "message"));
+            reader.poll(Integer.MAX_VALUE);
+            assertEquals(1, received.size());
+            assertEquals(500, received.get(0).getSender());
+        }
+    }
+
+    @Test
+    void testUndecodableRecordsGoToTheErrorHandler(@TempDir Path directory) throws Throwable {
+        EventRing ring = EventRing.open(directory.resolve("ring"), 4096);
+        EventBus<GeneratedEventData<String>> proxy = this.bus();
+        EventBus<GeneratedEventData<String>> server = this.bus();
+        List<ChatEvent> received = this.collect(server);
+        List<RuntimeException> failures = new ArrayList<>();
+
+        try (EventBridgeWriter writer = new EventBridgeWriter(ring, proxy, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeReader reader = new EventBridgeReader(ring, server, this.generators, Collections.singleton(ChatEvent.class), failures::add)) {
+
+            proxy.post(this.generated.newInstance("instance", 1, "broken"));
+            proxy.post(this.generated.newInstance("instance", 2, "fine"));
+
+            // the length of the first message, after the record header, the event header and the sender
+            ring.buffer().putInt(ring.index(0) + EventRing.RECORD_HEADER + EventCodec.HEADER + 4, Integer.MAX_VALUE);
+
+            reader.poll(Integer.MAX_VALUE);
+            assertEquals(1, failures.size());
+            assertEquals(1, reader.getFailures());
+            assertEquals(1, received.size());
+            assertEquals("fine", received.get(0).getMessage());
+        }
+    }
+
+    @Test
+    void testBridgeBothWays(@TempDir Path directory) throws Throwable {
+        EventBus<GeneratedEventData<String>> proxy = this.bus();
+        EventBus<GeneratedEventData<String>> server = this.bus();
+        List<ChatEvent> proxyReceived = this.collect(proxy);
+        List<ChatEvent> serverReceived = this.collect(server);
+
+        EventRing toServer = EventRing.open(directory.resolve("to-server"), 4096);
+        EventRing toProxy = EventRing.open(directory.resolve("to-proxy"), 4096);
+
+        try (EventBridgeWriter proxyWriter = new EventBridgeWriter(toServer, proxy, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeReader serverReader = new EventBridgeReader(toServer, server, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeWriter serverWriter = new EventBridgeWriter(toProxy, server, this.generators, Collections.singleton(ChatEvent.class));
+             EventBridgeReader proxyReader = new EventBridgeReader(toProxy, proxy, this.generators, Collections.singleton(ChatEvent.class))) {
+
+            proxy.post(this.generated.newInstance("instance", 1, "hello"));
+
+            // re-posted events aren't mirrored back
+            for (int i = 0; i < 3; i++) {
+                serverReader.poll(Integer.MAX_VALUE);
+                proxyReader.poll(Integer.MAX_VALUE);
+            }
+
+            assertEquals(1, proxyReceived.size());
+            assertEquals(1, serverReceived.size());
+        }
+    }
+
+    private EventBus<GeneratedEventData<String>> bus() {
+        @SuppressWarnings("unchecked")
+        Class<GeneratedEventData<String>> eventType = (Class<GeneratedEventData<String>>) (Class<?>) GeneratedEventData.class;
+        return EventBus.of(eventType);
+    }
+
+    private List<ChatEvent> collect(EventBus<GeneratedEventData<String>> bus) {
+        List<ChatEvent> received = new ArrayList<>();
+        bus.register(this.generated.getGeneratedClass(), (EventHandler<GeneratedEventData<String>>) event -> received.add((ChatEvent) event));
+        return received;
+    }
+
+    public static abstract class ChatEvent extends GeneratedEventData<String> {
+
+        public ChatEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getSender();
+
+        @Index(1)
+        public abstract String getMessage();
+
+    }
+
+}
@@ -0,0 +1,566 @@
+package io.github.penguthepenguin.event.gen;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.PostResult;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.generic.BatchingSubscription;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.modifier.TypeManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedEventTest {
+
+    @Test
+    void testGeneratedProperties() throws Throwable {
+        EventGeneratorCache<TestEvent, String> cache = new EventGeneratorCache<>("instance");
+
+        TestEvent event = cache.generate(TestEvent.class).newInstance("instance", 100, "nether");
+        assertEquals(100, event.getAmount());
+        assertEquals("nether", event.getWorld());
+    }
+
+    @Test
+    void testGeneratedCancellable() throws Throwable {
+        EventGeneratorCache<TestCancellableEvent, String> cache = new EventGeneratorCache<>("instance");
+        GeneratedEvent<? extends TestCancellableEvent, String> generated = cache.generate(TestCancellableEvent.class);
+
+        TestCancellableEvent event = generated.newInstance("instance", 5);
+        assertFalse(event.isCancelled());
+
+        EventBus<TestCancellableEvent> bus = EventBus.of(TestCancellableEvent.class);
+        AtomicInteger count = new AtomicInteger();
+
+        bus.register(event.getClass().asSubclass(TestCancellableEvent.class), (EventHandler<TestCancellableEvent>) e -> {
+            count.incrementAndGet();
+            e.setCancelled(true);
+        });
+        bus.register(event.getClass().asSubclass(TestCancellableEvent.class), (EventHandler<TestCancellableEvent>) e -> count.incrementAndGet());
+
+        bus.post(event);
+        assertTrue(event.isCancelled());
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    void testGeneratedClassesUnloadWithTheirLoader() throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance");
+        WeakReference<ClassLoader> pluginLoader = this.generatePluginEvent(cache);
+
+        for (int i = 0; i < 50 && pluginLoader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(pluginLoader.get(), "the plugin's class loader should have been collected");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEvictionKeepsGeneratedClass() throws Throwable {
+        EventGeneratorCache<TestEvent, String> cache = new EventGeneratorCache<>("instance");
+        GeneratedEvent<? extends TestEvent, String> generated = cache.generate(TestEvent.class);
+        Class<?> generatedClass = generated.newInstance("instance", 1, "world").getClass();
+        assertEquals(1, cache.size());
+
+        cache.evict(TestEvent.class.getClassLoader());
+        assertEquals(0, cache.size());
+
+        // the loader still holds the generated class, so it is reused rather than defined twice
+        assertSame(generatedClass, cache.generate(TestEvent.class).newInstance("instance", 1, "world").getClass());
+    }
+
+    @Test
+    void testBytecodeCache(@TempDir Path directory) throws Throwable {
+        BytecodeCache bytecodeCache = new BytecodeCache(directory);
+
+        // first start, generated and stored
+        Class<? extends GeneratedEventData<String>> eventType = this.pluginEventType();
+        new EventGeneratorCache<GeneratedEventData<String>, String>("instance", Long.MAX_VALUE, bytecodeCache).generate(eventType);
+
+        Path entry = directory.resolve(eventType.getName() + "-" + BytecodeCache.key(eventType) + ".class");
+        assertTrue(Files.exists(entry));
+        Object fileKey = Files.readAttributes(entry, BasicFileAttributes.class).fileKey();
+
+        // second start, defined from the stored entry rather than stored again
+        eventType = this.pluginEventType();
+        GeneratedEventData<String> event = new EventGeneratorCache<GeneratedEventData<String>, String>("instance", Long.MAX_VALUE, bytecodeCache)
+                .generate(eventType).newInstance("instance", 7);
+        assertEquals(7, eventType.getMethod("getAmount").invoke(event));
+        assertEquals(fileKey, Files.readAttributes(entry, BasicFileAttributes.class).fileKey());
+
+        // a corrupt entry is dropped and regenerated
+        Files.write(entry, new byte[]{1, 2, 3});
+        eventType = this.pluginEventType();
+        event = new EventGeneratorCache<GeneratedEventData<String>, String>("instance", Long.MAX_VALUE, bytecodeCache)
+                .generate(eventType).newInstance("instance", 9);
+        assertEquals(9, eventType.getMethod("getAmount").invoke(event));
+        assertNotNull(bytecodeCache.load(eventType));
+        assertTrue(bytecodeCache.load(eventType).length > 3);
+        assertEquals(0, bytecodeCache.getFailures());
+    }
+
+    @Test
+    void testBytecodeCacheFailures(@TempDir Path directory) throws Throwable {
+        List<IOException> failures = new ArrayList<>();
+        BytecodeCache bytecodeCache = new BytecodeCache(directory.resolve("cache"), failures::add);
+        Files.delete(bytecodeCache.getDirectory());
+
+        // the event is still generated, and the entry that couldn't be stored is reported
+        Class<? extends GeneratedEventData<String>> eventType = this.pluginEventType();
+        GeneratedEventData<String> event = new EventGeneratorCache<GeneratedEventData<String>, String>("instance", Long.MAX_VALUE, bytecodeCache)
+                .generate(eventType).newInstance("instance", 3);
+        assertEquals(3, eventType.getMethod("getAmount").invoke(event));
+
+        assertFalse(failures.isEmpty());
+        assertEquals(failures.size(), bytecodeCache.getFailures());
+    }
+
+    @Test
+    void testParallelPreGeneration() throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance");
+        List<Class<? extends GeneratedEventData<String>>> events = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            events.add(this.pluginEventType());
+        }
+        events.add(BrokenEvent.class);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<Class<? extends GeneratedEventData<String>>, Throwable> failures = cache.preGenerateAsync(events, pool).get(30, TimeUnit.SECONDS);
+
+            assertEquals(Collections.singleton(BrokenEvent.class), failures.keySet());
+            assertEquals(32, cache.size());
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThrows(IllegalStateException.class, () -> cache.preGenerate(Collections.singletonList(BrokenEvent.class)));
+    }
+
+    @Test
+    void testCodec() throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance");
+        EventCodec<? extends GeneratedEventData<String>, String> codec = cache.generate(CodecEvent.class).getCodec();
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256)}) {
+            CodecEvent event = cache.generate(CodecEvent.class).newInstance("instance", true, (byte) 1, 'c', 2.5D, 3.5F, -4, Long.MAX_VALUE, (short) 5,
+                    "h\u00e9llo \u20ac \ud83d\ude00", RoundingMode.CEILING, null, 6L);
+
+            encode(codec, event, buffer);
+            assertEquals(buffer.position(), buffer.getInt(0));
+            buffer.flip();
+
+            CodecEvent decoded = (CodecEvent) codec.decode("instance", buffer);
+            assertFalse(buffer.hasRemaining());
+            assertTrue(decoded.isFlag());
+            assertEquals(1, decoded.getByte());
+            assertEquals('c', decoded.getChar());
+            assertEquals(2.5D, decoded.getDouble());
+            assertEquals(3.5F, decoded.getFloat());
+            assertEquals(-4, decoded.getInt());
+            assertEquals(Long.MAX_VALUE, decoded.getLong());
+            assertEquals(5, decoded.getShort());
+            assertEquals("h\u00e9llo \u20ac \ud83d\ude00", decoded.getString());
+            assertEquals(RoundingMode.CEILING, decoded.getRounding());
+            assertNull(decoded.getMissing());
+            assertEquals(6L, decoded.getBoxed());
+        }
+    }
+
+    @Test
+    void testCodecVersioning() throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance");
+        EventCodec<? extends GeneratedEventData<String>, String> v1 = cache.generate(TestEvent.class).getCodec();
+        EventCodec<? extends GeneratedEventData<String>, String> v2 = cache.generate(TestEventV2.class).getCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        // an index added since the event was encoded is left at its default
+        encode(v1, cache.generate(TestEvent.class).newInstance("instance", 1, "world"), buffer);
+        buffer.flip();
+        TestEventV2 upgraded = (TestEventV2) v2.decode("instance", buffer);
+        assertEquals(1, upgraded.getAmount());
+        assertEquals("world", upgraded.getWorld());
+        assertEquals(0L, upgraded.getTimestamp());
+
+        // an index unknown to an older codec is skipped
+        buffer.clear();
+        encode(v2, cache.generate(TestEventV2.class).newInstance("instance", 2, "nether", 99L), buffer);
+        encode(v2, cache.generate(TestEventV2.class).newInstance("instance", 3, "end", 100L), buffer);
+        buffer.flip();
+        assertEquals("nether", ((TestEvent) v1.decode("instance", buffer)).getWorld());
+        assertEquals(3, ((TestEvent) v1.decode("instance", buffer)).getAmount());
+        assertFalse(buffer.hasRemaining());
+
+        // an index inserted between existing ones is rejected either way, rather than read as another property
+        EventCodec<? extends GeneratedEventData<String>, String> inserted = cache.generate(TestEventInserted.class).getCodec();
+        buffer.clear();
+        encode(v1, cache.generate(TestEvent.class).newInstance("instance", 4, "world"), buffer);
+        encode(inserted, cache.generate(TestEventInserted.class).newInstance("instance", 5, 101L, "world"), buffer);
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> inserted.decode("instance", buffer));
+
+        buffer.position(buffer.getInt(0));
+        assertThrows(IllegalArgumentException.class, () -> v1.decode("instance", buffer));
+    }
+
+    @Test
+    void testFlyweight() throws Throwable {
+        EventGeneratorCache<GeneratedEventData<String>, String> cache = new EventGeneratorCache<>("instance");
+        EventFlyweight<? extends GeneratedEventData<String>, String> flyweight = cache.generate(FlyweightEvent.class).getFlyweight();
+        assertSame(flyweight, cache.generate(FlyweightEvent.class).getFlyweight());
+
+        // long, then int and float, then short, then byte and boolean, padded to 24
+        assertEquals(24, flyweight.getSlotSize());
+        assertEquals(0, flyweight.getOffset(3));
+        assertEquals(8, flyweight.getOffset(0));
+        assertEquals(16, flyweight.getOffset(4));
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(24 * 100 + 3), ByteBuffer.allocateDirect(24 * 100).order(ByteOrder.LITTLE_ENDIAN)}) {
+            EventSlab<? extends GeneratedEventData<String>, String> slab = flyweight.newSlab("instance", buffer);
+            assertEquals(100, slab.getCapacity());
+
+            for (int slot = 0; slot < slab.getCapacity(); slot++) {
+                slab.putInt(slot, 0, slot);
+                slab.putFloat(slot, 1, slot / 2F);
+                slab.putBoolean(slot, 2, slot % 2 == 0);
+                slab.putLong(slot, 3, slot * 1_000_000_000_000L);
+                slab.putShort(slot, 4, (short) -slot);
+                slab.putByte(slot, 5, (byte) slot);
+            }
+
+            AtomicInteger read = new AtomicInteger();
+            slab.forEach(0, slab.getCapacity(), view -> {
+                FlyweightEvent event = (FlyweightEvent) view;
+                int slot = read.getAndIncrement();
+
+                assertEquals(slot, event.getAmount());
+                assertEquals(slot / 2F, event.getRatio());
+                assertEquals(slot % 2 == 0, event.isEven());
+                assertEquals(slot * 1_000_000_000_000L, event.getTimestamp());
+                assertEquals(-slot, event.getDelta());
+                assertEquals((byte) slot, event.getTag());
+            });
+            assertEquals(100, read.get());
+            assertSame(flyweight.getViewClass(), slab.get(1).getClass());
+            assertSame(slab.get(1), slab.get(2));
+
+            assertThrows(IllegalArgumentException.class, () -> slab.putLong(0, 0, 1L));
+            assertThrows(IndexOutOfBoundsException.class, () -> slab.get(100));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> cache.generate(CodecEvent.class).getFlyweight());
+    }
+
+    @Test
+    void testPostedFlyweight() throws Throwable {
+        EventGeneratorCache<TestCancellableEvent, String> cache = new EventGeneratorCache<>("instance");
+        EventFlyweight<? extends TestCancellableEvent, String> flyweight = cache.generate(TestCancellableEvent.class).getFlyweight();
+        EventSlab<? extends TestCancellableEvent, String> slab = flyweight.allocateSlab("instance", 10);
+
+        EventBus<TestCancellableEvent> bus = EventBus.of(TestCancellableEvent.class);
+        AtomicInteger total = new AtomicInteger();
+        bus.register(flyweight.getViewClass(), "amount > 4", (EventHandler<TestCancellableEvent>) event -> event.setCancelled(true));
+        bus.register(flyweight.getViewClass(), (EventHandler<TestCancellableEvent>) event -> total.addAndGet(event.getAmount()));
+
+        for (int slot = 0; slot < slab.getCapacity(); slot++) {
+            slab.putInt(slot, 0, slot);
+        }
+        slab.forEach(0, slab.getCapacity(), bus::post);
+
+        // the slots after 4 were cancelled, without the cancellation leaking into the next slot
+        assertEquals(0 + 1 + 2 + 3 + 4, total.get());
+        assertFalse(slab.get(0).isCancelled());
+    }
+
+    @Test
+    void testRetainedFlyweightIsRejected() throws Throwable {
+        EventGeneratorCache<TestCancellableEvent, String> cache = new EventGeneratorCache<>("instance");
+        EventFlyweight<? extends TestCancellableEvent, String> flyweight = cache.generate(TestCancellableEvent.class).getFlyweight();
+        EventSlab<? extends TestCancellableEvent, String> slab = flyweight.allocateSlab("instance", 1);
+
+        // a batch would keep the view past its post
+        EventBus<TestCancellableEvent> bus = EventBus.of(TestCancellableEvent.class);
+        bus.register(flyweight.getViewClass(), new BatchingSubscription<>(PostOrder.NORMAL, bus, flyweight.getViewClass(), events -> {}, 10, 0, TimeUnit.MILLISECONDS, true));
+
+        PostResult<? super TestCancellableEvent> result = bus.post(slab.get(0)).get();
+        assertInstanceOf(IllegalArgumentException.class, result.getExceptions().values().iterator().next());
+
+        // as would queueing it for an execution context
+        EventBus<TestCancellableEvent> contextBus = EventBus.of(TestCancellableEvent.class);
+        contextBus.bindContext("main");
+        List<TestCancellableEvent> received = new ArrayList<>();
+        contextBus.register(flyweight.getViewClass(), (EventHandler<TestCancellableEvent>) received::add, PostOrder.NORMAL, false, "main");
+
+        result = ForkJoinPool.commonPool().submit(() -> contextBus.post(slab.get(0))).get(5, TimeUnit.SECONDS).get();
+        assertInstanceOf(IllegalArgumentException.class, result.getExceptions().values().iterator().next());
+        assertEquals(0, contextBus.drain("main", 10));
+        assertTrue(received.isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <G extends GeneratedEventData<String>> void encode(EventCodec<G, String> codec, Object event, ByteBuffer buffer) {
+        codec.encode((G) event, buffer);
+    }
+
+    /**
+     * Loads an event into its own class loader, as a plugin would, and generates it.
+     */
+    @Test
+    void testEventFilter() throws Throwable {
+        EventGeneratorCache<TestEvent, String> cache = new EventGeneratorCache<>("instance");
+        GeneratedEvent<? extends TestEvent, String> generated = cache.generate(TestEvent.class);
+        Class<? extends TestEvent> generatedClass = generated.getGeneratedClass();
+
+        EventFilter filter = EventFilter.compile(generatedClass, "amount >= 100 && world == \"nether\"");
+        assertEquals("((getAmount >= 100) && (getWorld == \"nether\"))", filter.getExpression());
+        assertTrue(filter.test(generated.newInstance("instance", 100, "nether")));
+        assertFalse(filter.test(generated.newInstance("instance", 99, "nether")));
+        assertFalse(filter.test(generated.newInstance("instance", 100, "end")));
+
+        // the same filter written differently is the same instance
+        assertSame(filter, EventFilter.compile(TestEvent.class, "(getAmount>=100)&&(getWorld=='nether')"));
+
+        EventFilter combined = EventFilter.compile(TestEvent.class, "!(amount < 0 || amount > 10) && world != null");
+        assertTrue(combined.test(generated.newInstance("instance", 10, "end")));
+        assertFalse(combined.test(generated.newInstance("instance", 11, "end")));
+        assertFalse(combined.test(generated.newInstance("instance", 5, null)));
+
+        // every primitive, box and enum
+        CodecEvent codec = new EventGeneratorCache<CodecEvent, String>("instance").generate(CodecEvent.class).newInstance(
+                "instance", true, (byte) 1, 'c', 1.5, 2.5f, 3, 4L, (short) 5, "string", RoundingMode.UP, null, 6L
+        );
+        assertTrue(EventFilter.compile(CodecEvent.class, "flag && byte == 1 && char == 99 && double > 1 && float < 2.6"
+                + " && int == 3 && long >= 4 && short <= 5 && string > 'r' && rounding == 'UP' && missing == null && boxed == 6").test(codec));
+        assertFalse(EventFilter.compile(CodecEvent.class, "!flag || rounding != \"UP\"").test(codec));
+
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile(TestEvent.class, "height > 1"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile(TestEvent.class, "amount == 'many'"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile(TestEvent.class, "(amount > 1"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile(CodecEvent.class, "rounding == 'SIDEWAYS'"));
+    }
+
+    @Test
+    void testSharedFilterEvaluatedOncePerPost() throws Throwable {
+        EventGeneratorCache<TestEvent, String> cache = new EventGeneratorCache<>("instance");
+        GeneratedEvent<? extends TestEvent, String> generated = cache.generate(TestEvent.class);
+
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        AtomicInteger handled = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            bus.register(generated.getGeneratedClass(), "amount > 50 && world == 'overworld'", (EventHandler<TestEvent>) event -> handled.incrementAndGet());
+        }
+
+        EventFilter filter = EventFilter.compile(TestEvent.class, "amount > 50 && world == 'overworld'");
+        long evaluations = filter.getEvaluationCount();
+
+        bus.post(generated.newInstance("instance", 100, "overworld"));
+        bus.post(generated.newInstance("instance", 10, "overworld"));
+        assertEquals(10, handled.get());
+        assertEquals(evaluations + 2, filter.getEvaluationCount());
+
+        // the result is kept in the event, so the shared filter doesn't keep it alive
+        WeakReference<TestEvent> posted = new WeakReference<>(generated.newInstance("instance", 100, "overworld"));
+        bus.post(posted.get());
+        for (int i = 0; i < 50 && posted.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(posted.get(), "the posted event should have been collected");
+    }
+
+    private WeakReference<ClassLoader> generatePluginEvent(EventGeneratorCache<GeneratedEventData<String>, String> cache) throws Throwable {
+        Class<? extends GeneratedEventData<String>> eventType = this.pluginEventType();
+
+        GeneratedEventData<String> event = cache.generate(eventType).newInstance("instance", 42);
+        assertEquals(42, eventType.getMethod("getAmount").invoke(event));
+        assertSame(eventType.getClassLoader(), event.getClass().getClassLoader());
+        assertEquals(1, cache.size());
+
+        return new WeakReference<>(eventType.getClassLoader());
+    }
+
+    /**
+     * Defines the same plugin event in a new class loader on every call.
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends GeneratedEventData<String>> pluginEventType() throws Throwable {
+        return (Class<? extends GeneratedEventData<String>>) new ByteBuddy()
+                .subclass(GeneratedEventData.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+                .name("plugin.PluginEvent")
+                .modifiers(Visibility.PUBLIC, TypeManifestation.ABSTRACT)
+                .defineConstructor(Visibility.PUBLIC)
+                .withParameters(String.class)
+                .intercept(MethodCall.invoke(GeneratedEventData.class.getConstructor(Object.class)).withArgument(0))
+                .defineMethod("getAmount", int.class, Visibility.PUBLIC)
+                .withoutCode()
+                .annotateMethod(AnnotationDescription.Builder.ofType(Index.class).define("value", 0).build())
+                .make()
+                .load(GeneratedEventTest.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+    }
+
+    public static abstract class TestEvent extends GeneratedEventData<String> {
+
+        public TestEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract String getWorld();
+
+    }
+
+    public static abstract class TestEventV2 extends GeneratedEventData<String> {
+
+        public TestEventV2(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract String getWorld();
+
+        @Index(2)
+        public abstract long getTimestamp();
+
+    }
+
+    public static abstract class TestEventInserted extends GeneratedEventData<String> {
+
+        public TestEventInserted(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract long getTimestamp();
+
+        @Index(2)
+        public abstract String getWorld();
+
+    }
+
+    public static abstract class CodecEvent extends GeneratedEventData<String> {
+
+        public CodecEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract boolean isFlag();
+
+        @Index(1)
+        public abstract byte getByte();
+
+        @Index(2)
+        public abstract char getChar();
+
+        @Index(3)
+        public abstract double getDouble();
+
+        @Index(4)
+        public abstract float getFloat();
+
+        @Index(5)
+        public abstract int getInt();
+
+        @Index(6)
+        public abstract long getLong();
+
+        @Index(7)
+        public abstract short getShort();
+
+        @Index(8)
+        public abstract String getString();
+
+        @Index(9)
+        public abstract RoundingMode getRounding();
+
+        @Index(10)
+        public abstract Integer getMissing();
+
+        @Index(11)
+        public abstract Long getBoxed();
+
+    }
+
+    public static abstract class FlyweightEvent extends GeneratedEventData<String> {
+
+        public FlyweightEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract float getRatio();
+
+        @Index(2)
+        public abstract boolean isEven();
+
+        @Index(3)
+        public abstract long getTimestamp();
+
+        @Index(4)
+        public abstract short getDelta();
+
+        @Index(5)
+        public abstract byte getTag();
+
+    }
+
+    public static abstract class BrokenEvent extends GeneratedEventData<String> {
+
+        // generated events are constructed from their instance alone
+        public BrokenEvent(String instance, int amount) {
+            super(instance);
+        }
+
+    }
+
+    public static abstract class TestCancellableEvent extends CancellableGeneratedEventData<String> {
+
+        public TestCancellableEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.Subscriptions;
+import io.github.penguthepenguin.event.data.PostOrder;
+import io.github.penguthepenguin.event.topic.TopicEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers buses with posts, registrations and unregistrations from many threads, checking that:
+ * <ul>
+ *     <li>a subscription registered before a post starts, and still registered after it, is called by it</li>
+ *     <li>a subscription unregistered before a post starts isn't called by it</li>
+ *     <li>no subscription is called twice by the same post</li>
+ *     <li>subscriptions are called in their order</li>
+ *     <li>the subscriptions of an event type can be inspected while they change</li>
+ * </ul>
+ */
+class ConcurrencyStressTest {
+
+    private static final int SLOTS = 48;
+    private static final int POSTERS = 3;
+    private static final int CHURNERS = 3;
+    private static final long DURATION = TimeUnit.MILLISECONDS.toNanos(750);
+
+    @Test
+    void testSimpleEventBus() throws InterruptedException {
+        assertNoViolations("simple", () -> EventBus.of(Object.class));
+    }
+
+    @Test
+    void testLazyBaking() throws InterruptedException {
+        assertNoViolations("lazy", () -> EventBus.builder(Object.class).lazyBaking(true).build());
+    }
+
+    @Test
+    void testShardedEventBus() throws InterruptedException {
+        assertNoViolations("sharded", () -> new ShardedEventBus<>(Object.class, 4));
+    }
+
+    @Test
+    void testChildBus() throws InterruptedException {
+        // registered to the child, posted to the parent
+        SimpleEventBus<Object> parent = SimpleEventBus.builder(Object.class).build();
+        SimpleEventBus<Object> child = parent.child();
+        assertNoViolations("child", new Stress(child, parent));
+    }
+
+    @Test
+    void testTopicEventBus() throws InterruptedException {
+        // every pattern matches the posted topic, through exact words and both wildcards, while the cached matches are invalidated
+        String[] patterns = {"stress.a.b", "stress.*.b", "stress.#", "#.b", "*.a.#"};
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class));
+        assertNoViolations("topic", new Stress(bus,
+                (slot, handler) -> bus.subscribe(patterns[slot % patterns.length], handler, order(slot), false),
+                event -> bus.post("stress.a.b", event)
+        ));
+    }
+
+    private static void assertNoViolations(String name, Supplier<EventBus<Object>> bus) throws InterruptedException {
+        EventBus<Object> created = bus.get();
+        assertNoViolations(name, new Stress(created, created));
+    }
+
+    private static void assertNoViolations(String name, Stress stress) throws InterruptedException {
+        stress.run();
+        assertTrue(stress.violations.isEmpty(), () -> name + ": " + stress + "\n" + String.join("\n", stress.violations));
+        assertTrue(stress.posts.get() > 0 && stress.registrations.get() > 0, () -> name + ": " + stress);
+    }
+
+    /**
+     * A run of posting and churning subscriptions.
+     * <p>
+     * Every slot holds one subscription at a time, each a new generation, registered and unregistered by one churning thread.
+     * The generation of a slot is published once registering it returned.
+     * It's recorded as unregistering before it's unregistered, and as unregistered once that returned.
+     */
+    private static final class Stress {
+
+        private final EventBus<Object> registry;
+        private final BiFunction<Integer, Handler, Subscription<Object>> register;
+        private final Function<Object, CompletableFuture<?>> poster;
+
+        private final AtomicLongArray registered = new AtomicLongArray(SLOTS);
+        private final AtomicLongArray unregistering = new AtomicLongArray(SLOTS);
+        private final AtomicLongArray unregistered = new AtomicLongArray(SLOTS);
+
+        private final AtomicLong posts = new AtomicLong();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong registrations = new AtomicLong();
+        private final Queue violations = new Queue();
+
+        private long elapsed;
+
+        private Stress(EventBus<Object> registry, EventBus<Object> poster) {
+            this(registry, (slot, handler) -> registry.register(StressEvent.class, handler, order(slot)), poster::post);
+        }
+
+        private Stress(EventBus<Object> registry, BiFunction<Integer, Handler, Subscription<Object>> register, Function<Object, CompletableFuture<?>> poster) {
+            this.registry = registry;
+            this.register = register;
+            this.poster = poster;
+        }
+
+        private void run() throws InterruptedException {
+            ExecutorService executor = Executors.newFixedThreadPool(POSTERS + CHURNERS);
+            CountDownLatch start = new CountDownLatch(1);
+            long deadline = System.nanoTime() + DURATION;
+
+            for (int i = 0; i < CHURNERS; i++) {
+                int churner = i;
+                executor.execute(() -> this.churn(churner, start, deadline));
+            }
+            for (int i = 0; i < POSTERS; i++) {
+                executor.execute(() -> this.post(start, deadline));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            this.elapsed = System.nanoTime() - begin;
+        }
+
+        private void churn(int churner, CountDownLatch start, long deadline) {
+            await(start);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Subscription<Object>[] subscriptions = new Subscription[SLOTS];
+
+            // every sweep flips the slots of this thread, so about half of them are registered at any time
+            while (System.nanoTime() < deadline) {
+                for (int slot = churner; slot < SLOTS; slot += CHURNERS) {
+                    long generation = this.registered.get(slot);
+
+                    if (subscriptions[slot] == null) {
+                        subscriptions[slot] = this.register.apply(slot, new Handler(slot, generation + 1));
+                        this.registered.set(slot, generation + 1);
+                        this.registrations.incrementAndGet();
+                        continue;
+                    }
+
+                    this.unregistering.set(slot, generation);
+                    if (random.nextBoolean()) {
+                        this.registry.unregister(subscriptions[slot]);
+                    } else {
+                        int churned = slot;
+                        this.registry.unregisterIf(other -> other instanceof SimpleSubscription
+                                && ((SimpleSubscription<Object>) other).getHandler() instanceof Handler
+                                && ((Handler) ((SimpleSubscription<Object>) other).getHandler()).matches(churned));
+                    }
+                    this.unregistered.set(slot, generation);
+                    subscriptions[slot] = null;
+                }
+
+                if (random.nextInt(8) == 0) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        private void post(CountDownLatch start, long deadline) {
+            await(start);
+
+            long[] registeredBefore = new long[SLOTS];
+            long[] unregisteredBefore = new long[SLOTS];
+
+            while (System.nanoTime() < deadline) {
+                // unregistered is read first, a generation registered and then unregistered in between only loosens the check
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    unregisteredBefore[slot] = this.unregistered.get(slot);
+                    registeredBefore[slot] = this.registered.get(slot);
+                }
+
+                StressEvent event = new StressEvent();
+                this.poster.apply(event).join();
+                this.posts.incrementAndGet();
+                this.calls.addAndGet(event.calls.size());
+
+                if ((this.posts.get() & 63) == 0) {
+                    this.inspect();
+                }
+
+                int lastOrder = Integer.MIN_VALUE;
+                boolean[] called = new boolean[SLOTS];
+
+                for (long call : event.calls) {
+                    int slot = (int) (call >>> 32);
+                    long generation = call & 0xFFFFFFFFL;
+
+                    if (called[slot]) {
+                        this.violations.add("Slot " + slot + " was called twice by one post");
+                    }
+                    called[slot] = true;
+
+                    if (generation <= unregisteredBefore[slot]) {
+                        this.violations.add("Slot " + slot + " generation " + generation + " was called after it was unregistered");
+                    }
+
+                    if (order(slot) < lastOrder) {
+                        this.violations.add("Slot " + slot + " was called out of order");
+                    }
+                    lastOrder = order(slot);
+                }
+
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    long generation = registeredBefore[slot];
+
+                    // registered before the post, and not being unregistered by the time it finished
+                    if (generation > unregisteredBefore[slot] && this.unregistering.get(slot) < generation && !called[slot]) {
+                        this.violations.add("Slot " + slot + " generation " + generation + " was registered but missed");
+                    }
+                }
+            }
+        }
+
+        private void inspect() {
+            Subscriptions<Object> subscriptions = this.registry.getSubscriptions().get(StressEvent.class);
+            if (subscriptions == null) {
+                return;
+            }
+
+            try {
+                for (List<Subscription<Object>> ordered : subscriptions.getSubscriptions().values()) {
+                    for (Subscription<Object> subscription : ordered) {
+                        if (subscription == null) {
+                            this.violations.add("A null subscription was inspected");
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                this.violations.add("Inspecting subscriptions failed: " + e);
+            }
+        }
+
+        private static void await(CountDownLatch start) {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public String toString() {
+            double seconds = this.elapsed / 1e9;
+            return String.format("%.0f posts/s, %.0f calls/s, %.0f registrations/s, %d violations",
+                    this.posts.get() / seconds, this.calls.get() / seconds, this.registrations.get() / seconds, this.violations.size());
+        }
+
+    }
+
+    private static int order(int slot) {
+        return PostOrder.FIRST + slot % 5 * (PostOrder.LAST - PostOrder.FIRST) / 4;
+    }
+
+    /**
+     * Keeps the first violations found.
+     */
+    private static final class Queue extends ConcurrentLinkedQueue<String> {
+
+        @Override
+        public boolean add(String violation) {
+            return this.size() < 20 && super.add(violation);
+        }
+
+    }
+
+    private static final class Handler implements EventHandler<Object> {
+
+        private final int slot;
+        private final long generation;
+
+        private Handler(int slot, long generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        private boolean matches(int slot) {
+            return this.slot == slot;
+        }
+
+        @Override
+        public void handle(Object event) {
+            ((StressEvent) event).calls.add((long) this.slot << 32 | this.generation);
+        }
+
+    }
+
+    public static final class StressEvent {
+
+        // only touched by the posting thread
+        private final List<Long> calls = new ArrayList<>();
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.generic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.data.Subscribe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedEventBusTest {
+
+    @Test
+    void testRoutingAndUnregister() {
+        ShardedEventBus<TestEvent> bus = new ShardedEventBus<>(TestEvent.class, 4);
+
+        Subscription<TestEvent> first = bus.register(FirstEvent.class, (EventHandler<TestEvent>) event -> event.count++);
+        bus.register(SecondEvent.class, (EventHandler<TestEvent>) event -> event.count += 10);
+        bus.register(new TestSubscriber());
+
+        assertEquals(2, bus.getSubscriptions().size());
+        assertSame(bus.shard(FirstEvent.class).getSubscriptions().get(FirstEvent.class), bus.getSubscriptions().get(FirstEvent.class));
+
+        FirstEvent firstEvent = new FirstEvent();
+        bus.post(firstEvent);
+        assertEquals(101, firstEvent.count);
+
+        SecondEvent secondEvent = new SecondEvent();
+        bus.post(secondEvent);
+        assertEquals(10, secondEvent.count);
+
+        ((SimpleSubscription<TestEvent>) first).unsubscribe();
+        bus.post(firstEvent);
+        assertEquals(201, firstEvent.count);
+
+        bus.unregisterIf(subscription -> subscription.getOrder() == 1);
+        assertFalse(bus.isSubscribed(FirstEvent.class));
+        assertTrue(bus.isSubscribed(SecondEvent.class));
+
+        bus.unregisterAll();
+        assertTrue(bus.getSubscriptions().isEmpty());
+    }
+
+    @Test
+    void testShardExecutors() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        EventBus<TestEvent> bus = new ShardedEventBus<>(TestEvent.class, 2, shard -> shard == 0 ? executor : null);
+
+        bus.register(FirstEvent.class, (EventHandler<TestEvent>) event -> event.count++);
+        bus.register(SecondEvent.class, (EventHandler<TestEvent>) event -> event.count++);
+
+        FirstEvent firstEvent = new FirstEvent();
+        SecondEvent secondEvent = new SecondEvent();
+        assertTrue(bus.post(firstEvent).get(5, TimeUnit.SECONDS).wasSuccessful());
+        assertTrue(bus.post(secondEvent).get(5, TimeUnit.SECONDS).wasSuccessful());
+
+        assertEquals(1, firstEvent.count);
+        assertEquals(1, secondEvent.count);
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testContextOrderAcrossShards() throws Exception {
+        ShardedEventBus<TestEvent> bus = new ShardedEventBus<>(TestEvent.class, 2);
+        bus.bindContext("main");
+
+        List<String> ran = new ArrayList<>();
+        bus.getShards()[1].register(FirstEvent.class, (EventHandler<TestEvent>) event -> ran.add("first"), 0, false, "main");
+        bus.getShards()[0].register(FirstEvent.class, (EventHandler<TestEvent>) event -> ran.add("second"), 0, false, "main");
+
+        Thread poster = new Thread(() -> {
+            bus.getShards()[1].post(new FirstEvent());
+            bus.getShards()[0].post(new FirstEvent());
+        });
+        poster.start();
+        poster.join();
+
+        assertTrue(ran.isEmpty());
+        assertEquals(2, bus.drain("main", 10));
+        assertEquals(Arrays.asList("first", "second"), ran);
+    }
+
+    public static class TestEvent {
+
+        public int count;
+
+    }
+
+    public static class FirstEvent extends TestEvent {
+
+    }
+
+    public static class SecondEvent extends TestEvent {
+
+    }
+
+    public static class TestSubscriber {
+
+        @Subscribe(order = 1)
+        public void onFirst(FirstEvent event) {
+            event.count += 100;
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.journal;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalingEventBusTest {
+
+    private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+
+    @Test
+    void testReplayAfterRestart(@TempDir Path directory) throws Throwable {
+        GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(TransferEvent.class);
+
+        try (JournalingEventBus<GeneratedEventData<String>> bus = this.bus(directory, 1024)) {
+            for (int i = 0; i < 100; i++) {
+                bus.post(generated.newInstance("instance", i, "account" + i, i % 2 == 0 ? Currency.EURO : Currency.POUND, i % 3 == 0 ? null : (long) i));
+            }
+            bus.post(this.generators.generate(UnjournaledEvent.class).newInstance("instance", 1));
+        }
+
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() > 1, "the journal should have rolled over to new segments");
+        }
+
+        // restarted, with the state rebuilt by replaying the journal
+        try (JournalingEventBus<GeneratedEventData<String>> bus = this.bus(directory, 1024)) {
+            List<TransferEvent> replayed = new ArrayList<>();
+            bus.register(generated.<TransferEvent>newInstance("instance", 0, "", Currency.EURO, null).getClass(), (EventHandler<GeneratedEventData<String>>) event -> replayed.add((TransferEvent) event));
+
+            assertEquals(100, bus.replay());
+            assertEquals(100, replayed.size());
+
+            for (int i = 0; i < 100; i++) {
+                TransferEvent event = replayed.get(i);
+                assertEquals(i, event.getAmount());
+                assertEquals("account" + i, event.getAccount());
+                assertEquals(i % 2 == 0 ? Currency.EURO : Currency.POUND, event.getCurrency());
+                assertEquals(i % 3 == 0 ? null : (Long) (long) i, event.getReference());
+            }
+
+            // appends after a restart continue the journal
+            bus.post(generated.newInstance("instance", 100, "account", Currency.EURO, 1L));
+            assertEquals(101, bus.getJournal().replay(event -> {}));
+        }
+    }
+
+    @Test
+    void testTornAppendIsNotReplayed(@TempDir Path directory) throws Throwable {
+        GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(TransferEvent.class);
+
+        try (JournalingEventBus<GeneratedEventData<String>> bus = this.bus(directory, 4096)) {
+            bus.post(generated.newInstance("instance", 1, "account", Currency.EURO, null));
+            bus.post(generated.newInstance("instance", 2, "account", Currency.EURO, null));
+        }
+
+        // a record whose header was never written, as if the process died while appending it
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        int end = 0;
+        for (int length; (length = java.nio.ByteBuffer.wrap(bytes).getInt(end)) != 0; end += length) ;
+        bytes[end + JournalSegment.HEADER] = 42;
+        Files.write(segment, bytes);
+
+        try (JournalingEventBus<GeneratedEventData<String>> bus = this.bus(directory, 4096)) {
+            assertEquals(2, bus.getJournal().replay(event -> {}));
+
+            bus.post(generated.newInstance("instance", 3, "account", Currency.EURO, null));
+            assertEquals(3, bus.getJournal().replay(event -> {}));
+        }
+    }
+
+    @Test
+    void testEventTooLargeIsNotPosted(@TempDir Path directory) throws Throwable {
+        GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(TransferEvent.class);
+
+        try (JournalingEventBus<GeneratedEventData<String>> bus = this.bus(directory, 64)) {
+            StringBuilder account = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                account.append(i);
+            }
+
+            assertTrue(bus.post(generated.newInstance("instance", 1, account.toString(), Currency.EURO, null)).isCompletedExceptionally());
+            assertEquals(0, bus.getJournal().replay(event -> {}));
+        }
+    }
+
+    private JournalingEventBus<GeneratedEventData<String>> bus(Path directory, int segmentSize) throws IOException {
+        @SuppressWarnings("unchecked")
+        EventBus<GeneratedEventData<String>> bus = EventBus.of((Class<GeneratedEventData<String>>) (Class<?>) GeneratedEventData.class);
+        EventJournal journal = EventJournal.builder(directory, this.generators)
+                .segmentSize(segmentSize)
+                .classLoader(JournalingEventBusTest.class.getClassLoader())
+                .build();
+
+        return new JournalingEventBus<>(bus, journal, eventType -> eventType != UnjournaledEvent.class);
+    }
+
+    public enum Currency {
+        EURO, POUND
+    }
+
+    public static abstract class TransferEvent extends GeneratedEventData<String> {
+
+        public TransferEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract String getAccount();
+
+        @Index(2)
+        public abstract Currency getCurrency();
+
+        @Index(3)
+        public abstract @Nullable Long getReference();
+
+    }
+
+    public static abstract class UnjournaledEvent extends GeneratedEventData<String> {
+
+        public UnjournaledEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.replay;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.CancellableGeneratedEventData;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEvent;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayHarnessTest {
+
+    private final EventGeneratorCache<GeneratedEventData<String>, String> generators = new EventGeneratorCache<>("instance");
+
+    @Test
+    void testRecordAndReplay(@TempDir Path directory) throws Throwable {
+        Path path = directory.resolve("orders.events");
+        GeneratedEvent<? extends GeneratedEventData<String>, String> generated = this.generators.generate(OrderEvent.class);
+
+        try (RecordingEventBus<Object> bus = new RecordingEventBus<>(EventBus.of(Object.class), path)) {
+            cancelLargeOrders(bus, generated);
+
+            for (int i = 0; i < 100; i++) {
+                bus.post(generated.newInstance("instance", i, "item" + i));
+                if (i % 10 == 0) {
+                    bus.post(new TickEvent());
+                }
+            }
+
+            assertEquals(110, bus.getRecorded());
+        }
+
+        ReplayHarness harness = ReplayHarness.builder(path, this.generators).build();
+        assertEquals(110, harness.getRecordedEvents());
+
+        EventBus<Object> bus = EventBus.of(Object.class);
+        cancelLargeOrders(bus, generated);
+
+        List<OrderEvent> orders = new ArrayList<>();
+        List<TickEvent> ticks = new ArrayList<>();
+        bus.register(generated.getGeneratedClass(), (EventHandler<Object>) event -> orders.add((OrderEvent) event));
+        bus.register(TickEvent.class, (EventHandler<Object>) event -> ticks.add((TickEvent) event));
+
+        ReplayReport report = harness.replay(bus);
+        assertEquals(110, report.getEvents());
+        assertEquals(0, report.getSkipped());
+        assertEquals(0, report.getFailed());
+        assertEquals(49, report.getRecordedCancelled());
+        assertEquals(49, report.getReplayedCancelled());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getLatency(50) <= report.getLatency(99));
+        assertTrue(report.getLatency(99) <= report.getLatency(100));
+
+        // the properties were recorded before the orders were cancelled, which only the order subscription skips
+        assertEquals(IntStream.range(0, 51).boxed().collect(Collectors.toList()),
+                orders.stream().map(OrderEvent::getAmount).collect(Collectors.toList()));
+        assertEquals("item7", orders.get(7).getItem());
+        assertEquals(10, ticks.size());
+
+        // events that can't be created again are skipped
+        ReplayReport skipping = ReplayHarness.builder(path, this.generators)
+                .factory(type -> null)
+                .build()
+                .replay(EventBus.of(Object.class));
+        assertEquals(100, skipping.getEvents());
+        assertEquals(10, skipping.getSkipped());
+    }
+
+    @Test
+    void testRecordedSpeed(@TempDir Path directory) throws Throwable {
+        Path path = directory.resolve("ticks.events");
+
+        try (RecordingEventBus<Object> bus = new RecordingEventBus<>(EventBus.of(Object.class), path)) {
+            for (int i = 0; i < 3; i++) {
+                bus.post(new TickEvent());
+                Thread.sleep(25);
+            }
+        }
+
+        ReplayReport recorded = ReplayHarness.builder(path, this.generators)
+                .speed(ReplaySpeed.RECORDED)
+                .build()
+                .replay(EventBus.of(Object.class));
+
+        assertEquals(3, recorded.getEvents());
+        assertTrue(recorded.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(45), recorded.toString());
+    }
+
+    private static void cancelLargeOrders(EventBus<Object> bus, GeneratedEvent<?, ?> generated) {
+        bus.register(generated.getGeneratedClass(), (EventHandler<Object>) event -> {
+            OrderEvent order = (OrderEvent) event;
+            if (order.getAmount() > 50) {
+                order.setCancelled(true);
+            }
+        }, -1);
+    }
+
+    public static abstract class OrderEvent extends CancellableGeneratedEventData<String> {
+
+        public OrderEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+        @Index(1)
+        public abstract String getItem();
+
+    }
+
+    public static class TickEvent {
+    }
+
+}
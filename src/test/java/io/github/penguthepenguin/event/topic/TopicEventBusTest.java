@@ -0,0 +1,169 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.topic;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.PostResult;
+import io.github.penguthepenguin.event.Subscription;
+import io.github.penguthepenguin.event.data.PostOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicEventBusTest {
+
+    @Test
+    void testWildcards() {
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class));
+        List<String> received = new ArrayList<>();
+
+        bus.subscribe("region.eu.player.join", event -> received.add("exact"));
+        bus.subscribe("region.*.player.join", event -> received.add("one"));
+        bus.subscribe("region.#", event -> received.add("any"));
+        bus.subscribe("#.join", event -> received.add("suffix"));
+        bus.subscribe("region.*", event -> received.add("short"));
+        assertEquals(5, bus.getTopicSubscriptionCount());
+
+        bus.post("region.eu.player.join", new Object());
+        assertEquals(Arrays.asList("exact", "one", "any", "suffix"), received);
+
+        received.clear();
+        bus.post("region.us", new Object());
+        assertEquals(Arrays.asList("any", "short"), received);
+
+        // # matches no words too
+        received.clear();
+        bus.post("region", new Object());
+        assertEquals(Collections.singletonList("any"), received);
+
+        received.clear();
+        bus.post("lobby.player.quit", new Object());
+        assertEquals(Collections.emptyList(), received);
+
+        assertThrows(IllegalArgumentException.class, () -> bus.subscribe("region..join", event -> {}));
+        assertThrows(IllegalArgumentException.class, () -> bus.subscribe("region.e*", event -> {}));
+    }
+
+    @Test
+    void testOrder() {
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class));
+        List<String> received = new ArrayList<>();
+
+        bus.subscribe("a.#", event -> received.add("last"), PostOrder.LAST, false);
+        bus.subscribe("a.b", event -> received.add("normal"));
+        bus.subscribe("#", event -> received.add("first"), PostOrder.FIRST, false);
+        bus.subscribe("a.*", event -> received.add("normal again"));
+
+        bus.post("a.b", new Object());
+        assertEquals(Arrays.asList("first", "normal", "normal again", "last"), received);
+    }
+
+    @Test
+    void testCacheInvalidation() {
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class));
+        List<String> received = new ArrayList<>();
+
+        TopicSubscription<Object> any = bus.subscribe("chat.#", event -> received.add("any"));
+        bus.post("chat.global", new Object());
+        assertSame(bus.getSubscriptions("chat.global"), bus.getSubscriptions("chat.global"));
+
+        // a later pattern is seen by a cached topic
+        bus.subscribe("*.global", event -> received.add("global"));
+        bus.subscribe("chat.local", event -> received.add("local"));
+        bus.post("chat.global", new Object());
+        assertEquals(Arrays.asList("any", "any", "global"), received);
+
+        received.clear();
+        bus.unregister(any);
+        bus.post("chat.global", new Object());
+        assertEquals(Collections.singletonList("global"), received);
+
+        received.clear();
+        bus.unregisterIf(subscription -> subscription instanceof TopicSubscription
+                && ((TopicSubscription<?>) subscription).getPattern().equals("*.global"));
+        bus.post("chat.global", new Object());
+        bus.post("chat.local", new Object());
+        assertEquals(Collections.singletonList("local"), received);
+        assertEquals(1, bus.getTopicSubscriptionCount());
+
+        bus.unregisterAll();
+        assertEquals(0, bus.getTopicSubscriptionCount());
+        assertEquals(0, bus.getSubscriptions("chat.local").length);
+    }
+
+    @Test
+    void testUnrelatedChangesKeepTheCache() {
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class));
+        bus.subscribe("chat.#", event -> {});
+        Subscription<Object>[] cached = bus.getSubscriptions("chat.global");
+
+        // patterns that can't match the topic, including ones under the nodes it went through
+        TopicSubscription<Object> local = bus.subscribe("chat.local", event -> {});
+        bus.subscribe("chat.local.admin", event -> {});
+        bus.subscribe("region.*", event -> {});
+        bus.unregister(local);
+        assertSame(cached, bus.getSubscriptions("chat.global"));
+
+        bus.subscribe("#.global", event -> {});
+        assertEquals(2, bus.getSubscriptions("chat.global").length);
+    }
+
+    @Test
+    void testFailuresAndClasses() {
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class), 0);
+        List<Object> received = new ArrayList<>();
+
+        bus.subscribe("fail", event -> {
+            throw new Error("failed");
+        });
+        bus.register(String.class, (EventHandler<Object>) received::add);
+
+        PostResult<?> result = bus.post("fail", "topic").join();
+        assertEquals(1, result.getExceptions().size());
+        assertEquals(Collections.emptyList(), received);
+
+        bus.post("class");
+        assertEquals(Collections.singletonList("class"), received);
+    }
+
+    @Test
+    void testAcceptorOfTheBus() {
+        // the bus never lets its subscriptions handle a string
+        TopicEventBus<Object> bus = new TopicEventBus<>(EventBus.of(Object.class, (eventType, event, subscription) -> !(event instanceof String)));
+        List<Object> received = new ArrayList<>();
+
+        bus.subscribe("chat", received::add);
+        bus.post("chat", "rejected");
+        bus.post("chat", 1);
+        assertEquals(Collections.singletonList(1), received);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.trace;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventTracerTest {
+
+    private static final Pattern BEGIN = Pattern.compile("\"name\":\"([^\"]+)\",\"cat\":\"(\\w+)\",\"ph\":\"B\".*\"id\":(\\d+),\"parent\":(\\d+)");
+
+    @Test
+    void testNestedPosts() throws IOException {
+        EventTracer tracer = new EventTracer();
+        EventBus<Object> bus = EventBus.builder(Object.class).tracer(tracer).build();
+
+        bus.register(First.class, (EventHandler<Object>) event -> bus.post(new Second()));
+        bus.register(Second.class, (EventHandler<Object>) event -> {});
+        bus.post(new First());
+
+        String trace = trace(tracer);
+        List<Span> spans = spans(trace);
+        assertEquals(4, spans.size());
+        assertEquals(count(trace, "\"ph\":\"B\""), count(trace, "\"ph\":\"E\""));
+
+        // post First -> subscription -> post Second -> subscription, each nested in the last
+        assertEquals(First.class.getName(), spans.get(0).name);
+        assertEquals(0, spans.get(0).parent);
+        for (int i = 1; i < spans.size(); i++) {
+            assertEquals(spans.get(i - 1).id, spans.get(i).parent);
+        }
+
+        assertEquals("subscription", spans.get(1).category);
+        assertEquals(Second.class.getName(), spans.get(2).name);
+        assertFalse(trace.contains("\"cat\":\"cascade\""));
+    }
+
+    @Test
+    void testQueuedPosts() throws IOException {
+        EventTracer tracer = new EventTracer();
+        EventBus<Object> bus = EventBus.builder(Object.class).queuedReentrancy(10).tracer(tracer).build();
+
+        bus.register(First.class, (EventHandler<Object>) event -> bus.post(new Second()));
+        bus.register(Second.class, (EventHandler<Object>) event -> {});
+        bus.post(new First());
+
+        String trace = trace(tracer);
+        List<Span> spans = spans(trace);
+        assertEquals(4, spans.size());
+
+        // Second runs once First is done, still linked to the subscription that posted it
+        Span subscription = spans.get(1);
+        Span second = spans.get(2);
+        assertEquals(Second.class.getName(), second.name);
+        assertEquals(subscription.id, second.parent);
+        assertEquals(second.id, spans.get(3).parent);
+
+        int firstEnded = trace.indexOf("\"ph\":\"E\"", trace.indexOf("\"ph\":\"E\"") + 1);
+        assertTrue(firstEnded < trace.indexOf(Second.class.getName()));
+
+        assertTrue(trace.contains("\"ph\":\"s\",\"id\":" + second.id));
+        assertTrue(trace.contains("\"ph\":\"f\",\"bp\":\"e\",\"id\":" + second.id));
+    }
+
+    @Test
+    void testOverwrittenSpans() throws IOException {
+        EventTracer tracer = new EventTracer(8);
+        EventBus<Object> bus = EventBus.builder(Object.class).tracer(tracer).build();
+        bus.register(First.class, (EventHandler<Object>) event -> {});
+
+        for (int i = 0; i < 5; i++) {
+            bus.post(new First());
+        }
+
+        // only the last two posts fit, with no end left without its begin
+        String trace = trace(tracer);
+        assertEquals(4, spans(trace).size());
+        assertEquals(4, count(trace, "\"ph\":\"E\""));
+
+        assertThrows(IllegalArgumentException.class, () -> new EventTracer(10));
+    }
+
+    @Test
+    void testSampledPosts() throws IOException {
+        EventTracer tracer = new EventTracer(1024, 3);
+        EventBus<Object> bus = EventBus.builder(Object.class).tracer(tracer).build();
+        bus.register(First.class, (EventHandler<Object>) event -> bus.post(new Second()));
+        bus.register(Second.class, (EventHandler<Object>) event -> {});
+
+        for (int i = 0; i < 6; i++) {
+            bus.post(new First());
+        }
+
+        // posts caused by an untraced subscription are sampled like any other, so every other First is traced with its Second
+        String trace = trace(tracer);
+        assertEquals(12, spans(trace).size());
+        assertEquals(12, count(trace, "\"ph\":\"E\""));
+        assertFalse(tracer.isTracing());
+    }
+
+    @Test
+    void testDeadThreadsAreDropped() throws Exception {
+        EventTracer tracer = new EventTracer(1024);
+        EventBus<Object> bus = EventBus.builder(Object.class).tracer(tracer).build();
+        bus.register(First.class, (EventHandler<Object>) event -> {});
+
+        Thread thread = new Thread(() -> bus.post(new First()));
+        thread.start();
+        thread.join();
+
+        // written out once, then dropped
+        assertEquals(2, spans(trace(tracer)).size());
+        assertEquals(0, spans(trace(tracer)).size());
+    }
+
+    private static String trace(EventTracer tracer) throws IOException {
+        StringBuilder trace = new StringBuilder();
+        tracer.writeChromeTrace(trace);
+        return trace.toString();
+    }
+
+    private static List<Span> spans(String trace) {
+        List<Span> spans = new ArrayList<>();
+        for (String line : trace.split("\n")) {
+            Matcher matcher = BEGIN.matcher(line);
+            if (matcher.find()) {
+                spans.add(new Span(matcher.group(1), matcher.group(2), Long.parseLong(matcher.group(3)), Long.parseLong(matcher.group(4))));
+            }
+        }
+
+        return spans;
+    }
+
+    private static int count(String trace, String value) {
+        int count = 0;
+        for (int index = trace.indexOf(value); index >= 0; index = trace.indexOf(value, index + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private static final class Span {
+
+        private final String name;
+        private final String category;
+        private final long id;
+        private final long parent;
+
+        private Span(String name, String category, long id, long parent) {
+            this.name = name;
+            this.category = category;
+            this.id = id;
+            this.parent = parent;
+        }
+
+    }
+
+    public static class First {
+    }
+
+    public static class Second {
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.flow;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPublisherTest {
+
+    @Test
+    void testDemand() {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        EventPublisher<TestEvent> publisher = EventPublisher.builder(bus, TestEvent.class)
+                .bufferSize(4)
+                .executor(Runnable::run)
+                .build();
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        assertTrue(bus.isSubscribed(TestEvent.class));
+
+        post(bus, 0, 3);
+        assertEquals(Collections.emptyList(), subscriber.received);
+
+        subscriber.subscription.request(2);
+        assertEquals(ids(0, 2), subscriber.received);
+
+        // the two oldest are dropped for the newest
+        post(bus, 3, 8);
+        assertEquals(2, publisher.getDropped());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        List<Integer> expected = ids(0, 2);
+        expected.addAll(ids(4, 8));
+        assertEquals(expected, subscriber.received);
+
+        post(bus, 8, 9);
+        assertEquals(8, (int) subscriber.received.get(subscriber.received.size() - 1));
+
+        subscriber.subscription.cancel();
+        assertFalse(bus.isSubscribed(TestEvent.class));
+        assertEquals(0, publisher.getSubscriberCount());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testOverflowPolicies() {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+
+        EventPublisher<TestEvent> dropNewest = EventPublisher.builder(bus, TestEvent.class)
+                .bufferSize(2)
+                .overflow(OverflowPolicy.DROP_NEWEST)
+                .executor(Runnable::run)
+                .build();
+        CollectingSubscriber newest = new CollectingSubscriber();
+        dropNewest.subscribe(newest);
+
+        EventPublisher<TestEvent> error = EventPublisher.builder(bus, TestEvent.class)
+                .bufferSize(2)
+                .overflow(OverflowPolicy.ERROR)
+                .executor(Runnable::run)
+                .build();
+        CollectingSubscriber failing = new CollectingSubscriber();
+        error.subscribe(failing);
+
+        post(bus, 0, 4);
+        newest.subscription.request(Long.MAX_VALUE);
+        assertEquals(ids(0, 2), newest.received);
+        assertEquals(2, dropNewest.getDropped());
+
+        assertTrue(failing.error instanceof IllegalStateException);
+        assertEquals(0, error.getSubscriberCount());
+        assertEquals(1, bus.getSubscriptions(TestEvent.class).length);
+
+        // a non-positive request is an error too
+        newest.subscription.request(0);
+        assertTrue(newest.error instanceof IllegalArgumentException);
+        assertFalse(bus.isSubscribed(TestEvent.class));
+    }
+
+    @Test
+    void testBlockingOverflow() throws Exception {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            EventPublisher<TestEvent> publisher = EventPublisher.builder(bus, TestEvent.class)
+                    .bufferSize(2)
+                    .overflow(OverflowPolicy.BLOCK)
+                    .executor(executor)
+                    .build();
+
+            CollectingSubscriber subscriber = new CollectingSubscriber() {
+                @Override
+                public void onNext(TestEvent item) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    super.onNext(item);
+                }
+            };
+            subscriber.initialRequest = Long.MAX_VALUE;
+            publisher.subscribe(subscriber);
+
+            // the slow subscriber holds back the posts, without losing any
+            post(bus, 0, 50);
+            publisher.close();
+
+            assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+            assertEquals(ids(0, 50), subscriber.received);
+            assertEquals(0, publisher.getDropped());
+            assertTrue(subscriber.completed);
+            assertFalse(bus.isSubscribed(TestEvent.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBusSubscriber() throws Exception {
+        EventBus<TestEvent> bus = EventBus.of(TestEvent.class);
+        List<Integer> received = new ArrayList<>();
+        bus.register(TestEvent.class, (EventHandler<TestEvent>) event -> received.add(event.id));
+
+        EventBusSubscriber<TestEvent> subscriber = new EventBusSubscriber<>(bus, 4);
+        try (SubmissionPublisher<TestEvent> publisher = new SubmissionPublisher<>(Runnable::run, 8)) {
+            publisher.subscribe(subscriber);
+
+            for (int i = 0; i < 20; i++) {
+                publisher.submit(new TestEvent(i));
+            }
+        }
+
+        subscriber.getCompletion().get(10, TimeUnit.SECONDS);
+        assertEquals(ids(0, 20), received);
+    }
+
+    private static void post(EventBus<TestEvent> bus, int from, int to) {
+        for (int i = from; i < to; i++) {
+            bus.post(new TestEvent(i));
+        }
+    }
+
+    private static List<Integer> ids(int from, int to) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(i);
+        }
+
+        return ids;
+    }
+
+    public static class TestEvent {
+
+        private final int id;
+
+        public TestEvent(int id) {
+            this.id = id;
+        }
+
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<TestEvent> {
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+
+        long initialRequest;
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+
+            if (this.initialRequest > 0) {
+                subscription.request(this.initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(TestEvent item) {
+            this.received.add(item.id);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            this.done.countDown();
+        }
+
+    }
+
+}
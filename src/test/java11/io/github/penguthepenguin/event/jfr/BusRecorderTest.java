@@ -0,0 +1,117 @@
+/*
+ * This file is part of Event, licensed under the MIT License.
+ *
+ * Copyright (c) pengu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.penguthepenguin.event.jfr;
+
+import io.github.penguthepenguin.event.EventBus;
+import io.github.penguthepenguin.event.EventHandler;
+import io.github.penguthepenguin.event.data.Index;
+import io.github.penguthepenguin.event.gen.EventGeneratorCache;
+import io.github.penguthepenguin.event.gen.GeneratedEventData;
+import io.github.penguthepenguin.event.generic.BakedSubscriptions;
+import io.github.penguthepenguin.event.generic.CompiledDispatcher;
+import io.github.penguthepenguin.event.generic.SimpleSubscriptions;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusRecorderTest {
+
+    private static final String PREFIX = "io.github.penguthepenguin.event.";
+
+    @Test
+    void testEventsAreRecorded(@TempDir Path directory) throws Throwable {
+        EventBus<Object> bus = EventBus.of(Object.class);
+        for (int i = 0; i < CompiledDispatcher.MIN_SUBSCRIPTIONS; i++) {
+            bus.register(Object.class, (EventHandler<Object>) event -> {}, i);
+        }
+
+        // compiled before recording, so only the recording keeps posts off the compiled dispatcher
+        for (int i = 0; i <= CompiledDispatcher.COMPILE_THRESHOLD; i++) {
+            bus.post(new Object());
+        }
+
+        SimpleSubscriptions<Object> subscriptions = (SimpleSubscriptions<Object>) bus.getSubscriptions().get(Object.class);
+        for (int i = 0; i < 500 && subscriptions.getBaked().getCompilation() == BakedSubscriptions.Compilation.COMPILING; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(BakedSubscriptions.Compilation.COMPILED, subscriptions.getBaked().getCompilation());
+
+        Path file = directory.resolve("bus.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"Post", "Dispatch", "Bake", "Registration", "Generation"}) {
+                recording.enable(PREFIX + name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            bus.register(String.class, (EventHandler<Object>) event -> {});
+            bus.post(new Object());
+            new EventGeneratorCache<SampleEvent, String>("instance").generate(SampleEvent.class);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, Long> counts = RecordingFile.readAllEvents(file).stream()
+                .map(event -> event.getEventType().getName())
+                .filter(name -> name.startsWith(PREFIX))
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        assertEquals(1, counts.get(PREFIX + "Post"));
+        assertEquals(CompiledDispatcher.MIN_SUBSCRIPTIONS, counts.get(PREFIX + "Dispatch"));
+        assertEquals(1, counts.get(PREFIX + "Registration"));
+        assertNotNull(counts.get(PREFIX + "Bake"));
+        assertEquals(1, counts.get(PREFIX + "Generation"));
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent generation = events.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + "Generation"))
+                .findFirst()
+                .orElseThrow();
+        assertFalse(generation.getBoolean("cached"));
+    }
+
+    public static abstract class SampleEvent extends GeneratedEventData<String> {
+
+        public SampleEvent(String instance) {
+            super(instance);
+        }
+
+        @Index(0)
+        public abstract int getAmount();
+
+    }
+
+}